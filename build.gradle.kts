@@ -22,6 +22,18 @@ repositories {
 // Separate configuration for agent dependencies that need shading
 val agentDeps: Configuration by configurations.creating
 
+// JMH benchmarks of the agent's hot paths, in src/jmh/java; run with ./gradlew jmh
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+val jmhImplementation: Configuration by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+
 dependencies {
     implementation("net.bytebuddy:byte-buddy:1.14.9")
     implementation("net.bytebuddy:byte-buddy-agent:1.14.9")
@@ -32,6 +44,9 @@ dependencies {
     
     // TestNG for testing
     testImplementation("org.testng:testng:7.8.0")
+
+    jmhImplementation("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 intellij {
@@ -65,8 +80,12 @@ tasks {
             val agentJar = file("build/libs/mock-agent-1.0.6-agent.jar")
             val mockConfig = file("src/test/resources/mock-config-test.json")
             
+            // Unix socket paths are length-limited, so the control socket lives in the temp dir
+            val controlSocket = File(System.getProperty("java.io.tmpdir"), "mock-runner/control-test.sock")
+            
             if (agentJar.exists() && mockConfig.exists()) {
-                jvmArgs("-javaagent:${agentJar.absolutePath}=${mockConfig.absolutePath}")
+                jvmArgs("-javaagent:${agentJar.absolutePath}=${mockConfig.absolutePath},control=${controlSocket.absolutePath}")
+                systemProperty("mock.control", controlSocket.absolutePath)
                 println("✓ Mock Agent attached: ${agentJar.absolutePath}")
                 println("✓ Mock Config: ${mockConfig.absolutePath}")
             } else {
@@ -81,6 +100,21 @@ tasks {
         dependsOn("agentJar")
     }
     
+    // 运行 JMH 基准测试，附带 GC 分析器报告每次调用的分配量，结果写入 build/reports/jmh
+    // 只运行部分基准：./gradlew jmh -Pjmh.includes=InterceptorBenchmark
+    register<JavaExec>("jmh") {
+        group = "verification"
+        description = "Runs the JMH benchmarks of the agent's interception paths"
+        classpath = sourceSets["jmh"].runtimeClasspath
+        mainClass.set("org.openjdk.jmh.Main")
+        val results = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+        val includes = project.findProperty("jmh.includes")?.toString()
+        args(listOfNotNull(includes) + listOf("-prof", "gc", "-rf", "json", "-rff", results.absolutePath))
+        doFirst {
+            results.parentFile.mkdirs()
+        }
+    }
+
     // 创建 Agent JAR 任务
     val agentJar by registering(com.github.jengelman.gradle.plugins.shadow.tasks.ShadowJar::class) {
         archiveBaseName.set("mock-agent")
@@ -0,0 +1,87 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Methods the benchmarks intercept, one per return-type family that
+ * {@link MockAgent.Interceptor#parseMockValue} handles, and the rules that mock them.
+ */
+final class BenchmarkTargets {
+
+    static final String QUOTE_JSON = "{\"symbol\":\"ACME\",\"price\":42.5,\"volume\":1200}";
+    static final String HISTORY_JSON = "[" + QUOTE_JSON + "," + QUOTE_JSON + "," + QUOTE_JSON + "]";
+    static final String PRICES_JSON = "{\"ACME\":42.5,\"INIT\":17.25,\"TECH\":301.0}";
+
+    private BenchmarkTargets() {
+    }
+
+    /** Rules for every {@link Quotes} method except {@code live}, and for {@link QuoteApi#name}. */
+    static MockConfig config() {
+        MockConfig config = new MockConfig();
+        String quotes = Quotes.class.getName();
+        config.addMockRule(quotes, "count", new MockConfig.MockRule("42", "int"));
+        config.addMockRule(quotes, "name", new MockConfig.MockRule("ACME", "java.lang.String"));
+        config.addMockRule(quotes, "quote", new MockConfig.MockRule(QUOTE_JSON, Quote.class.getName()));
+        config.addMockRule(quotes, "history", new MockConfig.MockRule(HISTORY_JSON,
+            "java.util.List<" + Quote.class.getName() + ">"));
+        config.addMockRule(quotes, "prices", new MockConfig.MockRule(PRICES_JSON,
+            "java.util.Map<java.lang.String, java.lang.Double>"));
+        config.addMockRule(quotes, "fail", new MockConfig.MockRule(null, "java.lang.String",
+            true, IllegalStateException.class.getName(), "Market closed"));
+        config.addMockRule(QuoteApi.class.getName(), "name", new MockConfig.MockRule("ACME", "java.lang.String"));
+        return config;
+    }
+
+    static Method method(Class<?> type, String name) {
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class Quotes {
+        public int count() {
+            return 0;
+        }
+
+        public String name() {
+            return "real";
+        }
+
+        public Quote quote() {
+            return null;
+        }
+
+        public List<Quote> history() {
+            return null;
+        }
+
+        public Map<String, Double> prices() {
+            return null;
+        }
+
+        public String fail() {
+            return "real";
+        }
+
+        /** Has no rule, so calls pass through */
+        public String live() {
+            return "real";
+        }
+    }
+
+    public interface QuoteApi {
+        String name();
+    }
+
+    public static class Quote {
+        String symbol;
+        double price;
+        long volume;
+    }
+}
@@ -0,0 +1,138 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of the agent's interception paths, without the intercepted method itself.
+ *
+ * The {@code delegation*} benchmarks call {@link MockAgent.Interceptor} and
+ * {@link MockAgent.InterfaceInterceptor} as ByteBuddy's delegation would; the
+ * {@code advice*} benchmarks call the {@link MockDispatch} entry points that the inlined
+ * {@link MockAdvice} calls, which is the default dispatch. A hit returns the value cached
+ * after the first call, so it measures the steady state; the cost of parsing a value is
+ * measured separately by {@link ParseMockValueBenchmark}. Run with {@code ./gradlew jmh},
+ * which adds {@code -prof gc} so allocations per call are reported next to throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InterceptorBenchmark {
+
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final Callable<Object> ORIGINAL = () -> "real";
+
+    private Method count;
+    private Method name;
+    private Method quote;
+    private Method history;
+    private Method prices;
+    private Method fail;
+    private Method live;
+    private Method interfaceName;
+    private int nameSlot;
+    private int failSlot;
+    private int liveSlot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MockAgent.ruleIndex = RuleIndex.build(BenchmarkTargets.config(), 1);
+        Class<?> quotes = BenchmarkTargets.Quotes.class;
+        count = BenchmarkTargets.method(quotes, "count");
+        name = BenchmarkTargets.method(quotes, "name");
+        quote = BenchmarkTargets.method(quotes, "quote");
+        history = BenchmarkTargets.method(quotes, "history");
+        prices = BenchmarkTargets.method(quotes, "prices");
+        fail = BenchmarkTargets.method(quotes, "fail");
+        live = BenchmarkTargets.method(quotes, "live");
+        interfaceName = BenchmarkTargets.method(BenchmarkTargets.QuoteApi.class, "name");
+        nameSlot = register(name);
+        failSlot = register(fail);
+        liveSlot = register(live);
+    }
+
+    private static int register(Method method) {
+        MockAgent.MethodKeys keys = MockAgent.ruleKeys(method);
+        return MockDispatch.register(keys.exactKey, keys.nameKey, false);
+    }
+
+    @Benchmark
+    public Object delegationHitInt() throws Exception {
+        return MockAgent.Interceptor.intercept(count, NO_ARGS, ORIGINAL);
+    }
+
+    @Benchmark
+    public Object delegationHitString() throws Exception {
+        return MockAgent.Interceptor.intercept(name, NO_ARGS, ORIGINAL);
+    }
+
+    @Benchmark
+    public Object delegationHitPojo() throws Exception {
+        return MockAgent.Interceptor.intercept(quote, NO_ARGS, ORIGINAL);
+    }
+
+    @Benchmark
+    public Object delegationHitList() throws Exception {
+        return MockAgent.Interceptor.intercept(history, NO_ARGS, ORIGINAL);
+    }
+
+    @Benchmark
+    public Object delegationHitMap() throws Exception {
+        return MockAgent.Interceptor.intercept(prices, NO_ARGS, ORIGINAL);
+    }
+
+    @Benchmark
+    public Object delegationPassThrough() throws Exception {
+        return MockAgent.Interceptor.intercept(live, NO_ARGS, ORIGINAL);
+    }
+
+    @Benchmark
+    public Object delegationException() {
+        try {
+            return MockAgent.Interceptor.intercept(fail, NO_ARGS, ORIGINAL);
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object delegationInterface() throws Exception {
+        return MockAgent.InterfaceInterceptor.intercept(interfaceName, NO_ARGS);
+    }
+
+    @Benchmark
+    public Object adviceHitString() throws Throwable {
+        Object entered = MockDispatch.enter(nameSlot, BenchmarkTargets.Quotes.class);
+        return MockDispatch.exit((CompiledRule) entered, nameSlot, BenchmarkTargets.Quotes.class);
+    }
+
+    @Benchmark
+    public Object advicePassThrough() throws Throwable {
+        return MockDispatch.enter(liveSlot, BenchmarkTargets.Quotes.class);
+    }
+
+    @Benchmark
+    public Object adviceException() {
+        try {
+            return MockDispatch.enter(failSlot, BenchmarkTargets.Quotes.class);
+        } catch (Throwable e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of parsing a mock value into each return-type family, paid on a rule's first hit
+ * after every config reload and on every hit of a freshly built response (replayed calls).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseMockValueBenchmark {
+
+    private ClassLoader loader;
+    private Type quote;
+    private Type history;
+    private Type prices;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Class<?> quotes = BenchmarkTargets.Quotes.class;
+        loader = quotes.getClassLoader();
+        quote = BenchmarkTargets.method(quotes, "quote").getGenericReturnType();
+        history = BenchmarkTargets.method(quotes, "history").getGenericReturnType();
+        prices = BenchmarkTargets.method(quotes, "prices").getGenericReturnType();
+    }
+
+    @Benchmark
+    public Object primitive() {
+        return MockAgent.Interceptor.parseMockValue("42", "int", int.class, loader);
+    }
+
+    @Benchmark
+    public Object string() {
+        return MockAgent.Interceptor.parseMockValue("ACME", "java.lang.String", String.class, loader);
+    }
+
+    @Benchmark
+    public Object pojo() {
+        return MockAgent.Interceptor.parseMockValue(BenchmarkTargets.QUOTE_JSON, null, quote, loader);
+    }
+
+    @Benchmark
+    public Object list() {
+        return MockAgent.Interceptor.parseMockValue(BenchmarkTargets.HISTORY_JSON, null, history, loader);
+    }
+
+    @Benchmark
+    public Object map() {
+        return MockAgent.Interceptor.parseMockValue(BenchmarkTargets.PRICES_JSON, null, prices, loader);
+    }
+
+    /** Declared type says only Object, so the rule's generic type name is resolved by name */
+    @Benchmark
+    public Object listByTypeName() {
+        return MockAgent.Interceptor.parseMockValue(BenchmarkTargets.HISTORY_JSON,
+            "java.util.List<" + BenchmarkTargets.Quote.class.getName() + ">", Object.class, loader);
+    }
+}
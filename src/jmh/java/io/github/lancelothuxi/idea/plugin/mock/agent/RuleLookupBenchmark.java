@@ -0,0 +1,89 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rule lookup by class and method name for 10 to 100,000 rules: the key-building
+ * {@link MockConfig#getMockRule} against the agent's {@link RuleIndex} lookup with keys
+ * prepared once per method. Each call looks up the next of 1024 random configured methods
+ * so the map is not served from one hot cache line.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RuleLookupBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({"10", "1000", "100000"})
+    public int rules;
+
+    private MockConfig config;
+    private RuleIndex index;
+    private final String[] classNames = new String[PROBES];
+    private final String[] methodNames = new String[PROBES];
+    private final String[] descriptors = new String[PROBES];
+    private final String[] exactKeys = new String[PROBES];
+    private final String[] nameKeys = new String[PROBES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        config = new MockConfig();
+        for (int i = 0; i < rules; i++) {
+            config.addMockRule(className(i), "method" + i, new MockConfig.MockRule("1", "int"));
+        }
+        index = RuleIndex.build(config, 1);
+        Random random = new Random(42);
+        for (int i = 0; i < PROBES; i++) {
+            int rule = random.nextInt(rules);
+            classNames[i] = className(rule);
+            methodNames[i] = "method" + rule;
+            descriptors[i] = "(Ljava/lang/String;I)";
+            exactKeys[i] = MockConfig.ruleKey(classNames[i], methodNames[i], descriptors[i]);
+            nameKeys[i] = MockConfig.ruleKey(classNames[i], methodNames[i], null);
+        }
+    }
+
+    private static String className(int rule) {
+        // About 8 rules per class, as in real projects
+        return "com.example.service.Service" + rule / 8;
+    }
+
+    @Benchmark
+    public Object configGetMockRule() {
+        int i = next++ & (PROBES - 1);
+        return config.getMockRule(classNames[i], methodNames[i]);
+    }
+
+    /** Misses the exact overload and falls back to the name-only rule, building two keys */
+    @Benchmark
+    public Object configGetMockRuleByDescriptor() {
+        int i = next++ & (PROBES - 1);
+        return config.getMockRule(classNames[i], methodNames[i], descriptors[i]);
+    }
+
+    @Benchmark
+    public Object indexLookup() {
+        int i = next++ & (PROBES - 1);
+        return index.lookup(exactKeys[i], nameKeys[i]);
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.matcher.ElementMatchers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of the agent's type matching: how long the ignore and type checks that run
+ * for every class the JVM loads take for 20,000 loaded classes, with 10 to 10,000 mock
+ * rules. Compares the former chained {@code nameStartsWith(...).or(...)} ignore matcher
+ * and {@code named(...).or(...)} type matcher with the {@link NamePrefixMatcher} trie and
+ * the {@link RuleTypeMatcher} index lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TypeMatcherBenchmark {
+
+    private static final String[] FRAMEWORK_PREFIXES = {
+        "org.gradle.", "org.testng.", "com.beust.", "jdk.", "sun.", "javax.", "com.sun.",
+        "com.intellij.", "net.bytebuddy.", "com.google.gson.", "kotlinx.", "kotlin.", "java."
+    };
+    private static final int LOADED_CLASSES = 20_000;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int rules;
+
+    private List<TypeDescription> loaded;
+    private ElementMatcher<TypeDescription> chainedIgnore;
+    private ElementMatcher<TypeDescription> chainedType;
+    private ElementMatcher<TypeDescription> trieIgnore;
+    private ElementMatcher<TypeDescription> indexedType;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Roughly the 800 rules / 300 classes ratio seen in real projects
+        int classes = Math.max(1, rules * 3 / 8);
+        MockConfig config = new MockConfig();
+        List<String> mockedClasses = new ArrayList<>();
+        for (int i = 0; i < rules; i++) {
+            String className = "com.example.service.Service" + (i % classes);
+            if (i < classes) {
+                mockedClasses.add(className);
+            }
+            config.addMockRule(className, "method" + i, new MockConfig.MockRule("1", "int"));
+        }
+        loaded = loadedTypes(mockedClasses);
+
+        ElementMatcher.Junction<TypeDescription> ignore = ElementMatchers.none();
+        for (String prefix : FRAMEWORK_PREFIXES) {
+            ignore = ignore.or(ElementMatchers.nameStartsWith(prefix));
+        }
+        ElementMatcher.Junction<TypeDescription> type = ElementMatchers.none();
+        for (String className : mockedClasses) {
+            type = type.or(ElementMatchers.named(className));
+        }
+        chainedIgnore = ignore;
+        chainedType = type;
+        RuleIndex index = RuleIndex.build(config, 1);
+        trieIgnore = new NamePrefixMatcher(FRAMEWORK_PREFIXES);
+        indexedType = new RuleTypeMatcher(() -> index);
+    }
+
+    /**
+     * Simulates class loading: a mix of JDK/framework classes, unrelated application classes
+     * and the mocked classes.
+     */
+    private static List<TypeDescription> loadedTypes(List<String> mockedClasses) {
+        TypeDescription.Generic superClass = TypeDescription.Generic.OfNonGenericType.ForLoadedType.of(Object.class);
+        Random random = new Random(42);
+        List<TypeDescription> types = new ArrayList<>(LOADED_CLASSES);
+        for (int i = 0; i < LOADED_CLASSES; i++) {
+            String name;
+            int kind = random.nextInt(10);
+            if (kind < 5) {
+                name = FRAMEWORK_PREFIXES[random.nextInt(FRAMEWORK_PREFIXES.length)] + "internal.Type" + i;
+            } else if (kind < 9) {
+                name = "com.example.app.Component" + i;
+            } else {
+                name = mockedClasses.get(random.nextInt(mockedClasses.size()));
+            }
+            types.add(new TypeDescription.Latent(name, Visibility.PUBLIC.getMask(), superClass));
+        }
+        return types;
+    }
+
+    @Benchmark
+    public int chained() {
+        return matchAll(chainedIgnore, chainedType);
+    }
+
+    @Benchmark
+    public int indexed() {
+        return matchAll(trieIgnore, indexedType);
+    }
+
+    /** Checks every loaded type once and returns how many would be transformed. */
+    private int matchAll(ElementMatcher<TypeDescription> ignore, ElementMatcher<TypeDescription> type) {
+        int matched = 0;
+        for (TypeDescription description : loaded) {
+            if (!ignore.matches(description) && type.matches(description)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
@@ -2,6 +2,7 @@ package io.github.lancelothuxi.idea.plugin.mock.action;
 
 import io.github.lancelothuxi.idea.plugin.mock.service.MockConfigService;
 import io.github.lancelothuxi.idea.plugin.mock.ui.AddMockDialog;
+import io.github.lancelothuxi.idea.plugin.mock.util.MethodDescriptorUtil;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.CommonDataKeys;
@@ -45,6 +46,7 @@ public class AddMockAction extends AnAction {
         String className = containingClass.getQualifiedName();
         String methodName = method.getName();
         String signature = getMethodSignature(method);
+        String descriptor = MethodDescriptorUtil.getMethodDescriptor(method);
         PsiType returnType = method.getReturnType();
         
         // 检查是否是 void 方法
@@ -70,7 +72,7 @@ public class AddMockAction extends AnAction {
             
             // 添加到 Mock 配置
             MockConfigService service = project.getService(MockConfigService.class);
-            service.addMockMethod(className, methodName, signature, mockValue, returnTypeString, 
+            service.addMockMethod(className, methodName, signature, descriptor, mockValue, returnTypeString,
                                 throwException, exceptionType, exceptionMessage);
             
             Messages.showInfoMessage(
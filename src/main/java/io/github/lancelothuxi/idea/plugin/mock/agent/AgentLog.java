@@ -0,0 +1,76 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+
+/**
+ * Verbosity gate for agent logging, configured from the {@code log} and {@code sample}
+ * agent options.
+ *
+ * <ul>
+ *   <li>{@code quiet} - warnings and errors only</li>
+ *   <li>{@code info} (default) - startup, instrumentation and reload messages; nothing per call</li>
+ *   <li>{@code debug} - additionally traces intercepted calls, 1 in {@code sample} of them</li>
+ * </ul>
+ *
+ * Interceptors must guard every per-call message with {@link #traceInvocation()} so that
+ * below {@code debug} a mock hit or pass-through formats and allocates nothing.
+ */
+final class AgentLog {
+
+    static final int QUIET = 0;
+    static final int INFO = 1;
+    static final int DEBUG = 2;
+
+    // Written once in premain before any instrumented code runs
+    private static int level = INFO;
+    private static int sampleRate = 1;
+
+    private AgentLog() {
+    }
+
+    static void configure(AgentOptions options) {
+        String name = options.get("log", "info").toLowerCase(Locale.ROOT);
+        switch (name) {
+            case "quiet":
+                level = QUIET;
+                break;
+            case "debug":
+                level = DEBUG;
+                break;
+            default:
+                level = INFO;
+                break;
+        }
+        sampleRate = Math.max(1, options.getInt("sample", 1));
+        MockAgent.LOG.setLevel(level == QUIET ? Level.WARNING : Level.INFO);
+    }
+
+    static boolean isInfoEnabled() {
+        return level >= INFO;
+    }
+
+    static boolean isDebugEnabled() {
+        return level >= DEBUG;
+    }
+
+    /**
+     * Whether the current invocation should be traced. Always {@code false}, without
+     * touching any shared state, below {@code debug}.
+     */
+    static boolean traceInvocation() {
+        if (level < DEBUG) {
+            return false;
+        }
+        return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+    }
+
+    /**
+     * Short description of a value for trace messages; never calls {@code toString()}
+     * on the value itself, which may be a very large object graph.
+     */
+    static String describe(Object value) {
+        return value == null ? "null" : value.getClass().getName();
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Options passed to the agent through the {@code -javaagent} argument string.
+ *
+ * Format: {@code <configPath>[,key=value]*}, for example
+ * {@code /tmp/mock-runner/mock-config.json,log=debug,sample=100}. A plain config path,
+ * as written by older plugin versions, is still accepted.
+ */
+final class AgentOptions {
+
+    private final String configPath;
+    private final Map<String, String> options;
+
+    private AgentOptions(String configPath, Map<String, String> options) {
+        this.configPath = configPath;
+        this.options = options;
+    }
+
+    static AgentOptions parse(String agentArgs) {
+        if (agentArgs == null || agentArgs.trim().isEmpty()) {
+            return new AgentOptions(null, Collections.emptyMap());
+        }
+        String[] parts = agentArgs.split(",");
+        String configPath = null;
+        Map<String, String> options = new HashMap<>();
+        for (String part : parts) {
+            String token = part.trim();
+            if (token.isEmpty()) {
+                continue;
+            }
+            int eq = token.indexOf('=');
+            if (configPath == null && eq < 0) {
+                configPath = token;
+            } else if (eq > 0) {
+                options.put(token.substring(0, eq).trim(), token.substring(eq + 1).trim());
+            }
+        }
+        return new AgentOptions(configPath, Collections.unmodifiableMap(options));
+    }
+
+    String getConfigPath() {
+        return configPath;
+    }
+
+    String get(String key, String defaultValue) {
+        String value = options.get(key);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    int getInt(String key, int defaultValue) {
+        String value = options.get(key);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            MockAgent.LOG.warning("[MockAgent] Invalid value for agent option " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "configPath=" + configPath + ", options=" + options;
+    }
+}
@@ -0,0 +1,411 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.ArgumentCondition;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled form of an {@link ArgumentCondition}.
+ *
+ * Everything that only depends on the condition is done once, when the config version is
+ * compiled: the operator is resolved, expected values are parsed into the numeric forms
+ * they are compared with, regexes are compiled and property paths are split. Getters for
+ * path segments are resolved once per argument class through a {@link ClassValue}. A
+ * call therefore only reads the argument, follows the path with cached method handles and
+ * compares; it never reflects and never serializes the argument.
+ */
+abstract class ArgumentPredicate {
+
+    /** Never matches; used for conditions that could not be compiled. */
+    static final ArgumentPredicate NEVER = new ArgumentPredicate(-1, null) {
+        @Override
+        boolean test(Object[] args) {
+            return false;
+        }
+
+        @Override
+        boolean testValue(Object value) {
+            return false;
+        }
+    };
+
+    private final int index;
+    private final Path path;
+
+    private ArgumentPredicate(int index, Path path) {
+        this.index = index;
+        this.path = path;
+    }
+
+    boolean test(Object[] args) {
+        if (args == null || index >= args.length) {
+            return false;
+        }
+        Object value = args[index];
+        if (path != null) {
+            value = path.read(value);
+        }
+        return testValue(value);
+    }
+
+    abstract boolean testValue(Object value);
+
+    /**
+     * Compiles a condition, or returns {@link #NEVER} with a warning if it is invalid.
+     */
+    static ArgumentPredicate compile(ArgumentCondition condition, String ruleKey) {
+        try {
+            return compileOrThrow(condition);
+        } catch (RuntimeException e) {
+            MockAgent.LOG.warning("[MockAgent] Ignoring invalid argument condition on " + ruleKey + ": " + e.getMessage());
+            return NEVER;
+        }
+    }
+
+    private static ArgumentPredicate compileOrThrow(ArgumentCondition condition) {
+        int index = condition.getIndex();
+        if (index < 0) {
+            throw new IllegalArgumentException("negative argument index " + index);
+        }
+        Path path = Path.parse(condition.getPath());
+        String operator = condition.getOperator() == null ? "eq" : condition.getOperator().trim().toLowerCase(Locale.ROOT);
+        switch (operator) {
+            case "eq":
+            case "equals":
+                return new Equals(index, path, new Expected(condition.getValue()), false);
+            case "ne":
+            case "notequals":
+                return new Equals(index, path, new Expected(condition.getValue()), true);
+            case "gt":
+                return new Compare(index, path, new Expected(required(condition.getValue(), "value")), null, false, false);
+            case "gte":
+                return new Compare(index, path, new Expected(required(condition.getValue(), "value")), null, true, false);
+            case "lt":
+                return new Compare(index, path, null, new Expected(required(condition.getValue(), "value")), false, false);
+            case "lte":
+                return new Compare(index, path, null, new Expected(required(condition.getValue(), "value")), false, true);
+            case "between":
+                return new Compare(index, path,
+                    new Expected(required(condition.getMin(), "min")),
+                    new Expected(required(condition.getMax(), "max")), true, true);
+            case "regex":
+                return new Regex(index, path, Pattern.compile(required(condition.getValue(), "value")));
+            case "isnull":
+                return new IsNull(index, path, false);
+            case "notnull":
+                return new IsNull(index, path, true);
+            default:
+                throw new IllegalArgumentException("unknown operator " + condition.getOperator());
+        }
+    }
+
+    private static String required(String value, String name) {
+        if (value == null) {
+            throw new IllegalArgumentException("missing " + name);
+        }
+        return value;
+    }
+
+    /**
+     * An expected value in every form a comparison may need, parsed once.
+     */
+    private static final class Expected {
+        final String text;
+        final boolean isLong;
+        final long longValue;
+        final boolean isNumber;
+        final double doubleValue;
+
+        Expected(String text) {
+            this.text = text;
+            long l = 0;
+            boolean parsedLong = false;
+            double d = 0;
+            boolean parsedNumber = false;
+            if (text != null) {
+                try {
+                    l = Long.parseLong(text.trim());
+                    parsedLong = true;
+                } catch (NumberFormatException e) {
+                    // Not an integer
+                }
+                try {
+                    d = Double.parseDouble(text.trim());
+                    parsedNumber = true;
+                } catch (NumberFormatException e) {
+                    // Not a number
+                }
+            }
+            this.isLong = parsedLong;
+            this.longValue = l;
+            this.isNumber = parsedNumber;
+            this.doubleValue = d;
+        }
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * String form of a non-numeric argument. Strings, enums, booleans and characters have a
+     * cheap, stable form; other objects fall back to {@code toString()}.
+     */
+    private static String text(Object value) {
+        if (value instanceof CharSequence) {
+            return value.toString();
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        return String.valueOf(value);
+    }
+
+    private static final class Equals extends ArgumentPredicate {
+        private final Expected expected;
+        private final boolean negate;
+
+        Equals(int index, Path path, Expected expected, boolean negate) {
+            super(index, path);
+            this.expected = expected;
+            this.negate = negate;
+        }
+
+        @Override
+        boolean testValue(Object value) {
+            return matches(value) != negate;
+        }
+
+        private boolean matches(Object value) {
+            if (value == null || expected.text == null) {
+                return value == null && (expected.text == null || "null".equals(expected.text));
+            }
+            if (isIntegral(value)) {
+                long actual = ((Number) value).longValue();
+                return expected.isLong ? actual == expected.longValue
+                    : expected.isNumber && actual == expected.doubleValue;
+            }
+            if (value instanceof Number) {
+                return expected.isNumber && ((Number) value).doubleValue() == expected.doubleValue;
+            }
+            return expected.text.equals(text(value));
+        }
+    }
+
+    private static final class Compare extends ArgumentPredicate {
+        private final Expected lower;
+        private final Expected upper;
+        private final boolean lowerInclusive;
+        private final boolean upperInclusive;
+
+        Compare(int index, Path path, Expected lower, Expected upper, boolean lowerInclusive, boolean upperInclusive) {
+            super(index, path);
+            this.lower = lower;
+            this.upper = upper;
+            this.lowerInclusive = lowerInclusive;
+            this.upperInclusive = upperInclusive;
+        }
+
+        @Override
+        boolean testValue(Object value) {
+            if (value == null) {
+                return false;
+            }
+            if (value instanceof Number) {
+                return (lower == null || check(compare((Number) value, lower), lowerInclusive, true))
+                    && (upper == null || check(compare((Number) value, upper), upperInclusive, false));
+            }
+            // Non-numeric values compare by their string form, e.g. ISO dates or codes
+            String actual = text(value);
+            return (lower == null || check(actual.compareTo(lower.text), lowerInclusive, true))
+                && (upper == null || check(actual.compareTo(upper.text), upperInclusive, false));
+        }
+
+        private static int compare(Number actual, Expected expected) {
+            if (isIntegral(actual) && expected.isLong) {
+                return Long.compare(actual.longValue(), expected.longValue);
+            }
+            if (!expected.isNumber) {
+                // A number never falls in a range with non-numeric bounds
+                return Integer.MIN_VALUE;
+            }
+            return Double.compare(actual.doubleValue(), expected.doubleValue);
+        }
+
+        private static boolean check(int cmp, boolean inclusive, boolean isLower) {
+            if (cmp == Integer.MIN_VALUE) {
+                return false;
+            }
+            if (cmp == 0) {
+                return inclusive;
+            }
+            return isLower ? cmp > 0 : cmp < 0;
+        }
+    }
+
+    private static final class Regex extends ArgumentPredicate {
+        private final Pattern pattern;
+
+        Regex(int index, Path path, Pattern pattern) {
+            super(index, path);
+            this.pattern = pattern;
+        }
+
+        @Override
+        boolean testValue(Object value) {
+            return value != null && pattern.matcher(value instanceof CharSequence ? (CharSequence) value : text(value)).matches();
+        }
+    }
+
+    private static final class IsNull extends ArgumentPredicate {
+        private final boolean negate;
+
+        IsNull(int index, Path path, boolean negate) {
+            super(index, path);
+            this.negate = negate;
+        }
+
+        @Override
+        boolean testValue(Object value) {
+            return (value == null) != negate;
+        }
+    }
+
+    /**
+     * A property path into an argument, such as {@code $.address.city} or
+     * {@code items[0].sku}. Segments read map entries, list or array elements and fields.
+     * Also used by {@link ResponseTemplate} to read the arguments a response echoes.
+     */
+    static final class Path {
+        private final Segment[] segments;
+
+        private Path(Segment[] segments) {
+            this.segments = segments;
+        }
+
+        static Path parse(String path) {
+            if (path == null) {
+                return null;
+            }
+            String p = path.trim();
+            if (p.startsWith("$")) {
+                p = p.substring(1);
+            }
+            if (p.startsWith(".")) {
+                p = p.substring(1);
+            }
+            if (p.isEmpty()) {
+                return null;
+            }
+            List<Segment> segments = new ArrayList<>();
+            for (String part : p.split("\\.")) {
+                int bracket = part.indexOf('[');
+                String name = bracket < 0 ? part : part.substring(0, bracket);
+                if (!name.isEmpty()) {
+                    segments.add(new PropertySegment(name));
+                }
+                while (bracket >= 0) {
+                    int close = part.indexOf(']', bracket);
+                    if (close < 0) {
+                        throw new IllegalArgumentException("unclosed '[' in path " + path);
+                    }
+                    segments.add(new IndexSegment(Integer.parseInt(part.substring(bracket + 1, close).trim())));
+                    bracket = part.indexOf('[', close);
+                }
+            }
+            return new Path(segments.toArray(new Segment[0]));
+        }
+
+        Object read(Object value) {
+            for (Segment segment : segments) {
+                if (value == null) {
+                    return null;
+                }
+                value = segment.read(value);
+            }
+            return value;
+        }
+    }
+
+    private interface Segment {
+        Object read(Object value);
+    }
+
+    private static final class IndexSegment implements Segment {
+        private final int index;
+
+        IndexSegment(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Object read(Object value) {
+            if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                return index < list.size() ? list.get(index) : null;
+            }
+            if (value.getClass().isArray()) {
+                return index < Array.getLength(value) ? Array.get(value, index) : null;
+            }
+            return null;
+        }
+    }
+
+    private static final class PropertySegment implements Segment {
+        private final String name;
+        /** Getter for this property per argument class; absent if the class has no such field. */
+        private final ClassValue<MethodHandle> getters = new ClassValue<MethodHandle>() {
+            @Override
+            protected MethodHandle computeValue(Class<?> type) {
+                return findGetter(type);
+            }
+        };
+
+        PropertySegment(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Object read(Object value) {
+            if (value instanceof Map) {
+                return ((Map<?, ?>) value).get(name);
+            }
+            MethodHandle getter = getters.get(value.getClass());
+            if (getter == null) {
+                return null;
+            }
+            try {
+                return (Object) getter.invokeExact(value);
+            } catch (Throwable t) {
+                return null;
+            }
+        }
+
+        private MethodHandle findGetter(Class<?> type) {
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (field.getName().equals(name) && !Modifier.isStatic(field.getModifiers())) {
+                        try {
+                            field.setAccessible(true);
+                            return MethodHandles.lookup().unreflectGetter(field)
+                                .asType(java.lang.invoke.MethodType.methodType(Object.class, Object.class));
+                        } catch (RuntimeException | IllegalAccessException e) {
+                            // Inaccessible (e.g. a JDK class in a closed module): treat as absent
+                            return null;
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
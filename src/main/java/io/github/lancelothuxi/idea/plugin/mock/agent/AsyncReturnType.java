@@ -0,0 +1,220 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * An asynchronous return type: {@code CompletableFuture}, {@code CompletionStage} or
+ * {@code Future}, or Reactor's {@code Mono} and {@code Flux}.
+ *
+ * The mock value of such a method describes the element, so it is parsed as the type
+ * argument ({@code OrderDTO} for {@code CompletableFuture<OrderDTO>}, {@code List<OrderDTO>}
+ * for {@code Flux<OrderDTO>}) and wrapped per call. Latency and exceptions are delivered
+ * through the wrapper: the calling thread returns at once and the future or publisher
+ * completes later, from a shared timer, like a real asynchronous client.
+ *
+ * Reactor is not a dependency of the agent. Its factory methods are looked up by reflection
+ * on the intercepted method's own {@code Mono}/{@code Flux} class, once per method.
+ */
+final class AsyncReturnType {
+
+    private static final String MONO = "reactor.core.publisher.Mono";
+    private static final String FLUX = "reactor.core.publisher.Flux";
+
+    private enum Kind {
+        FUTURE, MONO, FLUX
+    }
+
+    private final Kind kind;
+    private final String rawName;
+    /** Type the mock value is parsed as, or {@code null} if the declaration does not say. */
+    private final Type valueType;
+    // Reactor factories, erased to Object parameters; null for futures
+    private final MethodHandle just;
+    private final MethodHandle error;
+    private final MethodHandle fromFuture;
+    private final MethodHandle flatMapIterable;
+
+    private AsyncReturnType(Kind kind, String rawName, Type valueType, MethodHandle just, MethodHandle error,
+                            MethodHandle fromFuture, MethodHandle flatMapIterable) {
+        this.kind = kind;
+        this.rawName = rawName;
+        this.valueType = valueType;
+        this.just = just;
+        this.error = error;
+        this.fromFuture = fromFuture;
+        this.flatMapIterable = flatMapIterable;
+    }
+
+    /** Whether instances of the named type are handled here; used when instrumenting. */
+    static boolean isAsync(String rawName) {
+        switch (rawName) {
+            case "java.util.concurrent.CompletableFuture":
+            case "java.util.concurrent.CompletionStage":
+            case "java.util.concurrent.Future":
+            case MONO:
+            case FLUX:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the async type for a method's declared return type, or {@code null} if it is
+     * synchronous or Reactor's factories cannot be found.
+     */
+    static AsyncReturnType of(Class<?> rawType, Type genericType) {
+        if (rawType == null || !isAsync(rawType.getName())) {
+            return null;
+        }
+        Type element = elementType(genericType);
+        String name = rawType.getName();
+        if (!name.startsWith("reactor.")) {
+            return new AsyncReturnType(Kind.FUTURE, name, element, null, null, null, null);
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            if (name.equals(MONO)) {
+                return new AsyncReturnType(Kind.MONO, name, element,
+                    erased(lookup.findStatic(rawType, "justOrEmpty", MethodType.methodType(rawType, Object.class))),
+                    erased(lookup.findStatic(rawType, "error", MethodType.methodType(rawType, Throwable.class))),
+                    erased(lookup.findStatic(rawType, "fromFuture", MethodType.methodType(rawType, CompletableFuture.class))),
+                    null);
+            }
+            Class<?> mono = Class.forName(MONO, false, rawType.getClassLoader());
+            return new AsyncReturnType(Kind.FLUX, name,
+                element == null ? List.class : TypeToken.getParameterized(List.class, element).getType(),
+                erased(lookup.findStatic(rawType, "fromIterable", MethodType.methodType(rawType, Iterable.class))),
+                erased(lookup.findStatic(rawType, "error", MethodType.methodType(rawType, Throwable.class))),
+                erased(lookup.findStatic(mono, "fromFuture", MethodType.methodType(mono, CompletableFuture.class))),
+                erased(lookup.findVirtual(mono, "flatMapIterable", MethodType.methodType(rawType, Function.class))));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            MockAgent.LOG.warning("[MockAgent] Reactor type " + name + " found but its factories are not usable, "
+                + "mocking it as a plain value: " + e);
+            return null;
+        }
+    }
+
+    private static Type elementType(Type genericType) {
+        if (!(genericType instanceof ParameterizedType)) {
+            return null;
+        }
+        Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+        if (argument instanceof WildcardType) {
+            argument = ((WildcardType) argument).getUpperBounds()[0];
+        }
+        return argument == Object.class ? null : argument;
+    }
+
+    private static MethodHandle erased(MethodHandle handle) {
+        return handle.asType(handle.type().generic());
+    }
+
+    Type getValueType() {
+        return valueType;
+    }
+
+    /**
+     * The element part of a configured type name, e.g. {@code test.OrderDTO} for
+     * {@code CompletableFuture<test.OrderDTO>}. Names that do not name this async type are
+     * returned unchanged, since they already describe the element.
+     */
+    String valueTypeName(String configured) {
+        if (configured == null) {
+            return null;
+        }
+        int open = configured.indexOf('<');
+        int close = configured.lastIndexOf('>');
+        if (open < 0 || close < open) {
+            return configured;
+        }
+        String raw = configured.substring(0, open).trim();
+        if (!raw.equals(rawName) && !raw.equals(rawName.substring(rawName.lastIndexOf('.') + 1))) {
+            return configured;
+        }
+        String element = configured.substring(open + 1, close).trim();
+        return kind == Kind.FLUX ? "java.util.List<" + element + ">" : element;
+    }
+
+    /**
+     * Wraps one call's outcome. {@code failure} takes precedence over {@code value}; with a
+     * positive {@code delayNanos} the result completes on the shared timer, and the delay
+     * actually taken is recorded in {@code recorder} if one is given.
+     */
+    Object wrap(Object value, Throwable failure, long delayNanos, LatencyHistogram recorder) {
+        try {
+            if (kind == Kind.FUTURE) {
+                return future(value, failure, delayNanos, recorder);
+            }
+            Object element = kind == Kind.FLUX && value == null ? Collections.emptyList() : value;
+            if (delayNanos <= 0) {
+                if (recorder != null) {
+                    recorder.record(0);
+                }
+                return failure != null ? (Object) error.invokeExact((Object) failure) : (Object) just.invokeExact(element);
+            }
+            Object mono = (Object) fromFuture.invokeExact((Object) future(element, failure, delayNanos, recorder));
+            if (kind == Kind.MONO) {
+                return mono;
+            }
+            Function<Object, Iterable<?>> identity = iterable -> (Iterable<?>) iterable;
+            return (Object) flatMapIterable.invokeExact(mono, (Object) identity);
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to create " + rawName + " mock response", t);
+        }
+    }
+
+    private static CompletableFuture<Object> future(Object value, Throwable failure, long delayNanos,
+                                                    LatencyHistogram recorder) {
+        if (delayNanos <= 0) {
+            if (recorder != null) {
+                recorder.record(0);
+            }
+            return failure != null ? CompletableFuture.failedFuture(failure) : CompletableFuture.completedFuture(value);
+        }
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        long start = System.nanoTime();
+        // The timer only hands off, so slow dependent stages never hold up other completions
+        Timer.INSTANCE.schedule(() -> ForkJoinPool.commonPool().execute(() -> {
+            if (recorder != null) {
+                recorder.record(System.nanoTime() - start);
+            }
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(value);
+            }
+        }), delayNanos, TimeUnit.NANOSECONDS);
+        return future;
+    }
+
+    /** Shared timer for delayed completions, started on the first delayed async mock. */
+    private static final class Timer {
+        static final ScheduledExecutorService INSTANCE = create();
+
+        private static ScheduledExecutorService create() {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "mock-agent-async-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.setRemoveOnCancelPolicy(true);
+            return timer;
+        }
+    }
+}
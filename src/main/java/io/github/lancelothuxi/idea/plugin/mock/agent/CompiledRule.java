@@ -0,0 +1,518 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.ArgumentCase;
+import io.github.lancelothuxi.idea.plugin.mock.mock.ArgumentCondition;
+import io.github.lancelothuxi.idea.plugin.mock.mock.Fault;
+import io.github.lancelothuxi.idea.plugin.mock.mock.FaultTable;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockResponse;
+import io.github.lancelothuxi.idea.plugin.mock.mock.Recording;
+import io.github.lancelothuxi.idea.plugin.mock.mock.ReplayConfig;
+import io.github.lancelothuxi.idea.plugin.mock.mock.ResponseSequence;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Agent-side, ready-to-serve form of a {@link MockConfig.MockRule}.
+ *
+ * A compiled rule is created once per loaded config version, and carried over to the next
+ * version if its {@link MockConfig.MockRule} did not change. The mock value is parsed
+ * on the first hit rather than at load time: parsing a POJO value needs its class, and
+ * loading application classes from premain would load them before the transformer is
+ * installed. The parsed {@link MockValue} is kept until the watcher reloads the config and
+ * a new {@link RuleIndex} replaces the one holding this rule; it shares immutable values
+ * and builds a new instance per call of anything a caller could modify.
+ *
+ * A value that echoes arguments is compiled into a {@link ResponseTemplate} instead. Each
+ * call then gets a copy of the response from {@link #render(Object[])} that holds the
+ * rendered value and parses it once, for that call only. A value kept in a fixture file
+ * is mapped and parsed by {@link FixtureLoader} on the first hit, like an inline value,
+ * except that every call shares a JSON fixture's object.
+ */
+public final class CompiledRule {
+
+    private static final ParsedValue[] NO_VALUES = new ParsedValue[0];
+
+    private final MockConfig.MockRule rule;
+    // Copied so a published rule cannot change even if its source object is modified
+    private final boolean enabled;
+    private final boolean throwException;
+    /** Record mode: the original method runs and its calls are written by {@link Recorder}. */
+    private final boolean record;
+    /** Argument cases in match order; empty if the rule answers every call the same way. */
+    private final Case[] cases;
+    /** Per-call responses, or {@code null} if every call gets this rule's own response. */
+    private final ResponseSequencer sequence;
+    /** Delay injected before answering; shared with the case and sequence responses. */
+    private final LatencyModel latency;
+    /** Probabilistic exceptions rolled per call; shared with the case responses. */
+    private final FaultInjector faults;
+    /** Recorded responses looked up by argument, or {@code null} if the rule does not replay. */
+    private final ReplayIndex replay;
+    private final ReplayIndex.Miss replayMiss;
+    /** Responses of recorded calls already hit, by their line in the recording. */
+    private final Map<Long, CompiledRule> replayed;
+    /** Counters of the configured rule, shared with its responses and kept across reloads. */
+    private final RuleMetrics metrics;
+    /** Compiled return value if it echoes arguments, else {@code null}. */
+    private final ResponseTemplate template;
+    /** Whether this rule or any of its case or sequence responses has a template. */
+    private final boolean templated;
+    /** Value rendered for one call by {@link #render(Object[])}, else {@code null}. */
+    private final String rendered;
+    /** Parsed values, one per return type served; copy-on-write, appended under this rule's lock. */
+    private volatile ParsedValue[] values = NO_VALUES;
+    private volatile ExceptionFactory exceptionFactory;
+
+    CompiledRule(MockConfig.MockRule rule) {
+        this(rule, null, null, null, new RuleMetrics(null), true);
+    }
+
+    /**
+     * Compiles a configured rule when {@code key} is set, or a case, sequence or fault
+     * response of a rule when it is not; responses inherit the given latency and faults.
+     * Both count their calls in {@code metrics}. {@code templates} is false for recorded
+     * responses, whose values are data.
+     */
+    private CompiledRule(MockConfig.MockRule rule, String key, LatencyModel inheritedLatency,
+                         FaultInjector inheritedFaults, RuleMetrics metrics, boolean templates) {
+        this.rule = rule;
+        this.enabled = rule.isEnabled();
+        this.throwException = rule.isThrowException();
+        this.record = key != null && rule.isRecord();
+        this.metrics = metrics;
+        this.latency = key == null ? inheritedLatency : LatencyModel.compile(rule.getLatency(), key);
+        this.faults = key == null ? inheritedFaults : compileFaults(rule, key, latency, metrics);
+        this.cases = key == null ? new Case[0] : compileCases(rule, key, latency, faults, metrics);
+        this.replay = key == null ? null : openReplay(rule.getReplay(), key);
+        this.replayMiss = replay == null ? null : ReplayIndex.miss(rule.getReplay().getMiss(), key);
+        this.replayed = replay == null ? null : new ConcurrentHashMap<>();
+        this.sequence = key == null ? null : compileSequence(rule, key, latency, metrics);
+        this.template = templates && !throwException && rule.getFixture() == null
+            ? ResponseTemplate.compile(rule.getReturnValue(), key != null ? key : "a response") : null;
+        this.templated = template != null || hasTemplate(cases) || sequence != null && sequence.hasTemplate();
+        this.rendered = null;
+    }
+
+    /** A response of {@code source} for one call, answering with {@code rendered}. */
+    private CompiledRule(CompiledRule source, String rendered) {
+        this.rule = source.rule;
+        this.enabled = source.enabled;
+        this.throwException = source.throwException;
+        this.record = source.record;
+        this.cases = source.cases;
+        this.sequence = source.sequence;
+        this.latency = source.latency;
+        this.faults = source.faults;
+        this.replay = source.replay;
+        this.replayMiss = source.replayMiss;
+        this.replayed = source.replayed;
+        this.metrics = source.metrics;
+        this.template = null;
+        this.templated = false;
+        this.rendered = rendered;
+    }
+
+    private static boolean hasTemplate(Case[] cases) {
+        for (Case c : cases) {
+            if (c.response.hasTemplate()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compiles every rule of the given config, keyed like {@link MockConfig#getAllRules()}.
+     * Rules of a {@link MockScope} ({@code scoped}) count their calls in metrics of their
+     * own, so a test's overrides do not show up as the config file rule's calls. A rule of
+     * {@code previous} is reused if its config is the same {@link MockConfig.MockRule}.
+     */
+    static Map<String, CompiledRule> compileAll(MockConfig config, boolean scoped, RuleIndex previous) {
+        if (config == null || config.getAllRules().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, CompiledRule> compiled = new HashMap<>(config.getAllRules().size() * 2);
+        for (Map.Entry<String, MockConfig.MockRule> entry : config.getAllRules().entrySet()) {
+            String key = entry.getKey();
+            CompiledRule reused = previous.get(key);
+            if (reused != null && reused.rule == entry.getValue()) {
+                compiled.put(key, reused);
+                continue;
+            }
+            RuleMetrics metrics = scoped ? new RuleMetrics(key) : RuleMetrics.forRule(key);
+            compiled.put(key, new CompiledRule(entry.getValue(), key, null, null, metrics, true));
+        }
+        return Collections.unmodifiableMap(compiled);
+    }
+
+    /**
+     * Each case answers with its own compiled rule, so values and exceptions are parsed and
+     * resolved lazily and cached exactly like the rule's own response.
+     */
+    private static Case[] compileCases(MockConfig.MockRule rule, String key, LatencyModel latency,
+                                       FaultInjector faults, RuleMetrics metrics) {
+        List<ArgumentCase> source = rule.getCases();
+        if (source == null || source.isEmpty()) {
+            return new Case[0];
+        }
+        List<Case> compiled = new ArrayList<>(source.size());
+        for (ArgumentCase argumentCase : source) {
+            if (argumentCase == null) {
+                continue;
+            }
+            List<ArgumentCondition> when = argumentCase.getWhen() == null
+                ? Collections.emptyList() : argumentCase.getWhen();
+            ArgumentPredicate[] predicates = new ArgumentPredicate[when.size()];
+            for (int i = 0; i < predicates.length; i++) {
+                predicates[i] = ArgumentPredicate.compile(when.get(i), key);
+            }
+            compiled.add(new Case(predicates, response(rule, latency, faults, metrics,
+                argumentCase.getReturnValue(),
+                argumentCase.isThrowException(),
+                argumentCase.getExceptionType(),
+                argumentCase.getExceptionMessage())));
+        }
+        return compiled.toArray(new Case[0]);
+    }
+
+    private static ResponseSequencer compileSequence(MockConfig.MockRule rule, String key, LatencyModel latency,
+                                                     RuleMetrics metrics) {
+        ResponseSequence source = rule.getSequence();
+        if (source == null || source.getResponses() == null) {
+            return null;
+        }
+        List<CompiledRule> responses = new ArrayList<>(source.getResponses().size());
+        for (MockResponse response : source.getResponses()) {
+            if (response != null) {
+                responses.add(response(rule, latency, null, metrics,
+                    response.getReturnValue(),
+                    response.isThrowException(),
+                    response.getExceptionType(),
+                    response.getExceptionMessage()));
+            }
+        }
+        if (responses.isEmpty()) {
+            return null;
+        }
+        return new ResponseSequencer(responses.toArray(new CompiledRule[0]),
+            ResponseSequencer.policy(source.getPolicy(), key), source.getSeed());
+    }
+
+    private static FaultInjector compileFaults(MockConfig.MockRule rule, String key, LatencyModel latency,
+                                               RuleMetrics metrics) {
+        FaultTable table = rule.getFaults();
+        if (table == null || table.getFaults() == null) {
+            return null;
+        }
+        List<Fault> faults = new ArrayList<>();
+        for (Fault fault : table.getFaults()) {
+            if (fault != null && fault.getPercent() > 0) {
+                faults.add(fault);
+            }
+        }
+        if (faults.isEmpty() && !table.isPassThrough()) {
+            return null;
+        }
+        CompiledRule[] outcomes = new CompiledRule[faults.size()];
+        double[] percents = new double[faults.size()];
+        for (int i = 0; i < outcomes.length; i++) {
+            Fault fault = faults.get(i);
+            outcomes[i] = response(rule, latency, null, metrics, null, true,
+                fault.getExceptionType(), fault.getExceptionMessage());
+            percents[i] = fault.getPercent();
+        }
+        return new FaultInjector(outcomes, percents, table.isPassThrough(), table.getSeed(), key);
+    }
+
+    private static ReplayIndex openReplay(ReplayConfig config, String key) {
+        if (config == null) {
+            return null;
+        }
+        try {
+            return ReplayIndex.open(Recorder.resolve(config.getFile()));
+        } catch (IOException | RuntimeException e) {
+            MockAgent.LOG.warning("[MockAgent] Cannot replay " + key + " from " + Recorder.resolve(config.getFile())
+                + ", answering with the rule itself: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * A case, sequence or fault response with the rule's return type and enabled state.
+     * Sequence and fault responses are final answers, so they get no faults of their own.
+     */
+    private static CompiledRule response(MockConfig.MockRule rule, LatencyModel latency, FaultInjector faults,
+                                         RuleMetrics metrics, String returnValue, boolean throwException,
+                                         String exceptionType, String exceptionMessage) {
+        MockConfig.MockRule response = new MockConfig.MockRule(
+            returnValue, rule.getReturnType(), throwException, exceptionType, exceptionMessage);
+        response.setEnabled(rule.isEnabled());
+        return new CompiledRule(response, null, latency, faults, metrics, true);
+    }
+
+    public boolean hasArgumentCases() {
+        return cases.length > 0;
+    }
+
+    /**
+     * Whether calls must pass their arguments to {@link #select(String, Object[], boolean)}
+     * and {@link #render(Object[])}.
+     */
+    public boolean needsArguments() {
+        return cases.length > 0 || replay != null || templated;
+    }
+
+    /** Whether this response's value echoes the call's arguments. */
+    boolean hasTemplate() {
+        return template != null;
+    }
+
+    /**
+     * Returns the response for a call of the overload {@code exactKey} with these arguments.
+     * A replaying rule answers with the recorded call if there is one, compiled on its first
+     * hit and reused after that; on a miss it passes the call through (returns {@code null},
+     * unless {@code canPassThrough} is false), fails it, or falls back to
+     * {@link #select(Object[])}, as its miss policy says.
+     */
+    public CompiledRule select(String exactKey, Object[] args, boolean canPassThrough) {
+        ReplayIndex r = replay;
+        if (r != null) {
+            String[] serialized = new String[args.length];
+            for (int i = 0; i < args.length; i++) {
+                serialized[i] = Recorder.serialize(args[i]);
+            }
+            CompiledRule recorded = r.lookup(exactKey, serialized, replayed, this::replayResponse);
+            if (recorded != null) {
+                return recorded;
+            }
+            metrics.missed();
+            if (replayMiss == ReplayIndex.Miss.PASSTHROUGH && canPassThrough) {
+                return null;
+            }
+            if (replayMiss == ReplayIndex.Miss.FAIL) {
+                return response(rule, latency, null, metrics, null, true, IllegalStateException.class.getName(),
+                    "No recorded call of " + exactKey + " with arguments " + Arrays.toString(serialized)
+                        + " in " + r.getRecording());
+            }
+        }
+        return select(args);
+    }
+
+    /** Compiles a recorded call into a response of this rule. */
+    private CompiledRule replayResponse(Recording recorded) {
+        MockConfig.MockRule response = new MockConfig.MockRule(recorded.getReturnValue(),
+            recorded.getReturnType(), recorded.isThrowException(),
+            recorded.getExceptionType(), recorded.getExceptionMessage());
+        response.setEnabled(enabled);
+        return new CompiledRule(response, null, latency, faults, metrics, false);
+    }
+
+    /**
+     * Returns the response for a call with these arguments: the first case whose conditions
+     * all hold, or this rule itself.
+     */
+    public CompiledRule select(Object[] args) {
+        for (Case c : cases) {
+            if (c.matches(args)) {
+                return c.response;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns the response for the next call, or {@code null} if the call should run the
+     * original method. Called once per served call, after {@link #select}.
+     *
+     * The rule's fault table is rolled first; a call that draws a fault gets its exception
+     * and does not advance the sequence. Otherwise the call passes through if the table says
+     * so, or gets the next element of the rule's sequence, or this rule itself.
+     */
+    public CompiledRule next() {
+        return next(true);
+    }
+
+    /**
+     * As {@link #next()}; callers without an original method to run pass {@code false} and
+     * get the mock response instead of passing through.
+     */
+    CompiledRule next(boolean canPassThrough) {
+        FaultInjector f = faults;
+        if (f != null) {
+            CompiledRule fault = f.roll();
+            if (fault != null) {
+                return fault;
+            }
+            if (canPassThrough && f.isPassThrough()) {
+                return null;
+            }
+        }
+        ResponseSequencer s = sequence;
+        return s == null ? this : s.next();
+    }
+
+    /**
+     * Returns the response to serve for a call with these arguments: this response, or a
+     * copy holding its template rendered for them. Called once per served call, after
+     * {@link #next()}.
+     */
+    public CompiledRule render(Object[] args) {
+        ResponseTemplate t = template;
+        return t == null ? this : new CompiledRule(this, t.render(args));
+    }
+
+    /**
+     * Waits out the rule's configured latency, if any. Called once per served call, before
+     * the response is returned or thrown.
+     */
+    public void injectLatency() {
+        LatencyModel l = latency;
+        if (l != null) {
+            l.apply();
+        }
+    }
+
+    /** The latency actually injected so far, or {@code null} if the rule has none. */
+    public LatencyHistogram getAppliedLatency() {
+        return latency == null ? null : latency.getApplied();
+    }
+
+    /** Configured and applied latency for the agent log, or {@code null} if the rule has none. */
+    String latencySummary() {
+        return latency == null ? null : latency.summary();
+    }
+
+    /** Invocation counters of the rule this response belongs to. */
+    RuleMetrics getMetrics() {
+        return metrics;
+    }
+
+    public MockConfig.MockRule getRule() {
+        return rule;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isThrowException() {
+        return throwException;
+    }
+
+    public boolean isRecord() {
+        return record;
+    }
+
+    /**
+     * Returns the mock value parsed by the rule's type name only, for callers that do not
+     * know the intercepted method.
+     */
+    public Object getValue() {
+        return getValue(null);
+    }
+
+    /**
+     * Returns the mock value for one call of a method with this return type, parsing it on
+     * first use. The value is parsed once per return type, so overloads with different
+     * return types that share a name-only rule each keep theirs. Fixtures can be large, so
+     * first hits wait for one parse rather than each doing it.
+     */
+    Object getValue(ReturnType returnType) {
+        for (ParsedValue p : values) {
+            if (p.returnType == returnType) {
+                return p.value.get();
+            }
+        }
+        return parse(returnType).get();
+    }
+
+    private synchronized MockValue parse(ReturnType returnType) {
+        ParsedValue[] current = values;
+        for (ParsedValue p : current) {
+            if (p.returnType == returnType) {
+                return p.value;
+            }
+        }
+        MockValue value = rule.getFixture() != null
+            ? FixtureLoader.load(rule.getFixture(), rule.getReturnType(), returnType)
+            : MockValue.parse(rendered != null ? rendered : rule.getReturnValue(), rule.getReturnType(), returnType);
+        ParsedValue[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = new ParsedValue(returnType, value);
+        values = next;
+        return value;
+    }
+
+    /**
+     * Returns the response for a method with an asynchronous return type: a new future or
+     * publisher that completes with the mock value, or fails with the rule's exception,
+     * after the rule's latency. Nothing here blocks or throws, so this is the whole response
+     * for such methods.
+     */
+    Object respondAsync(ReturnType returnType) {
+        Exception failure = throwException ? newException(returnType.getClassLoader()) : null;
+        Object value = failure == null ? getValue(returnType) : null;
+        LatencyModel l = latency;
+        return returnType.getAsync().wrap(value, failure,
+            l == null ? 0 : l.nextDelayNanos(), l == null ? null : l.getApplied());
+    }
+
+    /**
+     * Returns the exception to throw for an exception-mode rule, with the exception class
+     * loaded by the agent's class loader.
+     */
+    public Exception newException() {
+        return newException(null);
+    }
+
+    /**
+     * Returns the exception to throw for an exception-mode rule, with the exception class
+     * loaded by {@code loader}, the intercepted class's. The exception class and constructor
+     * are resolved on first use, for the same reason values are parsed lazily, and again
+     * only if a class from another loader hits the rule.
+     */
+    Exception newException(ClassLoader loader) {
+        ExceptionFactory factory = exceptionFactory;
+        if (factory == null || !factory.resolvedBy(loader)) {
+            factory = ExceptionFactory.resolve(rule.getExceptionType(), rule.getExceptionMessage(), loader);
+            exceptionFactory = factory;
+        }
+        return factory.newException();
+    }
+
+    private static final class ParsedValue {
+        final ReturnType returnType;
+        final MockValue value;
+
+        ParsedValue(ReturnType returnType, MockValue value) {
+            this.returnType = returnType;
+            this.value = value;
+        }
+    }
+
+    private static final class Case {
+        final ArgumentPredicate[] predicates;
+        final CompiledRule response;
+
+        Case(ArgumentPredicate[] predicates, CompiledRule response) {
+            this.predicates = predicates;
+            this.response = response;
+        }
+
+        boolean matches(Object[] args) {
+            for (ArgumentPredicate predicate : predicates) {
+                if (!predicate.test(args)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
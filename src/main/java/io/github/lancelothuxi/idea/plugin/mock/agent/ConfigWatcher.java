@@ -0,0 +1,265 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Watches the mock config file and hands its new content to a listener when it changes.
+ *
+ * Changes are picked up through a {@link WatchService} on the parent directory. Bursts of
+ * writes (the plugin saves the file from more than one place, editors write in several
+ * steps) are merged by waiting until no event for the config file arrived for
+ * {@code debounceMillis}, but at most {@link #MAX_DEBOUNCE_FACTOR} times as long. Events
+ * for other files are ignored: the default directory also holds the recording, replay
+ * indexes and the shared config file, which are written continuously. The file is then
+ * read once and only reported if its SHA-256 differs from the last content seen, so a
+ * touch or a duplicate save does not trigger a reparse.
+ *
+ * The file's timestamp and size are also checked every {@code pollMillis}, whatever
+ * events arrive, as a fallback for file systems without native change notification; if
+ * no {@code WatchService} is available at all, polling is the only mechanism.
+ */
+public final class ConfigWatcher {
+
+    /** Longest debounce, in multiples of {@code debounceMillis}, when the file keeps changing. */
+    static final int MAX_DEBOUNCE_FACTOR = 10;
+
+    public interface Listener {
+        void onChange(byte[] content);
+    }
+
+    private final Path file;
+    private final long debounceMillis;
+    private final long pollMillis;
+    private final Listener listener;
+    private volatile Thread thread;
+
+    // Only accessed from the watcher thread after start()
+    private byte[] lastHash;
+    private long lastModified;
+    private long lastSize;
+
+    public ConfigWatcher(Path file, long debounceMillis, long pollMillis, Listener listener) {
+        this.file = file.toAbsolutePath();
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.pollMillis = Math.max(100, pollMillis);
+        this.listener = listener;
+    }
+
+    static byte[] read(Path file) throws IOException {
+        return Files.readAllBytes(file);
+    }
+
+    /**
+     * Starts the daemon watcher thread. {@code loadedContent} is the content the agent has
+     * already applied, or {@code null} if the initial load failed.
+     */
+    public void start(byte[] loadedContent) {
+        lastHash = loadedContent == null ? null : hash(loadedContent);
+        lastModified = file.toFile().lastModified();
+        lastSize = file.toFile().length();
+
+        Thread watcher = new Thread(this::run);
+        watcher.setDaemon(true);
+        watcher.setName("mock-config-watcher");
+        thread = watcher;
+        watcher.start();
+    }
+
+    /** Stops the watcher thread; the agent's watcher runs until the JVM exits. */
+    public void stop() {
+        Thread watcher = thread;
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+    }
+
+    private void run() {
+        WatchService watchService = register();
+        try {
+            if (watchService == null) {
+                MockAgent.LOG.info("[MockAgent] Config watcher started, polling every " + pollMillis + "ms");
+                pollLoop();
+            } else {
+                MockAgent.LOG.info("[MockAgent] Config watcher started (file events, debounce "
+                    + debounceMillis + "ms, fallback poll every " + pollMillis + "ms)");
+                watchLoop(watchService);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException ignored) {
+                    // Nothing left to release
+                }
+            }
+        }
+    }
+
+    private WatchService register() {
+        Path dir = file.getParent();
+        if (dir == null) {
+            return null;
+        }
+        WatchService watchService = null;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            dir.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+            return watchService;
+        } catch (IOException | UnsupportedOperationException e) {
+            MockAgent.LOG.warning("[MockAgent] File change notification unavailable for " + dir
+                + ", falling back to polling: " + e.getMessage());
+            if (watchService != null) {
+                try {
+                    watchService.close();
+                } catch (IOException ignored) {
+                    // Nothing left to release
+                }
+            }
+            return null;
+        }
+    }
+
+    private void watchLoop(WatchService watchService) throws InterruptedException {
+        long pollNanos = TimeUnit.MILLISECONDS.toNanos(pollMillis);
+        long nextPoll = System.nanoTime() + pollNanos;
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.poll(Math.max(0, nextPoll - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ClosedWatchServiceException e) {
+                pollLoop();
+                return;
+            }
+            if (key != null) {
+                boolean relevant = drain(key);
+                boolean watchable = key.reset();
+                if (relevant && watchable) {
+                    watchable = debounce(watchService);
+                }
+                if (relevant) {
+                    checkForChange();
+                    nextPoll = System.nanoTime() + pollNanos;
+                }
+                if (!watchable) {
+                    MockAgent.LOG.warning("[MockAgent] Config directory is no longer watchable, falling back to polling");
+                    pollLoop();
+                    return;
+                }
+            }
+            if (System.nanoTime() - nextPoll >= 0) {
+                // Checked on a deadline, so events for other files cannot hold the fallback off
+                if (statChanged()) {
+                    checkForChange();
+                }
+                nextPoll = System.nanoTime() + pollNanos;
+            }
+        }
+    }
+
+    /**
+     * Consumes events until the config file had none for {@code debounceMillis}, or
+     * {@link #MAX_DEBOUNCE_FACTOR} times that has passed. Returns {@code false} if the
+     * directory can no longer be watched.
+     */
+    private boolean debounce(WatchService watchService) throws InterruptedException {
+        long debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        long deadline = System.nanoTime() + debounceNanos * MAX_DEBOUNCE_FACTOR;
+        long quietUntil = System.nanoTime() + debounceNanos;
+        while (true) {
+            long wait = Math.min(quietUntil, deadline) - System.nanoTime();
+            if (wait <= 0) {
+                return true;
+            }
+            WatchKey next = watchService.poll(wait, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return true;
+            }
+            boolean relevant = drain(next);
+            if (!next.reset()) {
+                return false;
+            }
+            if (relevant) {
+                quietUntil = System.nanoTime() + debounceNanos;
+            }
+        }
+    }
+
+    private boolean drain(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                relevant = true;
+            } else if (file.getFileName().equals(event.context())) {
+                relevant = true;
+            }
+        }
+        return relevant;
+    }
+
+    private void pollLoop() throws InterruptedException {
+        while (true) {
+            Thread.sleep(pollMillis);
+            if (statChanged()) {
+                checkForChange();
+            }
+        }
+    }
+
+    private boolean statChanged() {
+        long modified = file.toFile().lastModified();
+        long size = file.toFile().length();
+        return modified != lastModified || size != lastSize;
+    }
+
+    private void checkForChange() {
+        lastModified = file.toFile().lastModified();
+        lastSize = file.toFile().length();
+        byte[] content;
+        try {
+            content = read(file);
+        } catch (IOException e) {
+            // Deleted or being replaced; the next event or poll will retry
+            MockAgent.LOG.warning("[MockAgent] Could not read config file: " + e.getMessage());
+            return;
+        }
+        byte[] contentHash = hash(content);
+        if (lastHash != null && Arrays.equals(lastHash, contentHash)) {
+            if (AgentLog.isDebugEnabled()) {
+                MockAgent.LOG.info("[MockAgent] Config file touched but content unchanged, skipping reload");
+            }
+            return;
+        }
+        lastHash = contentHash;
+        try {
+            listener.onChange(content);
+        } catch (RuntimeException e) {
+            MockAgent.LOG.log(Level.WARNING, "[MockAgent] Error reloading config file", e);
+        }
+    }
+
+    private static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.RuleControlClient;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.logging.Level;
+
+/**
+ * Accepts rule changes on a Unix domain socket, so the IDE or test code can change rules
+ * of a running application without writing the config file and waiting for the watcher.
+ *
+ * Each request is one line of JSON with a list of deltas, see {@link RuleControlClient}.
+ * The deltas are applied to a copy of the current config, which is then published like a
+ * reload, with one volatile write; the reply is the new config version, sent once every
+ * later call sees it. Changing a rule's value or mode takes effect without touching
+ * bytecode, while adding, removing, enabling or disabling one retransforms its class as a
+ * reload would. Changes last until the config file or shared config is reloaded.
+ *
+ * The socket is only reachable from the local machine and is made accessible to its owner
+ * only, where the file system allows. Option: {@code control=<socket path>} (off if absent).
+ */
+final class ControlEndpoint {
+
+    private static final Gson GSON = new Gson();
+
+    private final Path path;
+    private final ServerSocketChannel server;
+
+    private ControlEndpoint(Path path, ServerSocketChannel server) {
+        this.path = path;
+        this.server = server;
+    }
+
+    static void start(AgentOptions options) {
+        String socket = options.get("control", null);
+        if (socket == null) {
+            return;
+        }
+        Path path = Paths.get(socket).toAbsolutePath();
+        ServerSocketChannel server;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            // Left behind by an application that did not exit cleanly
+            Files.deleteIfExists(path);
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(path));
+        } catch (IOException | RuntimeException e) {
+            MockAgent.LOG.warning("[MockAgent] Cannot listen for rule changes on " + path + ": " + e.getMessage());
+            return;
+        }
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (IOException | UnsupportedOperationException e) {
+            // Windows: the socket keeps the directory's access rules
+        }
+        ControlEndpoint endpoint = new ControlEndpoint(path, server);
+        Thread thread = new Thread(endpoint::accept, "mock-agent-control");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(endpoint::close, "mock-agent-control-close"));
+        MockAgent.LOG.info("[MockAgent] Listening for rule changes on " + path);
+    }
+
+    private void accept() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                Thread connection = new Thread(() -> serve(channel), "mock-agent-control-connection");
+                connection.setDaemon(true);
+                connection.start();
+            } catch (IOException e) {
+                if (server.isOpen()) {
+                    MockAgent.LOG.warning("[MockAgent] Stopped accepting rule changes: " + e.getMessage());
+                }
+                return;
+            }
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        try (BufferedReader in = new BufferedReader(
+                 new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(
+                 new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                out.write(GSON.toJson(handle(line)));
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            MockAgent.LOG.fine("[MockAgent] Control connection closed: " + e.getMessage());
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Already closed by the streams
+            }
+        }
+    }
+
+    private static RuleControlClient.Response handle(String line) {
+        RuleControlClient.Response response = new RuleControlClient.Response();
+        try {
+            RuleControlClient.Request request = GSON.fromJson(line, RuleControlClient.Request.class);
+            if (request == null || request.deltas == null) {
+                throw new IllegalArgumentException("Request has no deltas");
+            }
+            response.version = MockAgent.applyDeltas(request.deltas);
+        } catch (JsonParseException | IllegalArgumentException e) {
+            response.error = e.getMessage();
+        } catch (RuntimeException e) {
+            MockAgent.LOG.log(Level.WARNING, "[MockAgent] Failed to apply rule changes", e);
+            response.error = e.toString();
+        }
+        return response;
+    }
+
+    private void close() {
+        try {
+            server.close();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Exiting anyway
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.InvocationStats;
+import io.github.lancelothuxi.idea.plugin.mock.mock.InvocationStatsCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams the rules' {@link RuleMetrics} to the IDE over a Unix domain socket, so the Mock
+ * Runner tool window can show live call counts and latency.
+ *
+ * Calls are not sent one by one: they are already counted per rule, so a daemon thread
+ * wakes up every interval and sends the cumulative counters of the rules that changed
+ * since the previous batch, in one binary frame (see {@link InvocationStatsCodec}). The
+ * cost on the call path is nil, and the traffic depends on the number of active rules,
+ * not on the call rate. When the IDE is not listening the thread retries once a second;
+ * a final batch is sent at shutdown so short runs end with exact totals.
+ *
+ * Options: {@code events=<socket path>} (set by the plugin; off if absent) and
+ * {@code eventInterval=<millis>} (default 100).
+ */
+final class EventStream {
+
+    private static final long RECONNECT_MILLIS = 1000;
+    private static final long FLUSH_AT_EXIT_MILLIS = 500;
+
+    private final String socket;
+    private final long intervalMillis;
+    private final long pid = ProcessHandle.current().pid();
+    /** Counter total last sent per rule; guarded by this, like the connection. */
+    private final Map<RuleMetrics, Long> sent = new IdentityHashMap<>();
+    private SocketChannel channel;
+    private OutputStream out;
+    private InvocationStatsCodec.Writer writer;
+    private long nextConnect;
+    private boolean warned;
+
+    private EventStream(String socket, long intervalMillis) {
+        this.socket = socket;
+        this.intervalMillis = intervalMillis;
+    }
+
+    static void start(AgentOptions options) {
+        String socket = options.get("events", null);
+        if (socket == null) {
+            return;
+        }
+        EventStream stream = new EventStream(socket, Math.max(10, options.getInt("eventInterval", 100)));
+        Thread thread = new Thread(stream::run, "mock-agent-events");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(stream::flushAtExit, "mock-agent-events-flush"));
+    }
+
+    /**
+     * Sends the last batch, giving up after a short wait: a stalled IDE must not keep the
+     * application from exiting, and daemon threads do not.
+     */
+    private void flushAtExit() {
+        Thread last = new Thread(this::publish, "mock-agent-events-last");
+        last.setDaemon(true);
+        last.start();
+        try {
+            last.join(FLUSH_AT_EXIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                Thread.sleep(intervalMillis);
+                publish();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void publish() {
+        if (channel == null && !connect()) {
+            return;
+        }
+        List<InvocationStats> changed = changedRules();
+        if (changed.isEmpty()) {
+            return;
+        }
+        try {
+            writer.write(out, new InvocationStatsCodec.Batch(pid, System.currentTimeMillis(), changed));
+            out.flush();
+        } catch (IOException e) {
+            // The IDE closed the tool window or restarted; reconnect and resend everything
+            MockAgent.LOG.info("[MockAgent] Event stream to " + socket + " closed: " + e.getMessage());
+            disconnect();
+        }
+    }
+
+    private boolean connect() {
+        long now = System.currentTimeMillis();
+        if (now < nextConnect) {
+            return false;
+        }
+        try {
+            SocketChannel opened = SocketChannel.open(StandardProtocolFamily.UNIX);
+            try {
+                opened.connect(UnixDomainSocketAddress.of(Paths.get(socket)));
+            } catch (IOException e) {
+                opened.close();
+                throw e;
+            }
+            channel = opened;
+            out = new BufferedOutputStream(Channels.newOutputStream(opened), 8192);
+            writer = new InvocationStatsCodec.Writer();
+            sent.clear();
+            warned = false;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            nextConnect = now + RECONNECT_MILLIS;
+            if (!warned) {
+                warned = true;
+                MockAgent.LOG.info("[MockAgent] Event stream not connected to " + socket + ", retrying: " + e);
+            }
+            return false;
+        }
+    }
+
+    private void disconnect() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Already broken
+        }
+        channel = null;
+        out = null;
+        writer = null;
+        nextConnect = System.currentTimeMillis() + RECONNECT_MILLIS;
+    }
+
+    private List<InvocationStats> changedRules() {
+        RuleIndex index = MockAgent.ruleIndex;
+        List<InvocationStats> changed = new ArrayList<>();
+        for (RuleMetrics metrics : RuleMetrics.all()) {
+            long hits = metrics.getHits();
+            long misses = metrics.getMisses();
+            long passThroughs = metrics.getPassThroughs();
+            long exceptions = metrics.getExceptions();
+            LatencyHistogram real = metrics.getPassThroughLatency();
+            CompiledRule rule = index.get(metrics.getRuleKey());
+            LatencyHistogram injected = rule == null ? null : rule.getAppliedLatency();
+            // Histograms are recorded just after the counters, so their counts are part of
+            // the fingerprint; a call counted in one batch gets its latency into the next
+            long total = hits + misses + passThroughs + exceptions + real.getCount()
+                + (injected == null ? 0 : injected.getCount());
+            Long previous = sent.put(metrics, total);
+            if (previous != null && previous == total) {
+                continue;
+            }
+            InvocationStats stats = new InvocationStats(metrics.getRuleKey(), hits, misses, passThroughs, exceptions);
+            stats.setPassThroughP50Nanos(real.getPercentileNanos(0.5));
+            stats.setPassThroughP99Nanos(real.getPercentileNanos(0.99));
+            if (injected != null) {
+                stats.setInjectedP50Nanos(injected.getPercentileNanos(0.5));
+                stats.setInjectedP99Nanos(injected.getPercentileNanos(0.99));
+            }
+            changed.add(stats);
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+
+/**
+ * Creates the exception an exception-mode rule throws.
+ *
+ * The exception class and its constructor are resolved once per compiled rule into a
+ * {@link MethodHandle} with the message already bound, so a throw no longer costs a
+ * {@code Class.forName} and a reflective constructor call. Constructors are tried in the
+ * order {@code (String)}, {@code (String, Throwable)} and {@code ()}; if the class cannot
+ * be loaded, is not an {@link Exception} or has none of them, a {@link RuntimeException}
+ * with the message is thrown instead.
+ *
+ * The exception class is loaded through the class loader of the intercepted class, so
+ * application exception types resolve in containers where the agent's loader cannot see
+ * them.
+ *
+ * With the {@code stackless=true} agent option every throw still gets its own instance,
+ * but without a stack trace. If the class declares a
+ * {@code (String, Throwable, boolean, boolean)} constructor it is called with a
+ * non-writable stack trace, which skips {@code fillInStackTrace()} altogether; other
+ * classes are built as usual and their stack trace is cleared.
+ */
+final class ExceptionFactory {
+
+    private static final MethodType FACTORY_TYPE = MethodType.methodType(Exception.class);
+    private static final StackTraceElement[] NO_STACK_TRACE = new StackTraceElement[0];
+
+    // Written once in premain before any instrumented code runs
+    private static boolean stackless;
+
+    private final MethodHandle constructor;
+    private final boolean clearStackTrace;
+    private final ClassLoader loader;
+
+    private ExceptionFactory(MethodHandle constructor, boolean clearStackTrace, ClassLoader loader) {
+        this.constructor = constructor;
+        this.clearStackTrace = clearStackTrace;
+        this.loader = loader;
+    }
+
+    static void configure(AgentOptions options) {
+        stackless = Boolean.parseBoolean(options.get("stackless", "false"));
+    }
+
+    /**
+     * Resolves the exception type through {@code loader}, the intercepted class's loader
+     * ({@code null} for the agent's).
+     */
+    static ExceptionFactory resolve(String exceptionType, String message, ClassLoader loader) {
+        Class<?> exceptionClass = findClass(exceptionType, loader);
+        if (stackless && exceptionClass != null) {
+            MethodHandle constructor = bind(findStacklessConstructor(exceptionClass, message));
+            if (constructor != null) {
+                return new ExceptionFactory(constructor, false, loader);
+            }
+        }
+        MethodHandle constructor = exceptionClass == null ? null : bind(findConstructor(exceptionClass, message));
+        if (constructor == null) {
+            MockAgent.LOG.warning("[MockAgent] Failed to create exception: " + exceptionType + ", using RuntimeException");
+            constructor = bind(findConstructor(RuntimeException.class, message));
+        }
+        return new ExceptionFactory(constructor, stackless, loader);
+    }
+
+    /** Whether this factory was resolved through {@code loader}. */
+    boolean resolvedBy(ClassLoader loader) {
+        return this.loader == loader;
+    }
+
+    Exception newException() {
+        Exception exception = invoke(constructor);
+        if (clearStackTrace) {
+            exception.setStackTrace(NO_STACK_TRACE);
+        }
+        return exception;
+    }
+
+    private static Class<?> findClass(String exceptionType, ClassLoader loader) {
+        if (exceptionType == null || exceptionType.isEmpty()) {
+            return null;
+        }
+        try {
+            Class<?> exceptionClass = loader == null
+                ? Class.forName(exceptionType) : Class.forName(exceptionType, false, loader);
+            return Exception.class.isAssignableFrom(exceptionClass) ? exceptionClass : null;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns a handle of the class's own {@code (String, Throwable, boolean, boolean)}
+     * constructor with a non-writable stack trace bound, or {@code null} if it has none or
+     * it cannot be made accessible. It is usually protected, as in {@link Throwable}.
+     */
+    private static MethodHandle findStacklessConstructor(Class<?> exceptionClass, String message) {
+        try {
+            Constructor<?> constructor = exceptionClass.getDeclaredConstructor(
+                String.class, Throwable.class, boolean.class, boolean.class);
+            constructor.setAccessible(true);
+            return MethodHandles.insertArguments(MethodHandles.lookup().unreflectConstructor(constructor),
+                0, message, null, true, false);
+        } catch (NoSuchMethodException | IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns a handle of the first public constructor found, with its arguments bound.
+     */
+    private static MethodHandle findConstructor(Class<?> exceptionClass, String message) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        try {
+            return MethodHandles.insertArguments(
+                lookup.findConstructor(exceptionClass, MethodType.methodType(void.class, String.class)),
+                0, message);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            // Try the next constructor
+        }
+        try {
+            return MethodHandles.insertArguments(
+                lookup.findConstructor(exceptionClass, MethodType.methodType(void.class, String.class, Throwable.class)),
+                0, message, null);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            // Try the next constructor
+        }
+        try {
+            return lookup.findConstructor(exceptionClass, MethodType.methodType(void.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle bind(MethodHandle constructor) {
+        return constructor == null ? null : constructor.asType(FACTORY_TYPE);
+    }
+
+    private static Exception invoke(MethodHandle constructor) {
+        try {
+            return (Exception) constructor.invokeExact();
+        } catch (RuntimeException e) {
+            // The constructor itself failed; surface that rather than hiding it
+            return e;
+        } catch (Throwable t) {
+            return new RuntimeException("Failed to create mocked exception", t);
+        }
+    }
+}
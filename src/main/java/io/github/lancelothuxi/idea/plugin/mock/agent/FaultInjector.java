@@ -0,0 +1,84 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.FaultTable;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compiled form of a {@link FaultTable}: decides per call whether it fails, and with which
+ * exception.
+ *
+ * The decision is one uniform draw compared against cumulative thresholds computed at
+ * compile time. Draws come from {@link ThreadLocalRandom}, or, when the table has a seed,
+ * from a {@link SplittableRandom} per thread split off a seeded root. Either way no state is
+ * shared between threads on the call path, so concurrent callers never contend.
+ */
+final class FaultInjector {
+
+    private final CompiledRule[] outcomes;
+    /** Upper bound of each outcome's share of [0, 1), ascending. */
+    private final double[] thresholds;
+    private final boolean passThrough;
+    private final ThreadLocal<SplittableRandom> seeded;
+
+    FaultInjector(CompiledRule[] outcomes, double[] percents, boolean passThrough, Long seed, String ruleKey) {
+        this.outcomes = outcomes;
+        this.passThrough = passThrough;
+        this.thresholds = thresholds(percents, ruleKey);
+        if (seed == null) {
+            this.seeded = null;
+        } else {
+            // Only a thread's first call touches the root, to split off its own generator
+            SplittableRandom root = new SplittableRandom(seed);
+            this.seeded = ThreadLocal.withInitial(() -> {
+                synchronized (root) {
+                    return root.split();
+                }
+            });
+        }
+    }
+
+    /**
+     * Percentages adding up to more than 100 are scaled down to fill the whole range, so
+     * every call fails and the relative weights are kept.
+     */
+    private static double[] thresholds(double[] percents, String ruleKey) {
+        double total = 0;
+        for (double percent : percents) {
+            total += percent;
+        }
+        double scale = 0.01;
+        if (total > 100) {
+            MockAgent.LOG.warning("[MockAgent] Fault percentages on " + ruleKey + " add up to " + total
+                + ", scaling them to 100");
+            scale = 1 / total;
+        }
+        double[] thresholds = new double[percents.length];
+        double cumulative = 0;
+        for (int i = 0; i < percents.length; i++) {
+            cumulative += percents[i] * scale;
+            thresholds[i] = cumulative;
+        }
+        return thresholds;
+    }
+
+    /** Returns the fault response for this call, or {@code null} if the call does not fail. */
+    CompiledRule roll() {
+        if (outcomes.length == 0) {
+            return null;
+        }
+        double draw = seeded == null ? ThreadLocalRandom.current().nextDouble() : seeded.get().nextDouble();
+        for (int i = 0; i < thresholds.length; i++) {
+            if (draw < thresholds[i]) {
+                return outcomes[i];
+            }
+        }
+        return null;
+    }
+
+    /** Whether calls that do not fail run the original method instead of the mock. */
+    boolean isPassThrough() {
+        return passThrough;
+    }
+}
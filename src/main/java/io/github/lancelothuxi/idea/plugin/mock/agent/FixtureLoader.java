@@ -0,0 +1,120 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.Fixture;
+import com.google.gson.Gson;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+
+/**
+ * Loads the value of a rule whose return value lives in a {@link Fixture} file.
+ *
+ * The config only names the file, so loading and reloading the config stays cheap however
+ * large the fixture is. The file is mapped and parsed when the rule is first hit; the
+ * {@link CompiledRule} then keeps the {@link MockValue} like any other. JSON is
+ * deserialized straight from the mapping into the target type, without a copy of the text
+ * or a Gson tree on the heap, and the one instance is {@link MockValue#shared shared} by
+ * every call: copying a report of tens of MB per call would cost more than the call
+ * under test. Other values are read as text and converted as an inline value would be.
+ * The mapping is dropped once the value is parsed.
+ */
+final class FixtureLoader {
+
+    private static final int MARK_LIMIT = 64;
+    private static final Gson GSON = new Gson();
+
+    /** Directory relative fixture paths are resolved against: the config file's. */
+    private static volatile Path baseDir;
+
+    private FixtureLoader() {
+    }
+
+    /** Reads the config location; must run before the first rule is hit. */
+    static void configure(AgentOptions options) {
+        if (options.getConfigPath() != null) {
+            baseDir = Paths.get(options.getConfigPath()).toAbsolutePath().getParent();
+        }
+    }
+
+    static Path resolve(String file) {
+        Path path = Paths.get(file.trim());
+        Path base = baseDir;
+        return path.isAbsolute() || base == null ? path : base.resolve(path);
+    }
+
+    /**
+     * Parses the fixture as the value of a rule with the given type name, for a method
+     * returning {@code returnType} ({@code null} if unknown). Answers {@code null}, with an
+     * error logged, if the file cannot be read or parsed.
+     */
+    static MockValue load(Fixture fixture, String type, ReturnType returnType) {
+        if (fixture.getFile() == null || fixture.getFile().trim().isEmpty()) {
+            MockAgent.LOG.warning("[MockAgent] Fixture without a file, returning null");
+            return MockValue.NULL;
+        }
+        Path path = resolve(fixture.getFile());
+        String typeName = returnType == null ? type : returnType.valueTypeName(type);
+        Type valueType = returnType == null ? null : returnType.getValueType();
+        ClassLoader loader = returnType == null ? null : returnType.getClassLoader();
+        long start = System.nanoTime();
+        try {
+            MappedFile mapped = MappedFile.readOnly(path);
+            MockValue value;
+            try (Reader reader = new BufferedReader(
+                    new InputStreamReader(mapped.newInputStream(), StandardCharsets.UTF_8))) {
+                int first = firstSignificant(reader);
+                Type target = first == '{' || first == '['
+                    ? MockAgent.Interceptor.jsonTargetType(typeName, valueType, first == '[', loader) : null;
+                if (target != null) {
+                    value = MockValue.shared(GSON.fromJson(reader, target));
+                } else {
+                    if (mapped.size() > Integer.MAX_VALUE - 8) {
+                        throw new IOException("too large for a " + typeName + " value: " + mapped.size() + " bytes");
+                    }
+                    String text = new String(mapped.get(0, (int) mapped.size()), StandardCharsets.UTF_8);
+                    value = MockValue.of(MockAgent.Interceptor.parseMockValue(
+                        scalarText(text, typeName, valueType), typeName, valueType, loader));
+                }
+            }
+            MockAgent.LOG.info("[MockAgent] Loaded fixture " + path + " (" + mapped.size() / 1024 + " KB) in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return value;
+        } catch (IOException | RuntimeException e) {
+            MockAgent.LOG.log(Level.SEVERE, "[MockAgent] Cannot load fixture " + path + ", returning null", e);
+            return MockValue.NULL;
+        }
+    }
+
+    /**
+     * Returns the first character that is not whitespace or a byte order mark, leaving the
+     * reader positioned on it, or -1 at the end of the file.
+     */
+    private static int firstSignificant(Reader reader) throws IOException {
+        while (true) {
+            reader.mark(MARK_LIMIT);
+            int c = reader.read();
+            if (c < 0) {
+                return c;
+            }
+            if (c != '\uFEFF' && !Character.isWhitespace(c)) {
+                reader.reset();
+                return c;
+            }
+        }
+    }
+
+    /** Drops a byte order mark, and for values other than strings the surrounding whitespace. */
+    private static String scalarText(String text, String typeName, Type valueType) {
+        String value = text.startsWith("\uFEFF") ? text.substring(1) : text;
+        boolean string = valueType == String.class
+            || (valueType == null || valueType == Object.class) && "java.lang.String".equals(typeName);
+        return string ? value : value.trim();
+    }
+}
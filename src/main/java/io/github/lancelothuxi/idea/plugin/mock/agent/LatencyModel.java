@@ -0,0 +1,224 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.LatencyConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compiled form of a {@link LatencyConfig}: draws a delay per mocked call from the
+ * configured distribution and waits it out before the mock answers.
+ *
+ * Waiting uses {@link LockSupport#parkNanos}, which unmounts a virtual thread instead of
+ * pinning its carrier, and re-parks for the remainder after an early wakeup. The time
+ * actually spent is recorded in a {@link LatencyHistogram}, which includes timer slack
+ * and scheduling delay, so the two can be compared.
+ */
+abstract class LatencyModel {
+
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private final String description;
+    private final LatencyHistogram applied = new LatencyHistogram();
+
+    private LatencyModel(String description) {
+        this.description = description;
+    }
+
+    /** Draws the delay for one call, in nanoseconds. */
+    abstract long sampleNanos(ThreadLocalRandom random);
+
+    /** Delay for one call; async responses wait it out on a timer instead of parking. */
+    long nextDelayNanos() {
+        return sampleNanos(ThreadLocalRandom.current());
+    }
+
+    /**
+     * Parks the calling thread for one sampled delay. An interrupt ends the wait early and
+     * stays set, so the caller still sees it.
+     */
+    void apply() {
+        long delay = nextDelayNanos();
+        if (delay <= 0) {
+            applied.record(0);
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + delay;
+        long remaining = delay;
+        while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(this, remaining);
+            remaining = deadline - System.nanoTime();
+        }
+        applied.record(System.nanoTime() - start);
+    }
+
+    LatencyHistogram getApplied() {
+        return applied;
+    }
+
+    /** Configured distribution next to the recorded one, for the agent log. */
+    String summary() {
+        return description + "; applied over " + applied.getCount() + " calls: p50=" + millis(applied.getPercentileNanos(0.5))
+            + " p90=" + millis(applied.getPercentileNanos(0.9))
+            + " p99=" + millis(applied.getPercentileNanos(0.99))
+            + " p999=" + millis(applied.getPercentileNanos(0.999))
+            + " max=" + millis(applied.getMaxNanos());
+    }
+
+    /**
+     * Compiles a latency config, returning {@code null} if it is absent or invalid; invalid
+     * configs are logged and the rule answers without delay.
+     */
+    static LatencyModel compile(LatencyConfig config, String ruleKey) {
+        if (config == null) {
+            return null;
+        }
+        try {
+            return compileOrThrow(config);
+        } catch (RuntimeException e) {
+            MockAgent.LOG.warning("[MockAgent] Ignoring invalid latency on " + ruleKey + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static LatencyModel compileOrThrow(LatencyConfig config) {
+        String type = config.getType() == null ? "fixed" : config.getType().trim().toLowerCase(Locale.ROOT);
+        switch (type) {
+            case "fixed":
+                return new Fixed(nanos(config.getMillis(), "millis"));
+            case "uniform":
+                return new Uniform(nanos(config.getMin(), "min"), nanos(config.getMax(), "max"));
+            case "normal":
+                return new Normal(nanos(config.getMean(), "mean"), nanos(config.getStddev(), "stddev"));
+            case "percentiles":
+                return Percentiles.of(config);
+            default:
+                throw new IllegalArgumentException("unknown type " + config.getType());
+        }
+    }
+
+    private static long nanos(double millis, String name) {
+        if (!(millis >= 0) || Double.isInfinite(millis)) {
+            throw new IllegalArgumentException(name + " must be a non-negative number of milliseconds");
+        }
+        return Math.round(millis * NANOS_PER_MILLI);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3fms", nanos / NANOS_PER_MILLI);
+    }
+
+    private static final class Fixed extends LatencyModel {
+        private final long delay;
+
+        Fixed(long delay) {
+            super("fixed " + millis(delay));
+            this.delay = delay;
+        }
+
+        @Override
+        long sampleNanos(ThreadLocalRandom random) {
+            return delay;
+        }
+    }
+
+    private static final class Uniform extends LatencyModel {
+        private final long min;
+        private final long max;
+
+        Uniform(long min, long max) {
+            super("uniform " + millis(min) + ".." + millis(max));
+            if (max < min) {
+                throw new IllegalArgumentException("max is less than min");
+            }
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        long sampleNanos(ThreadLocalRandom random) {
+            return max == min ? min : random.nextLong(min, max + 1);
+        }
+    }
+
+    private static final class Normal extends LatencyModel {
+        private final long mean;
+        private final long stddev;
+
+        Normal(long mean, long stddev) {
+            super("normal mean=" + millis(mean) + " stddev=" + millis(stddev));
+            this.mean = mean;
+            this.stddev = stddev;
+        }
+
+        @Override
+        long sampleNanos(ThreadLocalRandom random) {
+            return Math.max(0, mean + Math.round(stddev * random.nextGaussian()));
+        }
+    }
+
+    /**
+     * Inverse CDF through the configured percentile points: a uniform draw is mapped to a
+     * delay by linear interpolation between neighbouring points, starting from {@code min}
+     * at quantile 0. Draws above the highest configured percentile get its value, so the
+     * table's top entry is also the maximum delay.
+     */
+    private static final class Percentiles extends LatencyModel {
+        private final double[] quantiles;
+        private final long[] delays;
+
+        private Percentiles(String description, double[] quantiles, long[] delays) {
+            super(description);
+            this.quantiles = quantiles;
+            this.delays = delays;
+        }
+
+        static Percentiles of(LatencyConfig config) {
+            List<double[]> points = new ArrayList<>();
+            StringBuilder description = new StringBuilder("percentiles");
+            points.add(new double[]{0, nanos(config.getMin(), "min")});
+            add(points, description, "p50", 0.5, config.getP50());
+            add(points, description, "p90", 0.9, config.getP90());
+            add(points, description, "p99", 0.99, config.getP99());
+            add(points, description, "p999", 0.999, config.getP999());
+            if (points.size() == 1) {
+                throw new IllegalArgumentException("no percentile configured");
+            }
+            double[] quantiles = new double[points.size()];
+            long[] delays = new long[points.size()];
+            for (int i = 0; i < quantiles.length; i++) {
+                quantiles[i] = points.get(i)[0];
+                delays[i] = (long) points.get(i)[1];
+                if (i > 0 && delays[i] < delays[i - 1]) {
+                    throw new IllegalArgumentException("percentiles must not decrease");
+                }
+            }
+            return new Percentiles(description.toString(), quantiles, delays);
+        }
+
+        private static void add(List<double[]> points, StringBuilder description, String name,
+                                double quantile, Double millis) {
+            if (millis != null) {
+                long delay = nanos(millis, name);
+                points.add(new double[]{quantile, delay});
+                description.append(' ').append(name).append('=').append(millis(delay));
+            }
+        }
+
+        @Override
+        long sampleNanos(ThreadLocalRandom random) {
+            double u = random.nextDouble();
+            for (int i = 1; i < quantiles.length; i++) {
+                if (u < quantiles[i]) {
+                    double fraction = (u - quantiles[i - 1]) / (quantiles[i] - quantiles[i - 1]);
+                    return delays[i - 1] + Math.round(fraction * (delays[i] - delays[i - 1]));
+                }
+            }
+            return delays[delays.length - 1];
+        }
+    }
+}
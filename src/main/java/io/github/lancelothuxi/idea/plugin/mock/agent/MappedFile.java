@@ -0,0 +1,161 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file mapped into memory with {@link FileChannel#map}, addressed by {@code long}
+ * offsets. A single mapping is limited to 2 GB, so the file is mapped as consecutive
+ * 1 GB segments; values read at aligned offsets never straddle two segments, and byte
+ * ranges that do are copied from both.
+ *
+ * The mapping stays valid after the channel is closed, so no file handle is held. Its
+ * pages belong to the OS page cache rather than the Java heap, and are released when the
+ * buffers are garbage collected.
+ */
+final class MappedFile {
+
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    private MappedFile(MappedByteBuffer[] segments, long size) {
+        this.segments = segments;
+        this.size = size;
+    }
+
+    /** Maps the whole file for reading. */
+    static MappedFile readOnly(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return map(channel, FileChannel.MapMode.READ_ONLY, channel.size());
+        }
+    }
+
+    /** Creates or truncates the file to {@code size} zero bytes and maps it for writing. */
+    static MappedFile create(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Extends the file with zeros; the OS allocates its pages on first write
+            channel.write(ByteBuffer.allocate(1), size - 1);
+            return map(channel, FileChannel.MapMode.READ_WRITE, size);
+        }
+    }
+
+    private static MappedFile map(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException {
+        int count = (int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS);
+        MappedByteBuffer[] segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long start = (long) i << SEGMENT_BITS;
+            segments[i] = channel.map(mode, start, Math.min(SEGMENT_SIZE, size - start));
+        }
+        return new MappedFile(segments, size);
+    }
+
+    long size() {
+        return size;
+    }
+
+    /** Reads the long at {@code position}, which must be a multiple of 8. */
+    long getLong(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getLong((int) (position & SEGMENT_MASK));
+    }
+
+    /** Writes the long at {@code position}, which must be a multiple of 8. */
+    void putLong(long position, long value) {
+        segments[(int) (position >>> SEGMENT_BITS)].putLong((int) (position & SEGMENT_MASK), value);
+    }
+
+    /** Copies {@code length} bytes starting at {@code position}. */
+    byte[] get(long position, int length) {
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            long at = position + copied;
+            MappedByteBuffer segment = segments[(int) (at >>> SEGMENT_BITS)];
+            int offset = (int) (at & SEGMENT_MASK);
+            int chunk = Math.min(length - copied, segment.limit() - offset);
+            segment.get(offset, bytes, copied, chunk);
+            copied += chunk;
+        }
+        return bytes;
+    }
+
+    /**
+     * A stream over the whole file, read straight from the mapping. Reading does not move
+     * any shared position, so several streams and the other accessors can be used at once.
+     */
+    InputStream newInputStream() {
+        return new InputStream() {
+            private long position;
+
+            @Override
+            public int read() {
+                if (position >= size) {
+                    return -1;
+                }
+                int b = segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & SEGMENT_MASK)) & 0xff;
+                position++;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] bytes, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                if (position >= size) {
+                    return -1;
+                }
+                MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_BITS)];
+                int offset = (int) (position & SEGMENT_MASK);
+                int chunk = Math.min(len, segment.limit() - offset);
+                segment.get(offset, bytes, off, chunk);
+                position += chunk;
+                return chunk;
+            }
+
+            @Override
+            public long skip(long n) {
+                long skipped = Math.max(0, Math.min(n, size - position));
+                position += skipped;
+                return skipped;
+            }
+
+            @Override
+            public int available() {
+                return (int) Math.min(Integer.MAX_VALUE, size - position);
+            }
+        };
+    }
+
+    /** Position of the first {@code value} at or after {@code from}, or -1 if there is none. */
+    long indexOf(byte value, long from) {
+        for (long at = from; at < size; ) {
+            MappedByteBuffer segment = segments[(int) (at >>> SEGMENT_BITS)];
+            int limit = segment.limit();
+            long base = at & ~SEGMENT_MASK;
+            for (int i = (int) (at & SEGMENT_MASK); i < limit; i++) {
+                if (segment.get(i) == value) {
+                    return base + i;
+                }
+            }
+            at = base + limit;
+        }
+        return -1;
+    }
+
+    /** Writes changes to a writable mapping through to the file. */
+    void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+}
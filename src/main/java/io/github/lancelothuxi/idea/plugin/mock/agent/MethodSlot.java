@@ -0,0 +1,75 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+/**
+ * One instrumented method. The slot caches the compiled rule it resolved against a given
+ * {@link RuleIndex}, so that as long as the config is not reloaded a call only compares
+ * one reference instead of building a key and hashing it.
+ *
+ * A rule keyed on this exact overload wins over a rule keyed on the method name alone.
+ */
+final class MethodSlot {
+
+    private final String exactKey;
+    private final String nameKey;
+    /** Whether the method returns a future or publisher, see {@link AsyncReturnType}. */
+    private final boolean async;
+    private Binding binding = Binding.NONE;
+    private ReturnType returnType;
+
+    MethodSlot(String exactKey, String nameKey, boolean async) {
+        this.exactKey = exactKey;
+        this.nameKey = nameKey;
+        this.async = async;
+    }
+
+    String getRuleKey() {
+        return exactKey;
+    }
+
+    String getNameKey() {
+        return nameKey;
+    }
+
+    boolean isAsync() {
+        return async;
+    }
+
+    CompiledRule resolve(RuleIndex index) {
+        Binding b = binding;
+        if (b.index != index) {
+            // Benign race: concurrent resolvers compute the same binding
+            b = new Binding(index, index.lookup(exactKey, nameKey));
+            binding = b;
+        }
+        return b.rule;
+    }
+
+    /**
+     * Return type of the instrumented method in {@code owner}. Slots are shared by the copies
+     * of a class in different class loaders, so the cached type is re-resolved when a call
+     * comes from another copy.
+     */
+    ReturnType returnType(Class<?> owner) {
+        ReturnType type = returnType;
+        if (type == null || type.getOwner() != owner) {
+            // Benign race, as for the binding
+            RuleTarget target = RuleTarget.parse(exactKey);
+            type = ReturnType.find(owner, target.getMethodName(), target.getParameterDescriptor());
+            returnType = type;
+        }
+        return type;
+    }
+
+    /** Immutable pair so a reader never sees a rule from one config with the index of another. */
+    private static final class Binding {
+        static final Binding NONE = new Binding(null, null);
+
+        final RuleIndex index;
+        final CompiledRule rule;
+
+        Binding(RuleIndex index, CompiledRule rule) {
+            this.index = index;
+            this.rule = rule;
+        }
+    }
+}
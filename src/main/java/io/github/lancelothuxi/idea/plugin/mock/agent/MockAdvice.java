@@ -0,0 +1,41 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+
+/**
+ * Advice inlined into mocked methods of concrete classes. The enter advice skips the
+ * original method body when a rule applies, and the exit advice replaces the return value.
+ * The slot index is a constant bound through {@link RuleSlot} and the owner class is a
+ * class constant, so no reflection or key lookup happens per call.
+ *
+ * When a rule passes the call through, the enter advice returns a token instead of a
+ * {@link CompiledRule}, so the body runs and the exit advice reports its duration, also
+ * when it throws. Calls without a rule read no clock.
+ */
+public class MockAdvice {
+
+    @Advice.OnMethodEnter(skipOn = CompiledRule.class)
+    public static Object enter(@RuleSlot int slot,
+                               @Advice.Origin Class<?> owner,
+                               @Advice.Local("start") long start) throws Throwable {
+        Object entered = MockDispatch.enter(slot, owner);
+        if (entered != null && !(entered instanceof CompiledRule)) {
+            start = System.nanoTime();
+        }
+        return entered;
+    }
+
+    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    public static void exit(@Advice.Enter Object entered,
+                            @Advice.Local("start") long start,
+                            @RuleSlot int slot,
+                            @Advice.Origin Class<?> owner,
+                            @Advice.Return(readOnly = false, typing = Assigner.Typing.DYNAMIC) Object returned) throws Throwable {
+        if (entered instanceof CompiledRule) {
+            returned = MockDispatch.exit((CompiledRule) entered, slot, owner);
+        } else if (entered != null) {
+            MockDispatch.passedThrough(entered, start);
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package io.github.lancelothuxi.idea.plugin.mock.agent;
 
 import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import io.github.lancelothuxi.idea.plugin.mock.mock.RuleDelta;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import net.bytebuddy.agent.builder.AgentBuilder;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
 import net.bytebuddy.implementation.MethodDelegation;
 import net.bytebuddy.implementation.bind.annotation.AllArguments;
 import net.bytebuddy.implementation.bind.annotation.Origin;
 import net.bytebuddy.implementation.bind.annotation.RuntimeType;
 import net.bytebuddy.implementation.bind.annotation.SuperCall;
+import net.bytebuddy.matcher.ElementMatcher;
 import net.bytebuddy.matcher.ElementMatchers;
-import java.io.FileReader;
+import net.bytebuddy.utility.JavaModule;
 import java.lang.instrument.Instrumentation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
@@ -21,7 +27,18 @@ import java.util.logging.Logger;
 public class MockAgent {
 
     public static final Logger LOG = Logger.getLogger(MockAgent.class.getName());
-    public static volatile MockConfig mockConfig;
+    /** Current rules; replaced as a whole, with a single volatile write, on every (re)load. */
+    static volatile RuleIndex ruleIndex = RuleIndex.EMPTY;
+    /** Serializes reloads so versions increase and retransformations run in publish order. */
+    private static final Object RELOAD_LOCK = new Object();
+    private static final Gson GSON = new Gson();
+    /**
+     * Concrete classes are instrumented with inlined {@link MockAdvice} unless the agent runs
+     * with {@code dispatch=delegation}. Interface methods always use {@link InterfaceInterceptor}.
+     */
+    private static boolean adviceDispatch = true;
+    /** Saved in premain once the transformers are installed; used to retransform on reload. */
+    private static volatile Instrumentation instrumentation;
     
     public static void premain(String agentArgs, Instrumentation inst) {
         LOG.info("========================================");
@@ -36,129 +53,225 @@ public class MockAgent {
         } catch (Exception e) {
             LOG.warning("[MockAgent] Could not read version from manifest: " + e.getMessage());
         }
-        LOG.info("[MockAgent] Agent args: " + agentArgs);
+        AgentOptions options = AgentOptions.parse(agentArgs);
+        AgentLog.configure(options);
+        ExceptionFactory.configure(options);
+        Recorder.configure(options);
+        FixtureLoader.configure(options);
+        MockAgentJmx.register(options);
+        EventStream.start(options);
+        adviceDispatch = !"delegation".equalsIgnoreCase(options.get("dispatch", "advice"));
+        LOG.info("[MockAgent] Agent args: " + options);
         LOG.info("========================================");
         
-        if (agentArgs != null && !agentArgs.isEmpty()) {
-            loadMockConfig(agentArgs);
-            startConfigWatcher(agentArgs);
+        String configPath = options.getConfigPath();
+        if (followSharedConfig(options)) {
+            LOG.info("[MockAgent] Config file " + configPath + " is not watched while the shared config is followed");
+        } else if (configPath != null) {
+            byte[] loaded = loadMockConfig(configPath);
+            startConfigWatcher(configPath, options, loaded);
         } else {
             LOG.severe("[MockAgent] No config file path provided!");
-        }
-        
-        if (mockConfig == null) {
-            LOG.severe("[MockAgent] mockConfig is null after loading!");
             return;
         }
         
-        if (mockConfig.getAllRules().isEmpty()) {
-            LOG.warning("[MockAgent] No mock rules configured");
-            LOG.info("[MockAgent] mockRules size: " + mockConfig.getAllRules().size());
-            return;
+        RuleIndex index = ruleIndex;
+        if (index == RuleIndex.EMPTY) {
+            LOG.warning("[MockAgent] No config loaded yet, waiting for " + configPath);
+        } else if (index.size() == 0) {
+            LOG.warning("[MockAgent] No mock rules configured yet, rules added later are applied on reload");
         }
         
-        LOG.info("[MockAgent] Loaded " + mockConfig.getAllRules().size() + " mock rules");
-        
-        // Extract unique class names from mock rules
-        java.util.Set<String> classesToMock = new java.util.HashSet<>();
-        for (Map.Entry<String, MockConfig.MockRule> entry : mockConfig.getAllRules().entrySet()) {
-            String key = entry.getKey();
-            MockConfig.MockRule rule = entry.getValue();
-            LOG.info("[MockAgent]   - " + key + " -> " + rule.getReturnValue() + " (type: " + rule.getReturnType() + ")");
-            
-            // Extract class name from "com.example.ClassName.methodName"
-            int lastDot = key.lastIndexOf('.');
-            if (lastDot > 0) {
-                String className = key.substring(0, lastDot);
-                classesToMock.add(className);
+        LOG.info("[MockAgent] Loaded " + index.size() + " mock rules");
+        if (AgentLog.isDebugEnabled()) {
+            for (Map.Entry<String, MockConfig.MockRule> entry : index.getConfig().getAllRules().entrySet()) {
+                MockConfig.MockRule rule = entry.getValue();
+                LOG.info("[MockAgent]   - " + entry.getKey() + " -> " + rule.getReturnValue() + " (type: " + rule.getReturnType() + ")");
             }
         }
+        LOG.info("[MockAgent] Classes to intercept: " + index.getTargets().keySet());
         
-        LOG.info("[MockAgent] Classes to intercept: " + classesToMock);
+        instrumentation = inst;
+        installTransformers(inst);
+        ControlEndpoint.start(options);
         
-        // Build type matcher for classes that have mock rules
-        net.bytebuddy.matcher.ElementMatcher.Junction<net.bytebuddy.description.type.TypeDescription> typeMatcher = null;
-        for (String className : classesToMock) {
-            if (typeMatcher == null) {
-                typeMatcher = ElementMatchers.named(className);
-            } else {
-                typeMatcher = typeMatcher.or(ElementMatchers.named(className));
-            }
-        }
+        LOG.info("========================================");
+        LOG.info("[MockAgent] Mock Agent installed successfully");
+        LOG.info("========================================");
+    }
+    
+    /**
+     * Installs the transformers. The type matchers consult the current {@link RuleIndex} on
+     * every class load, so classes that gain rules on a later reload are instrumented when
+     * they are first loaded, and already loaded ones are retransformed by
+     * {@link #retransformChangedClasses}.
+     *
+     * Advice does not change the class format, so concrete classes in advice mode are
+     * installed with {@code RETRANSFORMATION} and can be re-instrumented or restored at
+     * runtime. MethodDelegation rebases methods and adds fields, so interfaces (and concrete
+     * classes in delegation mode) are only instrumented when they are loaded.
+     */
+    private static void installTransformers(Instrumentation inst) {
+        // The name lookup goes first: it rejects almost every class without reading modifiers
+        ElementMatcher.Junction<TypeDescription> hasRules = new RuleTypeMatcher(() -> ruleIndex);
         
-        // If no classes to mock, don't install agent
-        if (typeMatcher == null) {
-            LOG.warning("[MockAgent] No classes to mock, agent not installed");
-            return;
+        if (adviceDispatch) {
+            ignoreFrameworkClasses(new AgentBuilder.Default()
+                .disableClassFormatChanges()
+                .with(AgentBuilder.RedefinitionStrategy.RETRANSFORMATION))
+                .type(hasRules.and(ElementMatchers.not(ElementMatchers.isInterface())))
+                .transform(MockAgent::transform)
+                .installOn(inst);
         }
         
-        new AgentBuilder.Default()
-            // Ignore Gradle, TestNG, and other framework classes
-            .ignore(ElementMatchers.nameStartsWith("org.gradle."))
-            .ignore(ElementMatchers.nameStartsWith("org.testng."))
-            .ignore(ElementMatchers.nameStartsWith("com.beust."))
-            .ignore(ElementMatchers.nameStartsWith("jdk."))
-            .ignore(ElementMatchers.nameStartsWith("sun."))
-            .ignore(ElementMatchers.nameStartsWith("javax."))
-            .ignore(ElementMatchers.nameStartsWith("com.sun."))
-            .ignore(ElementMatchers.nameStartsWith("com.intellij."))
-            .ignore(ElementMatchers.nameStartsWith("net.bytebuddy."))
-            .ignore(ElementMatchers.nameStartsWith("com.google.gson."))
-            .ignore(ElementMatchers.nameStartsWith("kotlinx."))
-            .ignore(ElementMatchers.nameStartsWith("kotlin."))
-            .ignore(ElementMatchers.nameStartsWith("java."))
-            // Only transform classes that have mock rules configured
-            .type(typeMatcher)
-            .transform((builder, typeDescription, classLoader, module, protectionDomain) -> {
-                String className = typeDescription.getName();
-                boolean isInterface = typeDescription.isInterface();
-                
-                for (Map.Entry<String, MockConfig.MockRule> entry : mockConfig.getAllRules().entrySet()) {
-                    String key = entry.getKey();
-                    if (key.startsWith(className + ".")) {
-                        String methodName = key.substring(className.length() + 1);
-                        MockConfig.MockRule rule = entry.getValue();
-                        
-                        if (rule.isEnabled()) {
-                            LOG.info("[MockAgent] *** Intercepting " + className + "." + methodName + " (interface: " + isInterface + ") ***");
-                            
-                            if (isInterface) {
-                                // For interfaces (Dubbo/Feign), use InterfaceInterceptor without SuperCall
-                                builder = builder.method(ElementMatchers.named(methodName))
-                                    .intercept(MethodDelegation.to(InterfaceInterceptor.class));
-                            } else {
-                                // For concrete classes, use regular Interceptor with SuperCall
-                                builder = builder.method(ElementMatchers.named(methodName))
-                                    .intercept(MethodDelegation.to(Interceptor.class));
-                            }
-                        }
-                    }
+        ElementMatcher.Junction<TypeDescription> delegated = adviceDispatch
+            ? ElementMatchers.isInterface()
+            : ElementMatchers.any();
+        ignoreFrameworkClasses(new AgentBuilder.Default())
+            .type(hasRules.and(delegated))
+            .transform(MockAgent::transform)
+            .installOn(inst);
+    }
+    
+    /** Packages that are never mocked; checked for every class the JVM loads. */
+    private static final NamePrefixMatcher FRAMEWORK_TYPES = new NamePrefixMatcher(
+        "org.gradle.",
+        "org.testng.",
+        "com.beust.",
+        "jdk.",
+        "sun.",
+        "javax.",
+        "com.sun.",
+        "com.intellij.",
+        "net.bytebuddy.",
+        "com.google.gson.",
+        "kotlinx.",
+        "kotlin.",
+        "java.");
+    
+    private static AgentBuilder.Ignored ignoreFrameworkClasses(AgentBuilder builder) {
+        return builder
+            .with(new AgentBuilder.Listener.Adapter() {
+                @Override
+                public void onError(String typeName, ClassLoader classLoader, JavaModule module,
+                                    boolean loaded, Throwable throwable) {
+                    LOG.log(Level.WARNING, "[MockAgent] Failed to instrument " + typeName, throwable);
                 }
-                
-                return builder;
             })
-            .installOn(inst);
+            // Ignore Gradle, TestNG, and other framework classes
+            .ignore(FRAMEWORK_TYPES);
+    }
+    
+    private static DynamicType.Builder<?> transform(DynamicType.Builder<?> builder,
+                                                    TypeDescription typeDescription,
+                                                    ClassLoader classLoader,
+                                                    JavaModule module,
+                                                    java.security.ProtectionDomain protectionDomain) {
+        String className = typeDescription.getName();
+        boolean isInterface = typeDescription.isInterface();
+        RuleIndex index = ruleIndex;
+        java.util.Set<String> keys = index.getTargets().get(className);
+        java.util.Set<String> scoped = MockScope.targets(className);
+        if (scoped != null) {
+            keys = keys == null ? scoped : union(keys, scoped);
+        }
+        if (keys == null) {
+            // Rules were removed between matching and transforming: keep the original class
+            return builder;
+        }
         
-        LOG.info("========================================");
-        LOG.info("[MockAgent] Mock Agent installed successfully");
-        LOG.info("========================================");
+        // Combine the enabled rules that target this class into one method matcher
+        ElementMatcher.Junction<MethodDescription> methods = ElementMatchers.none();
+        for (String key : keys) {
+            RuleTarget target = RuleTarget.parse(key);
+            LOG.info("[MockAgent] *** Intercepting " + target + " (interface: " + isInterface + ") ***");
+            methods = methods.or(target.methodMatcher());
+        }
+        
+        return instrument(builder, typeDescription, methods, index);
+    }
+    
+    private static java.util.Set<String> union(java.util.Set<String> a, java.util.Set<String> b) {
+        java.util.Set<String> union = new java.util.HashSet<>(a);
+        union.addAll(b);
+        return union;
+    }
+    
+    private static DynamicType.Builder<?> instrument(DynamicType.Builder<?> builder,
+                                                     TypeDescription typeDescription,
+                                                     ElementMatcher.Junction<MethodDescription> methods,
+                                                     RuleIndex index) {
+        if (typeDescription.isInterface()) {
+            // For interfaces (Dubbo/Feign), use InterfaceInterceptor without SuperCall
+            return builder.method(methods).intercept(MethodDelegation.to(InterfaceInterceptor.class));
+        }
+        if (!adviceDispatch) {
+            // For concrete classes, use regular Interceptor with SuperCall
+            return builder.method(methods).intercept(MethodDelegation.to(Interceptor.class));
+        }
+        // For concrete classes, inline MockAdvice with a per-method slot constant. Only methods
+        // whose rule has argument cases or replays recorded calls get the advice that collects
+        // the arguments, and only methods in record mode get the advice that times them and
+        // captures their results. Rules of mock scopes count as well, since the method keeps
+        // its instrumentation when a scope overrides it.
+        String className = typeDescription.getName();
+        for (MethodDescription.InDefinedShape target : typeDescription.getDeclaredMethods()
+                .filter(methods
+                    .and(ElementMatchers.not(ElementMatchers.isAbstract()))
+                    .and(ElementMatchers.not(ElementMatchers.isNative()))
+                    .and(ElementMatchers.not(ElementMatchers.isBridge())))) {
+            String exactKey = MockConfig.ruleKey(className, target.getName(), target.getDescriptor());
+            String nameKey = MockConfig.ruleKey(className, target.getName(), null);
+            int slot = MockDispatch.register(exactKey, nameKey,
+                AsyncReturnType.isAsync(target.getReturnType().asErasure().getName()));
+            CompiledRule rule = index.lookup(exactKey, nameKey);
+            Class<?> advice = MockAdvice.class;
+            if (rule != null && rule.isRecord()) {
+                advice = MockRecordAdvice.class;
+            } else if (rule != null && rule.needsArguments()
+                    || MockScope.needsArguments(exactKey) || MockScope.needsArguments(nameKey)) {
+                advice = MockArgumentAdvice.class;
+            }
+            builder = builder.visit(Advice.withCustomMapping()
+                .bind(RuleSlot.class, slot)
+                .to(advice)
+                .on(ElementMatchers.is(target)));
+        }
+        return builder;
+    }
+    
+    /**
+     * Loads the config file at startup. Returns the content that was read, or {@code null}
+     * if the file could not be read.
+     */
+    private static byte[] loadMockConfig(String configPath) {
+        LOG.info("[MockAgent] Loading config from: " + configPath);
+        byte[] content;
+        try {
+            content = ConfigWatcher.read(java.nio.file.Paths.get(configPath));
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "[MockAgent] Failed to load mock config", e);
+            return null;
+        }
+        applyMockConfig(content);
+        return content;
     }
     
-    private static void loadMockConfig(String configPath) {
+    private static void applyMockConfig(byte[] content) {
         try {
-            LOG.info("[MockAgent] Loading config from: " + configPath);
-            Gson gson = new Gson();
-            mockConfig = gson.fromJson(new FileReader(configPath), MockConfig.class);
+            MockConfig loaded = GSON.fromJson(
+                new String(content, java.nio.charset.StandardCharsets.UTF_8), MockConfig.class);
             
-            if (mockConfig != null) {
+            if (loaded != null) {
                 LOG.info("[MockAgent] Config loaded successfully");
-                LOG.info("[MockAgent] mockRules size: " + mockConfig.getAllRules().size());
+                LOG.info("[MockAgent] mockRules size: " + loaded.getAllRules().size());
                 
-                if (mockConfig.getAllRules().isEmpty() && !mockConfig.getMockMethods().isEmpty()) {
+                if (loaded.getAllRules().isEmpty() && !loaded.getMockMethods().isEmpty()) {
                     LOG.info("[MockAgent] mockRules is empty, rebuilding from mockMethods...");
-                    mockConfig.rebuildMockRules();
-                    LOG.info("[MockAgent] After rebuild, mockRules size: " + mockConfig.getAllRules().size());
+                    loaded.rebuildMockRules();
+                    LOG.info("[MockAgent] After rebuild, mockRules size: " + loaded.getAllRules().size());
                 }
+                publish(loaded);
             } else {
                 LOG.severe("[MockAgent] Config is null after loading!");
             }
@@ -167,89 +280,348 @@ public class MockAgent {
         }
     }
     
-    public static MockConfig getMockConfig() {
-        return mockConfig;
+    private static void publish(MockConfig loaded) {
+        publish(loaded, true);
     }
-
-    private static void startConfigWatcher(String configPath) {
-        java.io.File configFile = new java.io.File(configPath);
-        Thread watcher = new Thread(() -> {
-            long lastModified = configFile.lastModified();
-            while (true) {
-                try {
-                    Thread.sleep(2000);
-                    long current = configFile.lastModified();
-                    if (current != lastModified) {
-                        lastModified = current;
-                        LOG.info("[MockAgent] Config file changed, reloading...");
-                        loadMockConfig(configPath);
-                        LOG.info("[MockAgent] Config reloaded, rules: " + mockConfig.getAllRules().size());
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                } catch (Exception e) {
-                    LOG.warning("[MockAgent] Error watching config file: " + e.getMessage());
+    
+    /**
+     * Builds the index for a freshly parsed config and makes it visible to interceptors with
+     * one volatile write, then retransforms the classes whose instrumented rules changed.
+     * {@code announce} logs the new version; rule changes that may arrive many times a
+     * second only log it in debug mode.
+     */
+    private static void publish(MockConfig loaded, boolean announce) {
+        synchronized (RELOAD_LOCK) {
+            RuleIndex previous = ruleIndex;
+            RuleIndex next = RuleIndex.build(loaded, previous.getVersion() + 1, previous);
+            ruleIndex = next;
+            if (announce) {
+                LOG.info("[MockAgent] Published mock rules version " + next.getVersion());
+            }
+            retransformChangedClasses(next.changedClasses(previous));
+            previous.logLatency(next);
+        }
+    }
+    
+    /**
+     * Applies rule changes received by the {@link ControlEndpoint} as one new config version
+     * and returns that version. Every delta is checked before anything is published, so an
+     * invalid one rejects the whole list with an {@link IllegalArgumentException}.
+     */
+    static long applyDeltas(java.util.List<RuleDelta> deltas) {
+        synchronized (RELOAD_LOCK) {
+            Map<String, MockConfig.MockRule> rules = new java.util.HashMap<>(ruleIndex.getConfig().getAllRules());
+            for (RuleDelta delta : deltas) {
+                String key = delta == null ? null : delta.getKey();
+                if (key == null || RuleTarget.parse(key) == null) {
+                    throw new IllegalArgumentException("Invalid rule key in " + delta);
+                }
+                String op = delta.getOp() == null ? "" : delta.getOp();
+                switch (op) {
+                    case RuleDelta.PUT:
+                        if (delta.getRule() == null) {
+                            throw new IllegalArgumentException("No rule given for " + key);
+                        }
+                        rules.put(key, delta.getRule());
+                        break;
+                    case RuleDelta.ENABLE:
+                    case RuleDelta.DISABLE:
+                        MockConfig.MockRule existing = rules.get(key);
+                        if (existing == null) {
+                            throw new IllegalArgumentException("No rule " + key);
+                        }
+                        // The published config is never modified, so the switch goes on a copy
+                        MockConfig.MockRule copy = existing.copy();
+                        copy.setEnabled(RuleDelta.ENABLE.equals(op));
+                        rules.put(key, copy);
+                        break;
+                    case RuleDelta.REMOVE:
+                        rules.remove(key);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown operation '" + op + "' for " + key);
                 }
             }
-        });
-        watcher.setDaemon(true);
-        watcher.setName("mock-config-watcher");
+            MockConfig next = new MockConfig();
+            next.getAllRules().putAll(rules);
+            publish(next, AgentLog.isDebugEnabled());
+            return ruleIndex.getVersion();
+        }
+    }
+    
+    /**
+     * Retransforms already loaded classes whose instrumented methods changed without a
+     * config reload, i.e. because a {@link MockScope} added rules for them.
+     */
+    static void retransform(java.util.Set<String> classNames) {
+        synchronized (RELOAD_LOCK) {
+            retransformChangedClasses(classNames);
+        }
+    }
+    
+    /**
+     * Retransforms the already loaded classes whose instrumentation changed.
+     * Classes that gained rules get instrumented; classes whose rules were all removed go
+     * back to their original bytecode, because the transformer no longer matches them.
+     * Rule value changes need no retransformation: slots pick up the new compiled rules.
+     */
+    private static void retransformChangedClasses(java.util.Set<String> changed) {
+        Instrumentation inst = instrumentation;
+        if (inst == null || changed.isEmpty()) {
+            return;
+        }
+        
+        java.util.List<Class<?>> classes = new java.util.ArrayList<>();
+        for (Class<?> type : inst.getAllLoadedClasses()) {
+            if (!changed.contains(type.getName())) {
+                continue;
+            }
+            if (!adviceDispatch || type.isInterface() || !inst.isModifiableClass(type)) {
+                LOG.warning("[MockAgent] " + type.getName() + " is already loaded and cannot be re-instrumented, "
+                    + "restart the application to apply its rule changes");
+                continue;
+            }
+            classes.add(type);
+        }
+        if (classes.isEmpty()) {
+            return;
+        }
+        try {
+            inst.retransformClasses(classes.toArray(new Class<?>[0]));
+            LOG.info("[MockAgent] Retransformed " + classes.size() + " class(es) after config change: " + changed);
+        } catch (Exception | LinkageError e) {
+            LOG.log(Level.WARNING, "[MockAgent] Failed to retransform classes " + changed, e);
+        }
+    }
+    
+    public static MockConfig getMockConfig() {
+        RuleIndex index = ruleIndex;
+        return index == RuleIndex.EMPTY ? null : index.getConfig();
+    }
+    
+    /**
+     * The rules currently served by the agent.
+     */
+    public static RuleIndex getRuleIndex() {
+        return ruleIndex;
+    }
+
+    /**
+     * With {@code shared=<file>}, loads the config published in that memory-mapped file and
+     * follows it instead of the config file. Returns {@code false}, leaving the config file
+     * in charge, if the option is not set or nothing was published there yet.
+     */
+    private static boolean followSharedConfig(AgentOptions options) {
+        String shared = options.get("shared", null);
+        if (shared == null) {
+            return false;
+        }
+        SharedConfigWatcher watcher = new SharedConfigWatcher(
+            java.nio.file.Paths.get(shared),
+            options.getInt("sharedPoll", 1000),
+            content -> {
+                LOG.info("[MockAgent] Shared config changed, reloading...");
+                applyMockConfig(content);
+                LOG.info("[MockAgent] Config reloaded, rules: " + ruleIndex.size());
+            });
+        byte[] content = watcher.open();
+        if (content == null) {
+            return false;
+        }
+        applyMockConfig(content);
         watcher.start();
-        LOG.info("[MockAgent] Config watcher started, polling every 2s");
+        return true;
+    }
+    
+    private static void startConfigWatcher(String configPath, AgentOptions options, byte[] loadedContent) {
+        ConfigWatcher watcher = new ConfigWatcher(
+            java.nio.file.Paths.get(configPath),
+            options.getInt("reloadDebounce", 100),
+            options.getInt("reloadPoll", 2000),
+            content -> {
+                LOG.info("[MockAgent] Config file changed, reloading...");
+                applyMockConfig(content);
+                LOG.info("[MockAgent] Config reloaded, rules: " + ruleIndex.size());
+            });
+        watcher.start(loadedContent);
     }
     
+    /**
+     * Rule keys per intercepted method, so the hot path does not build key strings on every call.
+     */
+    private static final java.util.concurrent.ConcurrentHashMap<Method, MethodKeys> RULE_KEYS =
+        new java.util.concurrent.ConcurrentHashMap<>();
+
+    static MethodKeys ruleKeys(Method method) {
+        MethodKeys keys = RULE_KEYS.get(method);
+        if (keys == null) {
+            String className = method.getDeclaringClass().getName();
+            keys = new MethodKeys(
+                MockConfig.ruleKey(className, method.getName(), RuleTarget.parameterDescriptor(method.getParameterTypes())),
+                MockConfig.ruleKey(className, method.getName(), null),
+                ReturnType.of(method));
+            RULE_KEYS.putIfAbsent(method, keys);
+        }
+        return keys;
+    }
+
+    /** Overload-specific and name-only rule keys of one method, and its return type. */
+    static final class MethodKeys {
+        final String exactKey;
+        final String nameKey;
+        final ReturnType returnType;
+
+        MethodKeys(String exactKey, String nameKey, ReturnType returnType) {
+            this.exactKey = exactKey;
+            this.nameKey = nameKey;
+            this.returnType = returnType;
+        }
+
+        CompiledRule lookup(RuleIndex index) {
+            CompiledRule scoped = MockScope.lookup(exactKey, nameKey);
+            return scoped != null ? scoped : index.lookup(exactKey, nameKey);
+        }
+    }
+
     public static class Interceptor {
 
+        /** Rule type names whose values {@link #parseMockValue} converts from text. */
+        private static final java.util.Set<String> SCALAR_TYPE_NAMES = new java.util.HashSet<>(java.util.Arrays.asList(
+            "int", "java.lang.Integer", "long", "java.lang.Long", "double", "java.lang.Double",
+            "float", "java.lang.Float", "boolean", "java.lang.Boolean", "java.lang.String"));
+
         @RuntimeType
         public static Object intercept(@Origin Method method,
                                         @AllArguments Object[] args,
                                         @SuperCall java.util.concurrent.Callable<?> zuper) throws Exception {
-            try {
-                LOG.info("[MockAgent] *** Method called: " + method.getDeclaringClass().getName() + "." + method.getName() + " ***");
+            MethodKeys keys = ruleKeys(method);
+            boolean trace = AgentLog.traceInvocation();
+            if (trace) {
+                LOG.info("[MockAgent] *** Method called: " + keys.exactKey + " ***");
+            }
 
-                MockConfig config = MockAgent.mockConfig;
-                if (config == null) {
-                    LOG.warning("[MockAgent] Config is null!");
+            CompiledRule compiled = keys.lookup(MockAgent.ruleIndex);
+            if (compiled != null && compiled.isEnabled() && compiled.isRecord()) {
+                return callAndRecord(keys, compiled.getMetrics(), args, zuper);
+            }
+            if (compiled != null && compiled.isEnabled() && compiled.needsArguments()) {
+                CompiledRule selected = compiled.select(keys.exactKey, args, true);
+                if (selected == null) {
+                    if (trace) {
+                        LOG.info("[MockAgent] Call was not recorded, calling original method");
+                    }
+                    return passThrough(compiled.getMetrics(), zuper);
+                }
+                compiled = selected;
+            }
+            if (compiled == null || !compiled.isEnabled()) {
+                if (trace) {
+                    LOG.info("[MockAgent] No mock rule found or rule disabled, calling original method");
+                }
+                if (compiled == null) {
                     return zuper.call();
                 }
+                compiled.getMetrics().missed();
+                return passThrough(compiled.getMetrics(), zuper);
+            }
+            CompiledRule response = compiled.next();
+            if (response == null) {
+                if (trace) {
+                    LOG.info("[MockAgent] Fault table passes this call through to the original method");
+                }
+                return passThrough(compiled.getMetrics(), zuper);
+            }
+            compiled = response.render(args);
+            compiled.getMetrics().answered(compiled);
+            if (keys.returnType.getAsync() != null) {
+                return compiled.respondAsync(keys.returnType);
+            }
+            compiled.injectLatency();
 
-                String className = method.getDeclaringClass().getName();
-                String methodName = method.getName();
+            // Check if this is exception mode
+            if (compiled.isThrowException()) {
+                MockConfig.MockRule rule = compiled.getRule();
+                if (trace) {
+                    LOG.info("[MockAgent] *** THROWING EXCEPTION: " + rule.getExceptionType() + " ***");
+                }
+                throw compiled.newException(keys.returnType.getClassLoader());
+            }
 
-                LOG.info("[MockAgent] Looking for mock rule: " + className + "." + methodName);
-                MockConfig.MockRule rule = config.getMockRule(className, methodName);
+            Object mockValue = compiled.getValue(keys.returnType);
+            if (trace) {
+                LOG.info("[MockAgent] *** RETURNING MOCK VALUE (class: " + AgentLog.describe(mockValue) + ") ***");
+            }
+            return mockValue;
+        }
 
-                if (rule != null && rule.isEnabled()) {
-                    LOG.info("[MockAgent] Found rule - returnValue: " + rule.getReturnValue() + ", returnType: " + rule.getReturnType());
-                    
-                    // Check if this is exception mode
-                    if (rule.isThrowException()) {
-                        LOG.info("[MockAgent] *** THROWING EXCEPTION: " + rule.getExceptionType() + " ***");
-                        throw createException(rule.getExceptionType(), rule.getExceptionMessage());
-                    }
-                    
-                    Object mockValue = parseMockValue(rule.getReturnValue(), rule.getReturnType());
-                    LOG.info("[MockAgent] *** RETURNING MOCK VALUE: " + mockValue + " (class: " + (mockValue != null ? mockValue.getClass().getName() : "null") + ") ***");
-                    return mockValue;
-                } else {
-                    LOG.info("[MockAgent] No mock rule found or rule disabled, calling original method");
-                    return zuper.call();
-                }
+        private static Object passThrough(RuleMetrics metrics, java.util.concurrent.Callable<?> zuper) throws Exception {
+            long start = System.nanoTime();
+            try {
+                return zuper.call();
+            } finally {
+                metrics.passedThrough(System.nanoTime() - start);
+            }
+        }
 
-            } catch (Exception e) {
-                LOG.log(Level.SEVERE, "[MockAgent] Exception in interceptor", e);
+        private static Object callAndRecord(MethodKeys keys, RuleMetrics metrics, Object[] args,
+                                            java.util.concurrent.Callable<?> zuper) throws Exception {
+            java.util.List<String> recordedArgs = Recorder.serializeArguments(args);
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = zuper.call();
+            } catch (Exception | Error e) {
+                long nanos = System.nanoTime() - start;
+                metrics.passedThrough(nanos);
+                Recorder.record(keys.returnType, recordedArgs, null, e, nanos);
                 throw e;
             }
+            long nanos = System.nanoTime() - start;
+            metrics.passedThrough(nanos);
+            Recorder.record(keys.returnType, recordedArgs, result, null, nanos);
+            return result;
         }
 
         public static Object parseMockValue(String value, String type) {
-            LOG.info("[MockAgent] *** parseMockValue called with value: " + value + ", type: " + type + " ***");
-                
+            return parseMockValue(value, type, null, null);
+        }
+
+        /**
+         * Parses a mock value for a method whose declared return type is {@code returnType}.
+         * JSON values are deserialized straight into that type, including its generic
+         * arguments, and scalars are converted to it. The rule's {@code type} name is only
+         * used when the declared type says nothing more specific than {@code Object}; its
+         * classes are then loaded through {@code loader}, the intercepted class's loader.
+         */
+        static Object parseMockValue(String value, String type, Type returnType, ClassLoader loader) {
+            if (AgentLog.isDebugEnabled()) {
+                LOG.info("[MockAgent] parseMockValue called for type: " + type + ", declared: " + returnType);
+            }
+
             if (value == null) {
                 return null;
             }
 
+            Class<?> rawType = rawType(returnType);
+            if (rawType == void.class || rawType == Void.class) {
+                return null;
+            }
+            if (rawType != null && rawType != Object.class) {
+                if (isScalar(rawType)) {
+                    type = rawType.getName();
+                } else if (value.startsWith("[") || value.startsWith("{")) {
+                    try {
+                        return GSON.fromJson(value, returnType);
+                    } catch (Exception e) {
+                        LOG.log(Level.SEVERE, "[MockAgent] Failed to parse mock value as " + returnType, e);
+                        return null;
+                    }
+                }
+            }
+            if (type == null) {
+                return value;
+            }
+
             try {
                 switch (type) {
                     case "int":
@@ -272,49 +644,7 @@ public class MockAgent {
                 }
 
                 if (value.startsWith("[") || value.startsWith("{")) {
-                    Gson gson = new Gson();
-
-                    // Handle generic types like List<Student>
-                    if (type.contains("<") && type.contains(">")) {
-                        LOG.info("[MockAgent] Processing generic type: " + type);
-                        
-                        // Handle List<ClassName>
-                        if ((type.startsWith("List<") || type.startsWith("java.util.List<")) && type.endsWith(">")) {
-                            int startIdx = type.indexOf('<'); String innerType = type.substring(startIdx + 1, type.length() - 1);
-                            LOG.info("[MockAgent] Extracted inner type: " + innerType);
-                            try {
-                                Class<?> innerClass = Class.forName(innerType);
-                                Type listType = TypeToken.getParameterized(java.util.List.class, innerClass).getType();
-                                Object result = gson.fromJson(value, listType);
-                                LOG.info("[MockAgent] Successfully parsed List with proper types: " + result);
-                                return result;
-                            } catch (ClassNotFoundException e) {
-                                LOG.warning("[MockAgent] Class not found: " + innerType + ", error: " + e.getMessage());
-                                return gson.fromJson(value, java.util.List.class);
-                            }
-                        }
-                    }
-
-                    // Handle non-generic types
-                    if (type.contains("List") || type.equals("java.util.List")) {
-                        return gson.fromJson(value, java.util.List.class);
-                    } else if (type.contains("Map") || type.equals("java.util.Map")) {
-                        return gson.fromJson(value, java.util.Map.class);
-                    } else {
-                        try {
-                            Class<?> clazz = Class.forName(type);
-                            Object result = gson.fromJson(value, clazz);
-                            LOG.info("[MockAgent] Parsed with Class.forName: " + result);
-                            return result;
-                        } catch (ClassNotFoundException e) {
-                            LOG.warning("[MockAgent] Class not found: " + type + ", falling back to generic parsing");
-                            if (value.startsWith("[")) {
-                                return gson.fromJson(value, java.util.List.class);
-                            } else {
-                                return gson.fromJson(value, java.util.Map.class);
-                            }
-                        }
-                    }
+                    return GSON.fromJson(value, jsonType(type, value.startsWith("["), loader));
                 }
 
                 return value;
@@ -324,17 +654,78 @@ public class MockAgent {
                 return null;
             }
         }
-        
-        private static Exception createException(String exceptionType, String message) throws Exception {
-            try {
-                Class<?> exceptionClass = Class.forName(exceptionType);
-                if (Exception.class.isAssignableFrom(exceptionClass)) {
-                    return (Exception) exceptionClass.getConstructor(String.class).newInstance(message);
+
+        /**
+         * The type a JSON value for a method returning {@code returnType}, with the rule's
+         * {@code type} name, is deserialized into, or {@code null} if
+         * {@link #parseMockValue(String, String, Type, ClassLoader)} returns or converts such
+         * a value as text. {@code array} tells whether the value is a JSON array.
+         */
+        static Type jsonTargetType(String type, Type returnType, boolean array, ClassLoader loader) {
+            Class<?> rawType = rawType(returnType);
+            if (rawType == void.class || rawType == Void.class) {
+                return null;
+            }
+            if (rawType != null && rawType != Object.class) {
+                return isScalar(rawType) ? null : returnType;
+            }
+            return type == null || SCALAR_TYPE_NAMES.contains(type) ? null : jsonType(type, array, loader);
+        }
+
+        /** The type a JSON value is deserialized into when only the rule's type name is known. */
+        private static Type jsonType(String type, boolean array, ClassLoader loader) {
+            // Handle generic types like List<Student>
+            if (type.contains("<") && type.contains(">")) {
+                // Handle List<ClassName>
+                if ((type.startsWith("List<") || type.startsWith("java.util.List<")) && type.endsWith(">")) {
+                    int startIdx = type.indexOf('<'); String innerType = type.substring(startIdx + 1, type.length() - 1);
+                    try {
+                        Class<?> innerClass = loadClass(innerType, loader);
+                        return TypeToken.getParameterized(java.util.List.class, innerClass).getType();
+                    } catch (ClassNotFoundException e) {
+                        LOG.warning("[MockAgent] Class not found: " + innerType + ", error: " + e.getMessage());
+                        return java.util.List.class;
+                    }
                 }
-            } catch (Exception e) {
-                LOG.warning("[MockAgent] Failed to create exception: " + exceptionType + ", using RuntimeException");
             }
-            return new RuntimeException(message);
+
+            // Handle non-generic types
+            if (type.contains("List") || type.equals("java.util.List")) {
+                return java.util.List.class;
+            } else if (type.contains("Map") || type.equals("java.util.Map")) {
+                return java.util.Map.class;
+            } else {
+                try {
+                    return loadClass(type, loader);
+                } catch (ClassNotFoundException e) {
+                    LOG.warning("[MockAgent] Class not found: " + type + ", falling back to generic parsing");
+                    return array ? java.util.List.class : java.util.Map.class;
+                }
+            }
+        }
+
+        private static boolean isScalar(Class<?> rawType) {
+            return rawType.isPrimitive() || rawType == String.class
+                || Number.class.isAssignableFrom(rawType) || rawType == Boolean.class;
+        }
+
+        private static Class<?> rawType(Type type) {
+            if (type instanceof Class) {
+                return (Class<?>) type;
+            }
+            if (type instanceof java.lang.reflect.ParameterizedType) {
+                return rawType(((java.lang.reflect.ParameterizedType) type).getRawType());
+            }
+            if (type instanceof java.lang.reflect.GenericArrayType) {
+                // Gson handles generic arrays itself; any non-Object class keeps the JSON path
+                return Object[].class;
+            }
+            // Type variables and wildcards: the declared type does not help
+            return null;
+        }
+
+        private static Class<?> loadClass(String name, ClassLoader loader) throws ClassNotFoundException {
+            return loader == null ? Class.forName(name) : Class.forName(name, false, loader);
         }
     }
     
@@ -344,56 +735,48 @@ public class MockAgent {
     public static class InterfaceInterceptor {
 
         @RuntimeType
-        public static Object intercept(@Origin Method method,
-                                        @AllArguments Object[] args) throws Exception {
-            try {
-                LOG.info("[MockAgent] *** Interface method called: " + method.getDeclaringClass().getName() + "." + method.getName() + " ***");
+        public static Object intercept(@Origin Method method, @AllArguments Object[] args) throws Exception {
+            MethodKeys keys = ruleKeys(method);
+            boolean trace = AgentLog.traceInvocation();
+            if (trace) {
+                LOG.info("[MockAgent] *** Interface method called: " + keys.exactKey + " ***");
+            }
 
-                MockConfig config = MockAgent.mockConfig;
-                if (config == null) {
-                    LOG.severe("[MockAgent] Config is null for interface method!");
-                    throw new IllegalStateException("MockAgent config is null");
+            CompiledRule compiled = keys.lookup(MockAgent.ruleIndex);
+            if (compiled != null && compiled.isEnabled() && compiled.needsArguments()) {
+                // There is no original method to pass a replay miss through to
+                compiled = compiled.select(keys.exactKey, args, false);
+            }
+            // Record mode needs a real implementation to call, which an interface does not have
+            if (compiled == null || !compiled.isEnabled() || compiled.isRecord()) {
+                if (compiled != null) {
+                    compiled.getMetrics().missed();
                 }
+                LOG.warning("[MockAgent] No mock rule found for interface method: " + keys.exactKey);
+                throw new UnsupportedOperationException("No mock configured for interface method: " + keys.exactKey);
+            }
+            // There is no original method to pass through to
+            compiled = compiled.next(false).render(args);
+            compiled.getMetrics().answered(compiled);
+            if (keys.returnType.getAsync() != null) {
+                return compiled.respondAsync(keys.returnType);
+            }
+            compiled.injectLatency();
 
-                String className = method.getDeclaringClass().getName();
-                String methodName = method.getName();
-
-                LOG.info("[MockAgent] Looking for mock rule: " + className + "." + methodName);
-                MockConfig.MockRule rule = config.getMockRule(className, methodName);
-
-                if (rule != null && rule.isEnabled()) {
-                    LOG.info("[MockAgent] Found rule - returnValue: " + rule.getReturnValue() + ", returnType: " + rule.getReturnType());
-                    
-                    // Check if this is exception mode
-                    if (rule.isThrowException()) {
-                        LOG.info("[MockAgent] *** THROWING EXCEPTION: " + rule.getExceptionType() + " ***");
-                        throw createException(rule.getExceptionType(), rule.getExceptionMessage());
-                    }
-                    
-                    Object mockValue = Interceptor.parseMockValue(rule.getReturnValue(), rule.getReturnType());
-                    LOG.info("[MockAgent] *** RETURNING MOCK VALUE: " + mockValue + " (class: " + (mockValue != null ? mockValue.getClass().getName() : "null") + ") ***");
-                    return mockValue;
-                } else {
-                    LOG.warning("[MockAgent] No mock rule found for interface method: " + className + "." + methodName);
-                    throw new UnsupportedOperationException("No mock configured for interface method: " + className + "." + methodName);
+            // Check if this is exception mode
+            if (compiled.isThrowException()) {
+                MockConfig.MockRule rule = compiled.getRule();
+                if (trace) {
+                    LOG.info("[MockAgent] *** THROWING EXCEPTION: " + rule.getExceptionType() + " ***");
                 }
-
-            } catch (Exception e) {
-                LOG.log(Level.SEVERE, "[MockAgent] Exception in interface interceptor", e);
-                throw e;
+                throw compiled.newException(keys.returnType.getClassLoader());
             }
-        }
-        
-        private static Exception createException(String exceptionType, String message) throws Exception {
-            try {
-                Class<?> exceptionClass = Class.forName(exceptionType);
-                if (Exception.class.isAssignableFrom(exceptionClass)) {
-                    return (Exception) exceptionClass.getConstructor(String.class).newInstance(message);
-                }
-            } catch (Exception e) {
-                LOG.warning("[MockAgent] Failed to create exception: " + exceptionType + ", using RuntimeException");
+
+            Object mockValue = compiled.getValue(keys.returnType);
+            if (trace) {
+                LOG.info("[MockAgent] *** RETURNING MOCK VALUE (class: " + AgentLog.describe(mockValue) + ") ***");
             }
-            return new RuntimeException(message);
+            return mockValue;
         }
     }
 }
@@ -0,0 +1,78 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * The agent's {@link MockAgentMXBean}. Snapshots are taken when a client reads them, so
+ * nothing is computed on the call path.
+ *
+ * Registration runs on its own daemon thread, since starting the platform MBean server
+ * takes tens of milliseconds that premain should not add to application startup. The
+ * agent option {@code jmx=false} turns it off.
+ */
+final class MockAgentJmx implements MockAgentMXBean {
+
+    static final String OBJECT_NAME = "io.github.lancelothuxi.mock:type=MockAgent";
+
+    private MockAgentJmx() {
+    }
+
+    static void register(AgentOptions options) {
+        if (!Boolean.parseBoolean(options.get("jmx", "true"))) {
+            return;
+        }
+        Thread thread = new Thread(MockAgentJmx::registerNow, "mock-agent-jmx");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void registerNow() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new MockAgentJmx(), name);
+            }
+            if (AgentLog.isDebugEnabled()) {
+                MockAgent.LOG.info("[MockAgent] Rule metrics available over JMX as " + OBJECT_NAME);
+            }
+        } catch (JMException | RuntimeException e) {
+            MockAgent.LOG.log(Level.WARNING, "[MockAgent] Could not register " + OBJECT_NAME, e);
+        }
+    }
+
+    @Override
+    public long getConfigVersion() {
+        return MockAgent.ruleIndex.getVersion();
+    }
+
+    @Override
+    public int getRuleCount() {
+        return MockAgent.ruleIndex.size();
+    }
+
+    @Override
+    public RuleStats[] getRuleStats() {
+        Map<String, ?> active = MockAgent.ruleIndex.getConfig().getAllRules();
+        List<RuleMetrics> all = RuleMetrics.all();
+        all.sort(Comparator.comparing(RuleMetrics::getRuleKey));
+        RuleStats[] stats = new RuleStats[all.size()];
+        for (int i = 0; i < stats.length; i++) {
+            RuleMetrics metrics = all.get(i);
+            stats[i] = RuleStats.of(metrics, active.containsKey(metrics.getRuleKey()));
+        }
+        return stats;
+    }
+
+    @Override
+    public void resetMetrics() {
+        for (RuleMetrics metrics : RuleMetrics.all()) {
+            metrics.reset();
+        }
+    }
+}
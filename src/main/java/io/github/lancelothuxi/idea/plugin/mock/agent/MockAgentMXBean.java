@@ -0,0 +1,21 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+/**
+ * Management interface of the agent, registered on the platform MBean server as
+ * {@code io.github.lancelothuxi.mock:type=MockAgent}, so JConsole, VisualVM or any local
+ * JMX client can read the rules' invocation metrics without extra dependencies.
+ */
+public interface MockAgentMXBean {
+
+    /** Version of the published config; increases by one with every reload. */
+    long getConfigVersion();
+
+    /** Number of rules in the published config. */
+    int getRuleCount();
+
+    /** Metrics of every rule compiled since the agent started, sorted by rule key. */
+    RuleStats[] getRuleStats();
+
+    /** Zeroes the counters and histograms of every rule. */
+    void resetMetrics();
+}
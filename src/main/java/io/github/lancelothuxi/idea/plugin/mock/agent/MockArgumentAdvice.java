@@ -0,0 +1,37 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+
+/**
+ * Variant of {@link MockAdvice} for methods whose rule has argument cases, replays
+ * recorded calls by argument or echoes arguments in its value. Only these methods pay for
+ * collecting their arguments into an array; the choice is made when the class is (re)transformed, from the rule that
+ * applies at that time.
+ */
+public class MockArgumentAdvice {
+
+    @Advice.OnMethodEnter(skipOn = CompiledRule.class)
+    public static Object enter(@RuleSlot int slot, @Advice.Origin Class<?> owner,
+                               @Advice.AllArguments Object[] args,
+                               @Advice.Local("start") long start) throws Throwable {
+        Object entered = MockDispatch.enter(slot, owner, args);
+        if (entered != null && !(entered instanceof CompiledRule)) {
+            start = System.nanoTime();
+        }
+        return entered;
+    }
+
+    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    public static void exit(@Advice.Enter Object entered,
+                            @Advice.Local("start") long start,
+                            @RuleSlot int slot,
+                            @Advice.Origin Class<?> owner,
+                            @Advice.Return(readOnly = false, typing = Assigner.Typing.DYNAMIC) Object returned) throws Throwable {
+        if (entered instanceof CompiledRule) {
+            returned = MockDispatch.exit((CompiledRule) entered, slot, owner);
+        } else if (entered != null) {
+            MockDispatch.passedThrough(entered, start);
+        }
+    }
+}
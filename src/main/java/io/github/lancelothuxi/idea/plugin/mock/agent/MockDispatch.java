@@ -0,0 +1,183 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runtime entry points for {@link MockAdvice}. Every method instrumented in advice mode
+ * is registered here once, at instrumentation time, and receives a slot index that is
+ * embedded into its bytecode as a constant.
+ *
+ * This class and its public methods are called from inlined advice code inside
+ * application classes, so they must stay public.
+ */
+public final class MockDispatch {
+
+    private static final Object LOCK = new Object();
+    private static volatile MethodSlot[] slots = new MethodSlot[64];
+    private static int slotCount;
+    // Guarded by LOCK
+    private static final Map<String, Integer> slotsByKey = new HashMap<>();
+
+    private MockDispatch() {
+    }
+
+    /**
+     * Registers an instrumented method and returns its slot index. A method that is
+     * instrumented again, e.g. on retransformation after a config reload or when its class
+     * is loaded by several class loaders, gets its existing slot back, since slots are
+     * resolved by rule key only. {@code async} marks methods with an asynchronous return
+     * type, whose latency and exceptions are delivered through the returned future.
+     */
+    static int register(String exactKey, String nameKey, boolean async) {
+        synchronized (LOCK) {
+            Integer existing = slotsByKey.get(exactKey);
+            if (existing != null) {
+                return existing;
+            }
+            MethodSlot[] current = slots;
+            if (slotCount == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            int index = slotCount++;
+            current[index] = new MethodSlot(exactKey, nameKey, async);
+            slotsByKey.put(exactKey, index);
+            // Volatile write publishes the new element to readers
+            slots = current;
+            return index;
+        }
+    }
+
+    /**
+     * Called on method entry. Returns the {@link CompiledRule} to serve; otherwise the
+     * original method body runs, and the result is either {@code null} or, when a rule
+     * passes the call through, an opaque token to hand to {@link #passedThrough} on exit so
+     * the call is timed for that rule. Exception-mode rules throw from here, with the
+     * exception class loaded by the instrumented class {@code owner}'s loader.
+     */
+    public static Object enter(int slot, Class<?> owner) throws Throwable {
+        return serve(resolve(slots[slot]), slot, owner, null);
+    }
+
+    /**
+     * Entry point for methods whose rule has argument cases, replays recorded calls or
+     * echoes arguments; picks the response for {@code args} and renders it for them.
+     */
+    public static Object enter(int slot, Class<?> owner, Object[] args) throws Throwable {
+        CompiledRule rule = resolve(slots[slot]);
+        if (rule != null && rule.isEnabled() && rule.needsArguments()) {
+            CompiledRule selected = rule.select(slots[slot].getRuleKey(), args, true);
+            if (selected == null) {
+                if (AgentLog.traceInvocation()) {
+                    MockAgent.LOG.info("[MockAgent] Call was not recorded, calling original method: "
+                        + slots[slot].getRuleKey());
+                }
+                return rule.getMetrics();
+            }
+            rule = selected;
+        }
+        return serve(rule, slot, owner, args);
+    }
+
+    /** The current thread's {@link MockScope} rule for the method, else the config file's. */
+    private static CompiledRule resolve(MethodSlot target) {
+        CompiledRule scoped = MockScope.lookup(target.getRuleKey(), target.getNameKey());
+        return scoped != null ? scoped : target.resolve(MockAgent.ruleIndex);
+    }
+
+    private static Object serve(CompiledRule rule, int slot, Class<?> owner, Object[] args) throws Throwable {
+        if (rule == null || !rule.isEnabled() || rule.isRecord()) {
+            if (AgentLog.traceInvocation()) {
+                MockAgent.LOG.info("[MockAgent] No mock rule found or rule disabled, calling original method: "
+                    + slots[slot].getRuleKey());
+            }
+            if (rule == null || rule.isRecord()) {
+                // Record rules are timed by MockRecordAdvice once the class is retransformed
+                return null;
+            }
+            rule.getMetrics().missed();
+            return rule.getMetrics();
+        }
+        CompiledRule response = rule.next();
+        if (response == null) {
+            if (AgentLog.traceInvocation()) {
+                MockAgent.LOG.info("[MockAgent] Fault table passes this call through to the original method: "
+                    + slots[slot].getRuleKey());
+            }
+            return rule.getMetrics();
+        }
+        rule = response.render(args);
+        rule.getMetrics().answered(rule);
+        if (slots[slot].isAsync()) {
+            // Delivered through the future or publisher built in exit; nothing blocks here
+            return rule;
+        }
+        rule.injectLatency();
+        if (rule.isThrowException()) {
+            if (AgentLog.traceInvocation()) {
+                MockAgent.LOG.info("[MockAgent] *** THROWING EXCEPTION: " + rule.getRule().getExceptionType() + " ***");
+            }
+            throw rule.newException(owner.getClassLoader());
+        }
+        return rule;
+    }
+
+    /**
+     * Called on exit of a method whose call {@link #enter(int, Class)} passed through, with the
+     * token it returned and the {@link System#nanoTime()} taken right after it.
+     */
+    public static void passedThrough(Object token, long start) {
+        ((RuleMetrics) token).passedThrough(System.nanoTime() - start);
+    }
+
+    /**
+     * Called by {@link MockRecordAdvice} before the original method runs. Returns the
+     * serialized arguments if the method's rule is in record mode, else {@code null}.
+     */
+    public static List<String> recordArguments(int slot, Object[] args) {
+        CompiledRule rule = slots[slot].resolve(MockAgent.ruleIndex);
+        return rule != null && rule.isEnabled() && rule.isRecord() ? Recorder.serializeArguments(args) : null;
+    }
+
+    /**
+     * Called by {@link MockRecordAdvice} after the original method returned {@code returned}
+     * or threw {@code thrown}, {@code nanos} after it was entered, with the arguments from
+     * {@link #recordArguments}. Records the call if the method's rule is still in record mode.
+     */
+    public static void record(int slot, Class<?> owner, List<String> args, Object returned, Throwable thrown, long nanos) {
+        MethodSlot target = slots[slot];
+        CompiledRule rule = target.resolve(MockAgent.ruleIndex);
+        if (args != null && rule != null && rule.isEnabled() && rule.isRecord()) {
+            rule.getMetrics().passedThrough(nanos);
+            Recorder.record(target.returnType(owner), args, returned, thrown, nanos);
+        }
+    }
+
+    /**
+     * Called on method exit when {@link #enter(int, Class)} returned a {@link CompiledRule}. {@code owner} is the
+     * instrumented class, used to parse the value as the method's declared return type.
+     * Async methods get their whole response here.
+     */
+    public static Object exit(CompiledRule rule, int slot, Class<?> owner) throws Throwable {
+        ReturnType returnType = slots[slot].returnType(owner);
+        Object mockValue;
+        if (returnType.getAsync() != null) {
+            mockValue = rule.respondAsync(returnType);
+        } else {
+            if (slots[slot].isAsync()) {
+                // Reactor type whose factories could not be resolved: answer synchronously
+                rule.injectLatency();
+                if (rule.isThrowException()) {
+                    throw rule.newException(returnType.getClassLoader());
+                }
+            }
+            mockValue = rule.getValue(returnType);
+        }
+        if (AgentLog.traceInvocation()) {
+            MockAgent.LOG.info("[MockAgent] *** RETURNING MOCK VALUE (class: " + AgentLog.describe(mockValue) + ") ***");
+        }
+        return mockValue;
+    }
+}
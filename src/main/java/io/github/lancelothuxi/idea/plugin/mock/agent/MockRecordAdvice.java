@@ -0,0 +1,33 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+
+import java.util.List;
+
+/**
+ * Advice for methods whose rule is in record mode. The original method always runs; the
+ * enter advice serializes its arguments before the body can change them, and the exit
+ * advice hands them with the result or exception and duration to {@link Recorder} and
+ * leaves the result untouched.
+ */
+public class MockRecordAdvice {
+
+    @Advice.OnMethodEnter
+    public static long enter(@RuleSlot int slot,
+                             @Advice.AllArguments Object[] args,
+                             @Advice.Local("args") List<String> recordedArgs) {
+        recordedArgs = MockDispatch.recordArguments(slot, args);
+        return System.nanoTime();
+    }
+
+    @Advice.OnMethodExit(onThrowable = Throwable.class)
+    public static void exit(@Advice.Enter long start,
+                            @RuleSlot int slot,
+                            @Advice.Origin Class<?> owner,
+                            @Advice.Local("args") List<String> args,
+                            @Advice.Return(typing = Assigner.Typing.DYNAMIC) Object returned,
+                            @Advice.Thrown Throwable thrown) {
+        MockDispatch.record(slot, owner, args, returned, thrown, System.nanoTime() - start);
+    }
+}
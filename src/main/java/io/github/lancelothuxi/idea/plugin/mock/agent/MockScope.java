@@ -0,0 +1,197 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mock rules that apply to one thread only, on top of the rules of the config file, so
+ * tests running in parallel can each mock the same methods differently:
+ *
+ * <pre>
+ * try (MockScope scope = MockScope.open(overrides)) {
+ *     // calls on this thread see the rules of overrides first
+ * }
+ * </pre>
+ *
+ * A rule in an open scope wins over the config file's rule for the same method, whether
+ * either is keyed on the exact overload or on the method name; a disabled rule in a scope
+ * makes the method run its original body. Scopes nest, the innermost one winning, and
+ * closing a scope restores the one that was current when it was opened.
+ *
+ * The scope is bound to the opening thread and inherited by threads it starts, including
+ * virtual threads. Pooled threads are usually started before the scope, so tasks handed to
+ * an executor should be wrapped with {@link #wrap(Runnable)} or {@link #wrap(Callable)}.
+ * A thread that inherited a scope stops seeing it once the scope is closed.
+ *
+ * While no scope is open anywhere, interceptors pay one volatile read for this feature.
+ * Methods whose rules only exist in a scope are instrumented when the scope is opened and
+ * stay instrumented; like config reloads, this needs advice dispatch for classes that are
+ * already loaded. With advice dispatch, methods the config file puts in record mode keep
+ * recording under scopes. Calls answered by a scope are not counted in the metrics of the
+ * config file's rules, so JMX and the live view only show what the config file did.
+ */
+public final class MockScope implements AutoCloseable {
+
+    private static final AtomicInteger OPEN = new AtomicInteger();
+    private static final InheritableThreadLocal<MockScope> CURRENT = new InheritableThreadLocal<>();
+    /**
+     * Rule keys per class of every scope opened so far; their methods stay instrumented.
+     * Keys are not removed when the last scope using them closes: un-instrumenting would
+     * retransform the class again, and test suites typically open a scope for the same
+     * methods in every test, so each test would pay two retransformations instead of the
+     * first one paying one. A method left instrumented without a rule costs one volatile
+     * read per call, and the set is bounded by the methods the tests mock.
+     */
+    private static final Map<String, Set<String>> TARGETS = new ConcurrentHashMap<>();
+    /** Keys among {@link #TARGETS} whose scoped rules needed the call's arguments. */
+    private static final Set<String> ARGUMENT_KEYS = ConcurrentHashMap.newKeySet();
+
+    private final MockScope parent;
+    private final RuleIndex rules;
+    private final Thread owner;
+    private volatile boolean closed;
+
+    private MockScope(MockScope parent, RuleIndex rules) {
+        this.parent = parent;
+        this.rules = rules;
+        this.owner = Thread.currentThread();
+    }
+
+    /**
+     * Opens a scope with the rules of {@code overrides} on the current thread. The config
+     * is compiled here and must not be modified afterwards.
+     */
+    public static MockScope open(MockConfig overrides) {
+        RuleIndex rules = RuleIndex.scoped(overrides);
+        instrument(rules);
+        MockScope scope = new MockScope(CURRENT.get(), rules);
+        CURRENT.set(scope);
+        OPEN.incrementAndGet();
+        if (AgentLog.isDebugEnabled()) {
+            MockAgent.LOG.info("[MockAgent] Opened mock scope with " + rules.size() + " rule(s) on "
+                + scope.owner.getName());
+        }
+        return scope;
+    }
+
+    /**
+     * Closes this scope. On the thread that opened it, the enclosing scope becomes current
+     * again; closing out of order or from another thread only deactivates this scope.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        OPEN.decrementAndGet();
+        if (Thread.currentThread() == owner && CURRENT.get() == this) {
+            MockScope enclosing = parent;
+            while (enclosing != null && enclosing.closed) {
+                enclosing = enclosing.parent;
+            }
+            bind(enclosing);
+        }
+    }
+
+    /** Returns a task that runs with the scope current at this call, on whatever thread runs it. */
+    public static Runnable wrap(Runnable task) {
+        MockScope captured = CURRENT.get();
+        return () -> {
+            MockScope previous = CURRENT.get();
+            bind(captured);
+            try {
+                task.run();
+            } finally {
+                bind(previous);
+            }
+        };
+    }
+
+    /** Returns a task that runs with the scope current at this call, on whatever thread runs it. */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        MockScope captured = CURRENT.get();
+        return () -> {
+            MockScope previous = CURRENT.get();
+            bind(captured);
+            try {
+                return task.call();
+            } finally {
+                bind(previous);
+            }
+        };
+    }
+
+    private static void bind(MockScope scope) {
+        if (scope == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(scope);
+        }
+    }
+
+    /**
+     * Returns the rule the current thread's open scopes have for a method, or {@code null}
+     * if they have none and the config file's rules apply.
+     */
+    static CompiledRule lookup(String exactKey, String nameKey) {
+        if (OPEN.get() == 0) {
+            return null;
+        }
+        for (MockScope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            if (!scope.closed) {
+                CompiledRule rule = scope.rules.lookup(exactKey, nameKey);
+                if (rule != null) {
+                    return rule;
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Rule keys of {@code className} that scopes have had rules for, or {@code null}. */
+    static Set<String> targets(String className) {
+        return TARGETS.get(className);
+    }
+
+    /** Whether a scope had a rule under {@code key} that needs the call's arguments. */
+    static boolean needsArguments(String key) {
+        return ARGUMENT_KEYS.contains(key);
+    }
+
+    /**
+     * Adds the methods of {@code rules} to the instrumented ones and retransforms the already
+     * loaded classes that gained methods, before the scope can be used.
+     */
+    private static void instrument(RuleIndex rules) {
+        // Held while retransforming, so no scope sees a method as instrumented before it is
+        synchronized (TARGETS) {
+            RuleIndex global = MockAgent.getRuleIndex();
+            Set<String> changed = new HashSet<>();
+            for (Map.Entry<String, Set<String>> entry : rules.getTargets().entrySet()) {
+                Set<String> known = TARGETS.computeIfAbsent(entry.getKey(), k -> ConcurrentHashMap.newKeySet());
+                Set<String> instrumented = global.getTargets().getOrDefault(entry.getKey(), Collections.emptySet());
+                for (String key : entry.getValue()) {
+                    boolean added = known.add(key) && !instrumented.contains(key);
+                    if (rules.get(key).needsArguments() && ARGUMENT_KEYS.add(key)) {
+                        CompiledRule current = global.get(key);
+                        added |= current == null || !current.needsArguments();
+                    }
+                    if (added) {
+                        changed.add(entry.getKey());
+                    }
+                }
+            }
+            if (!changed.isEmpty()) {
+                MockAgent.retransform(Collections.unmodifiableSet(changed));
+            }
+        }
+    }
+}
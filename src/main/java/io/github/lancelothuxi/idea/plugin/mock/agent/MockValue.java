@@ -0,0 +1,116 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.logging.Level;
+
+/**
+ * A parsed mock value that hands out the response for one call.
+ *
+ * Immutable values (strings, boxed primitives, enums and {@code null}) are shared by every
+ * call. A value that deserializes into a POJO, collection or map is kept as its parsed
+ * {@link JsonElement} tree with the resolved target type, and deserialized for each call:
+ * every caller gets its own instance, so a test that mutates a mocked DTO does not change
+ * what later calls return. The text is still parsed and the type resolved only once; a
+ * call only walks the tree. JSON fixtures are the exception (see {@link #shared}).
+ */
+abstract class MockValue {
+
+    static final MockValue NULL = new Constant(null);
+
+    private static final Gson GSON = new Gson();
+
+    /** The value to return from one call. */
+    abstract Object get();
+
+    /**
+     * Parses an inline value for a method returning {@code returnType} ({@code null} if
+     * unknown), exactly as {@link MockAgent.Interceptor#parseMockValue} would.
+     */
+    static MockValue parse(String value, String type, ReturnType returnType) {
+        String typeName = returnType == null ? type : returnType.valueTypeName(type);
+        Type declared = returnType == null ? null : returnType.getValueType();
+        ClassLoader loader = returnType == null ? null : returnType.getClassLoader();
+        if (value != null && (value.startsWith("[") || value.startsWith("{"))) {
+            Type target = MockAgent.Interceptor.jsonTargetType(typeName, declared, value.startsWith("["), loader);
+            if (target != null) {
+                try {
+                    return json(JsonParser.parseString(value), target);
+                } catch (RuntimeException e) {
+                    MockAgent.LOG.log(Level.SEVERE, "[MockAgent] Failed to parse mock value as " + target, e);
+                    return NULL;
+                }
+            }
+        }
+        return of(MockAgent.Interceptor.parseMockValue(value, typeName, declared, loader));
+    }
+
+    /**
+     * A value deserialized from {@code tree} as {@code target} on every call. It is
+     * deserialized once here, so a tree that does not fit the type is logged once and
+     * answers {@code null}, and a value that turns out immutable is shared instead.
+     */
+    static MockValue json(JsonElement tree, Type target) {
+        Object first;
+        try {
+            first = GSON.fromJson(tree, target);
+        } catch (RuntimeException e) {
+            MockAgent.LOG.log(Level.SEVERE, "[MockAgent] Failed to parse mock value as " + target, e);
+            return NULL;
+        }
+        return isImmutable(first) ? new Constant(first) : new Json(tree, target);
+    }
+
+    /**
+     * A value every call shares even if it is mutable, for fixtures too large to keep a
+     * tree of and deserialize per call. Callers must not modify it.
+     */
+    static MockValue shared(Object value) {
+        return new Constant(value);
+    }
+
+    /** A value parsed from text; anything mutable is copied per call through its JSON form. */
+    static MockValue of(Object value) {
+        return isImmutable(value) ? new Constant(value) : json(GSON.toJsonTree(value), value.getClass());
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value == null || value instanceof String || value instanceof Boolean || value instanceof Character
+            || value instanceof Integer || value instanceof Long || value instanceof Double || value instanceof Float
+            || value instanceof Short || value instanceof Byte
+            || value instanceof BigDecimal || value instanceof BigInteger || value instanceof Enum;
+    }
+
+    private static final class Constant extends MockValue {
+        private final Object value;
+
+        Constant(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        Object get() {
+            return value;
+        }
+    }
+
+    private static final class Json extends MockValue {
+        private final JsonElement tree;
+        private final Type type;
+
+        Json(JsonElement tree, Type type) {
+            this.tree = tree;
+            this.type = type;
+        }
+
+        @Override
+        Object get() {
+            return GSON.fromJson(tree, type);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+
+import java.util.Arrays;
+
+/**
+ * Matches types whose name starts with any of a fixed set of prefixes.
+ *
+ * The prefixes are stored in a character trie, so a check walks the type name once, at
+ * most as far as the longest prefix, however many prefixes there are. A chain of
+ * {@code nameStartsWith(...).or(...)} matchers would instead test every prefix in turn
+ * for every class the JVM loads.
+ */
+public final class NamePrefixMatcher extends ElementMatcher.Junction.AbstractBase<TypeDescription> {
+
+    private final Node root = new Node();
+    private final String[] prefixes;
+
+    public NamePrefixMatcher(String... prefixes) {
+        this.prefixes = prefixes.clone();
+        for (String prefix : prefixes) {
+            Node node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.child(prefix.charAt(i), true);
+            }
+            node.terminal = true;
+        }
+    }
+
+    @Override
+    public boolean matches(TypeDescription target) {
+        return matches(target.getName());
+    }
+
+    public boolean matches(String name) {
+        Node node = root;
+        for (int i = 0; i < name.length(); i++) {
+            if (node.terminal) {
+                return true;
+            }
+            node = node.child(name.charAt(i), false);
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.terminal;
+    }
+
+    @Override
+    public String toString() {
+        return "nameStartsWithAny(" + Arrays.toString(prefixes) + ")";
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private boolean terminal;
+
+        Node child(char c, boolean create) {
+            // Package names branch little, so a linear scan beats hashing here
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            if (!create) {
+                return null;
+            }
+            Node node = new Node();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            children[children.length - 1] = node;
+            return node;
+        }
+    }
+}
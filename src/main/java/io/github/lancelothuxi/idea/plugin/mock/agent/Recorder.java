@@ -0,0 +1,330 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.Recording;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Writes the real calls of methods whose rule is in record mode to an append-only JSONL
+ * file, one {@link Recording} per line, for the IDE to turn into mock rules.
+ *
+ * Arguments are serialized on the calling thread before the real method runs, so they are
+ * recorded as the method received them, which is also how replay matches calls. The call
+ * is then offered to a bounded queue, which never blocks: when the writer falls behind,
+ * calls are dropped and counted rather than slowed down. One daemon thread drains the
+ * queue in batches, serializes return values with Gson and appends them to the file,
+ * flushing once per batch. Serializing the result off the calling thread keeps recording
+ * cheap, at the price that a returned object mutated right after the call may be written
+ * in its later state.
+ *
+ * Options: {@code record=<file>} (default {@code recording.jsonl} next to the config file)
+ * and {@code recordQueue=<capacity>} (default 8192).
+ */
+final class Recorder {
+
+    private static final int BATCH = 512;
+    private static final long DROP_REPORT_INTERVAL_NANOS = 1_000_000_000L;
+    // Keeps generic type names such as List<String> readable in the file
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private static volatile Path file = Paths.get(System.getProperty("java.io.tmpdir"), "mock-runner", "recording.jsonl");
+    private static volatile int capacity = 8192;
+
+    private final Path path;
+    private final BlockingQueue<Call> queue;
+    private final LongAdder dropped = new LongAdder();
+    /** Methods whose async results cannot be recorded, warned about once each. */
+    private final Set<String> unsupported = ConcurrentHashMap.newKeySet();
+    // Guarded by this; the file is opened on the first batch
+    private Writer writer;
+    private boolean failed;
+    // Writer thread only
+    private long reportedDropped;
+    private long lastDropReport;
+
+    private Recorder(Path path, int capacity) {
+        this.path = path;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /** Reads the recording options; must run before the first recorded call. */
+    static void configure(AgentOptions options) {
+        String configured = options.get("record", null);
+        if (configured != null) {
+            file = Paths.get(configured);
+        } else if (options.getConfigPath() != null) {
+            Path parent = Paths.get(options.getConfigPath()).toAbsolutePath().getParent();
+            if (parent != null) {
+                file = parent.resolve("recording.jsonl");
+            }
+        }
+        capacity = Math.max(1, options.getInt("recordQueue", capacity));
+    }
+
+    /**
+     * A recording path from a rule: the agent's recording file if {@code configured} is
+     * empty, otherwise the path, relative ones taken from the recording file's directory.
+     */
+    static Path resolve(String configured) {
+        Path recording = file;
+        if (configured == null || configured.trim().isEmpty()) {
+            return recording;
+        }
+        Path path = Paths.get(configured.trim());
+        Path parent = recording.toAbsolutePath().getParent();
+        return path.isAbsolute() || parent == null ? path : parent.resolve(path);
+    }
+
+    /**
+     * Serializes the arguments of a call about to be recorded. Must run on the calling
+     * thread before the real method, which may change them.
+     */
+    static List<String> serializeArguments(Object[] args) {
+        List<String> serialized = new ArrayList<>(args == null ? 0 : args.length);
+        if (args != null) {
+            for (Object arg : args) {
+                serialized.add(serialize(arg));
+            }
+        }
+        return serialized;
+    }
+
+    /**
+     * Records one completed call of {@code method} with arguments from
+     * {@link #serializeArguments}. {@code thrown} is set if the call threw, and
+     * {@code nanos} is the time the real method took. A future returned by an async method
+     * is recorded when it completes, with the latency up to completion.
+     */
+    static void record(ReturnType method, List<String> args, Object value, Throwable thrown, long nanos) {
+        Holder.INSTANCE.offer(method, args, value, thrown, nanos);
+    }
+
+    private void offer(ReturnType method, List<String> args, Object value, Throwable thrown, long nanos) {
+        if (thrown == null && method.getAsync() != null) {
+            if (!(value instanceof CompletionStage)) {
+                warnUnsupported(method, value);
+                return;
+            }
+            long start = System.nanoTime() - nanos;
+            ((CompletionStage<?>) value).whenComplete((result, failure) ->
+                enqueue(new Call(method, args, result, unwrap(failure), System.nanoTime() - start)));
+            return;
+        }
+        enqueue(new Call(method, args, value, thrown, nanos));
+    }
+
+    private void enqueue(Call call) {
+        if (!queue.offer(call)) {
+            dropped.increment();
+        }
+    }
+
+    private void warnUnsupported(ReturnType method, Object value) {
+        String name = method.getOwner().getName() + "." + (method.getMethod() == null ? "?" : method.getMethod().getName());
+        if (value != null && unsupported.add(name)) {
+            MockAgent.LOG.warning("[MockAgent] Cannot record " + value.getClass().getName() + " results of " + name
+                + ", only CompletionStage results of async methods are recorded");
+        }
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        // whenComplete on a dependent stage sees the cause wrapped in a CompletionException
+        if (failure instanceof java.util.concurrent.CompletionException && failure.getCause() != null) {
+            return failure.getCause();
+        }
+        return failure;
+    }
+
+    private Recorder start() {
+        Thread thread = new Thread(this::drain, "mock-agent-recorder");
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            // Daemon threads stop mid-batch at exit; write out what is still queued
+            Runtime.getRuntime().addShutdownHook(new Thread(this::flushRemaining, "mock-agent-recorder-flush"));
+        } catch (IllegalStateException e) {
+            // First recorded call happened during shutdown; the writer gets what it can
+        }
+        MockAgent.LOG.info("[MockAgent] Recording calls to " + path.toAbsolutePath());
+        return this;
+    }
+
+    private void drain() {
+        List<Call> batch = new ArrayList<>(BATCH);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, BATCH - 1);
+                write(batch);
+                batch.clear();
+                reportDropped();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Logs calls dropped since the last report, at most once per interval. */
+    private void reportDropped() {
+        long total = dropped.sum();
+        long now = System.nanoTime();
+        if (total != reportedDropped && now - lastDropReport >= DROP_REPORT_INTERVAL_NANOS) {
+            MockAgent.LOG.warning("[MockAgent] Recording queue full, dropped " + (total - reportedDropped)
+                + " call(s); raise the recordQueue agent option to keep more");
+            reportedDropped = total;
+            lastDropReport = now;
+        }
+    }
+
+    private void flushRemaining() {
+        List<Call> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        write(rest);
+    }
+
+    private synchronized void write(List<Call> batch) {
+        if (batch.isEmpty() || failed) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                if (path.toAbsolutePath().getParent() != null) {
+                    Files.createDirectories(path.toAbsolutePath().getParent());
+                }
+                writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            for (Call call : batch) {
+                Recording recording = call.toRecording();
+                if (recording != null) {
+                    writer.write(GSON.toJson(recording));
+                    writer.write('\n');
+                }
+            }
+            writer.flush();
+        } catch (IOException e) {
+            failed = true;
+            MockAgent.LOG.log(Level.WARNING, "[MockAgent] Cannot write recording to " + path + ", recording stopped", e);
+        }
+    }
+
+    /**
+     * Value in the form mock rules take it: strings and scalars as plain text, everything
+     * else as JSON.
+     */
+    static String serialize(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum) {
+            return String.valueOf(value);
+        }
+        try {
+            return GSON.toJson(value);
+        } catch (RuntimeException | StackOverflowError e) {
+            // Cyclic graphs and classes Gson cannot reflect on
+            return String.valueOf(value);
+        }
+    }
+
+    /** Parameter list as the IDE shows it, e.g. {@code (Long, List<String>)}. */
+    static String signature(Method method) {
+        StringBuilder sb = new StringBuilder("(");
+        Type[] parameters = method.getGenericParameterTypes();
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            appendPresentable(sb, parameters[i]);
+        }
+        return sb.append(')').toString();
+    }
+
+    private static void appendPresentable(StringBuilder sb, Type type) {
+        if (type instanceof Class) {
+            sb.append(((Class<?>) type).getSimpleName());
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            appendPresentable(sb, parameterized.getRawType());
+            sb.append('<');
+            Type[] arguments = parameterized.getActualTypeArguments();
+            for (int i = 0; i < arguments.length; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                appendPresentable(sb, arguments[i]);
+            }
+            sb.append('>');
+        } else {
+            sb.append(type.getTypeName());
+        }
+    }
+
+    /** A call captured on the calling thread; turned into a {@link Recording} by the writer. */
+    private static final class Call {
+        final ReturnType method;
+        final List<String> args;
+        final Object value;
+        final Throwable thrown;
+        final long nanos;
+        final long timestamp = System.currentTimeMillis();
+
+        Call(ReturnType method, List<String> args, Object value, Throwable thrown, long nanos) {
+            this.method = method;
+            this.args = args;
+            this.value = value;
+            this.thrown = thrown;
+            this.nanos = nanos;
+        }
+
+        Recording toRecording() {
+            Method target = method.getMethod();
+            if (target == null) {
+                return null;
+            }
+            Recording recording = new Recording();
+            recording.setClassName(method.getOwner().getName());
+            recording.setMethodName(target.getName());
+            recording.setSignature(signature(target));
+            recording.setDescriptor(RuleTarget.methodDescriptor(target));
+            recording.setReturnType(target.getGenericReturnType().getTypeName());
+            recording.setArgs(args);
+            if (thrown != null) {
+                recording.setThrowException(true);
+                recording.setExceptionType(thrown.getClass().getName());
+                recording.setExceptionMessage(thrown.getMessage());
+            } else {
+                recording.setReturnValue(serialize(value));
+            }
+            recording.setLatencyNanos(nanos);
+            recording.setTimestamp(timestamp);
+            return recording;
+        }
+    }
+
+    /** Starts the writer on the first recorded call, after {@link #configure} has run. */
+    private static final class Holder {
+        static final Recorder INSTANCE = new Recorder(file, capacity).start();
+    }
+}
@@ -0,0 +1,299 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.Recording;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Finds recorded responses by method and serialized arguments, for rules in replay mode.
+ *
+ * The recording itself (JSONL written by {@link Recorder}) and a hash index next to it
+ * ({@code <recording>.idx}) are both memory-mapped, so fixture sets of several GB stay
+ * out of the heap: a lookup hashes the call's key, probes the index and parses only the
+ * recorded line it points at, once per rule (see {@link #lookup}). The index is an open-addressing table of 16-byte slots
+ * holding the key's 64-bit hash and the line's offset and length, at most half full.
+ * A hash match is confirmed against the line's actual method and arguments, so colliding
+ * keys are told apart; when a key was recorded several times the latest call wins.
+ *
+ * The index is built on first use and rebuilt whenever the recording's size or
+ * modification time no longer match the ones stored in its header. Calls appended to the
+ * recording after that are not seen until the next rebuild.
+ */
+final class ReplayIndex {
+
+    /** What a replay rule does with a call that was not recorded. */
+    enum Miss {
+        PASSTHROUGH, DEFAULT, FAIL
+    }
+
+    private static final long MAGIC = 0x4d52_4944_5831_0001L;
+    private static final int HEADER = 64;
+    private static final int SLOT = 16;
+    /** Longest line length the slot can hold; longer lines store this and are scanned for. */
+    private static final int MAX_PACKED_LENGTH = 0xFF_FFFF;
+    /** Most recorded lines a rule keeps compiled responses for. */
+    static final int MAX_COMPILED = 4096;
+    private static final Gson GSON = new Gson();
+    /** Indexes by recording, shared by every rule replaying the same file. */
+    private static final Map<Path, ReplayIndex> OPEN = new ConcurrentHashMap<>();
+
+    private final Path recording;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final MappedFile data;
+    private final MappedFile index;
+    private final long mask;
+
+    private ReplayIndex(Path recording, long sourceSize, long sourceModified, MappedFile data, MappedFile index) {
+        this.recording = recording;
+        this.sourceSize = sourceSize;
+        this.sourceModified = sourceModified;
+        this.data = data;
+        this.index = index;
+        this.mask = (index.size() - HEADER) / SLOT - 1;
+    }
+
+    /**
+     * Parses a miss policy name, falling back to {@code default} with a warning if it is unknown.
+     */
+    static Miss miss(String name, String ruleKey) {
+        if (name == null || name.trim().isEmpty()) {
+            return Miss.DEFAULT;
+        }
+        try {
+            return Miss.valueOf(name.trim().replace("-", "").replace("_", "").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            MockAgent.LOG.warning("[MockAgent] Unknown replay miss policy '" + name + "' on " + ruleKey + ", using default");
+            return Miss.DEFAULT;
+        }
+    }
+
+    /**
+     * Returns the index for a recording, reusing an open one if the recording has not changed
+     * and building the index file if it is missing or stale.
+     */
+    static ReplayIndex open(Path recording) throws IOException {
+        Path path = recording.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        synchronized (OPEN) {
+            ReplayIndex open = OPEN.get(path);
+            if (open == null || open.sourceSize != size || open.sourceModified != modified) {
+                open = load(path, size, modified);
+                OPEN.put(path, open);
+            }
+            return open;
+        }
+    }
+
+    private static ReplayIndex load(Path recording, long size, long modified) throws IOException {
+        MappedFile data = MappedFile.readOnly(recording);
+        Path indexPath = recording.resolveSibling(recording.getFileName() + ".idx");
+        if (Files.isRegularFile(indexPath) && Files.size(indexPath) > HEADER) {
+            MappedFile existing = MappedFile.readOnly(indexPath);
+            if (existing.getLong(0) == MAGIC && existing.getLong(8) == size && existing.getLong(16) == modified
+                    && existing.size() == HEADER + existing.getLong(24) * SLOT) {
+                return new ReplayIndex(recording, size, modified, data, existing);
+            }
+        }
+        long start = System.nanoTime();
+        ReplayIndex built = build(recording, size, modified, data, indexPath);
+        MockAgent.LOG.info("[MockAgent] Indexed " + built.count() + " recorded call(s) of " + recording + " in "
+            + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return built;
+    }
+
+    private static ReplayIndex build(Path recording, long size, long modified, MappedFile data, Path indexPath)
+            throws IOException {
+        long lines = 0;
+        for (long at = data.indexOf((byte) '\n', 0); at >= 0; at = data.indexOf((byte) '\n', at + 1)) {
+            lines++;
+        }
+        long slots = Math.max(16, Long.highestOneBit(Math.max(1, lines * 2 - 1)) << 1);
+        // A replaced index may still be mapped by rules of the previous config, so the new
+        // one is built aside and renamed over it; the old mapping keeps its own file
+        Path building = Files.createTempFile(indexPath.toAbsolutePath().getParent(), indexPath.getFileName().toString(), ".tmp");
+        MappedFile index = MappedFile.create(building, HEADER + slots * SLOT);
+        ReplayIndex built = new ReplayIndex(recording, size, modified, data, index);
+        long entries = 0;
+        for (long start = 0; start < size; ) {
+            long end = data.indexOf((byte) '\n', start);
+            if (end < 0) {
+                // Partial last line, still being written
+                break;
+            }
+            Recording call = built.parse(start, end - start);
+            if (call != null) {
+                String[] args = call.getArgs() == null ? new String[0] : call.getArgs().toArray(new String[0]);
+                if (built.put(exactKey(call), args, start, end - start)) {
+                    entries++;
+                }
+            }
+            start = end + 1;
+        }
+        // Header written last, so a file with a valid header is always complete
+        index.putLong(8, size);
+        index.putLong(16, modified);
+        index.putLong(24, slots);
+        index.putLong(32, entries);
+        index.putLong(0, MAGIC);
+        index.force();
+        try {
+            Files.move(building, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // E.g. the old index is still mapped on Windows; this run uses the new one anyway
+            MockAgent.LOG.warning("[MockAgent] Could not replace " + indexPath + ", it is rebuilt on next start: " + e);
+            building.toFile().deleteOnExit();
+        }
+        return built;
+    }
+
+    /** Inserts a line, replacing an earlier line with the same key; returns whether the key is new. */
+    private boolean put(String exactKey, String[] args, long offset, long length) {
+        long hash = hash(exactKey, args);
+        long packed = pack(offset, length);
+        for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long position = HEADER + slot * SLOT;
+            long existing = index.getLong(position + 8);
+            if (existing == 0) {
+                index.putLong(position, hash);
+                index.putLong(position + 8, packed);
+                return true;
+            }
+            if (index.getLong(position) == hash && sameCall(read(existing), exactKey, args)) {
+                index.putLong(position + 8, packed);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Returns the response compiled from the latest recorded call of the method with these
+     * serialized arguments, or {@code null} if it was not recorded.
+     *
+     * Responses are cached in {@code compiled} by the position of the line they came from,
+     * so a repeated call only hashes its key and probes the index. A line is parsed, checked
+     * against the call and compiled once, on its first hit; after that its 64-bit hash alone
+     * identifies it. The cache holds at most {@link #MAX_COMPILED} lines, so replaying a
+     * large share of a GB-sized recording does not copy it onto the heap; hits on further
+     * lines are parsed per call.
+     */
+    <T> T lookup(String exactKey, String[] args, Map<Long, T> compiled, Function<Recording, T> compile) {
+        long hash = hash(exactKey, args);
+        for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long position = HEADER + slot * SLOT;
+            long packed = index.getLong(position + 8);
+            if (packed == 0) {
+                return null;
+            }
+            if (index.getLong(position) == hash) {
+                T response = compiled.get(packed);
+                if (response != null) {
+                    return response;
+                }
+                Recording call = read(packed);
+                if (sameCall(call, exactKey, args)) {
+                    response = compile.apply(call);
+                    if (compiled.size() < MAX_COMPILED) {
+                        T raced = compiled.putIfAbsent(packed, response);
+                        return raced != null ? raced : response;
+                    }
+                    return response;
+                }
+            }
+        }
+    }
+
+    long count() {
+        return index.getLong(32);
+    }
+
+    Path getRecording() {
+        return recording;
+    }
+
+    private Recording read(long packed) {
+        long offset = (packed >>> 24) - 1;
+        long length = packed & MAX_PACKED_LENGTH;
+        if (length == MAX_PACKED_LENGTH) {
+            length = data.indexOf((byte) '\n', offset) - offset;
+        }
+        return parse(offset, length);
+    }
+
+    private Recording parse(long offset, long length) {
+        if (length <= 0 || length > Integer.MAX_VALUE) {
+            return null;
+        }
+        try {
+            Recording call = GSON.fromJson(new String(data.get(offset, (int) length), StandardCharsets.UTF_8),
+                Recording.class);
+            return call != null && call.getClassName() != null && call.getMethodName() != null ? call : null;
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    /** Line position in the upper 40 bits (plus one, so an empty slot is 0), length in the lower 24. */
+    private static long pack(long offset, long length) {
+        return (offset + 1) << 24 | Math.min(length, MAX_PACKED_LENGTH);
+    }
+
+    private static boolean sameCall(Recording call, String exactKey, String[] args) {
+        if (call == null || !exactKey.equals(exactKey(call))) {
+            return false;
+        }
+        List<String> recorded = call.getArgs();
+        return recorded == null ? args.length == 0 : Arrays.equals(recorded.toArray(new String[0]), args);
+    }
+
+    /** The rule key of the recorded overload, e.g. {@code test.OrderService.getOrder(Ljava/lang/Long;)}. */
+    private static String exactKey(Recording call) {
+        String descriptor = call.getDescriptor();
+        int close = descriptor == null ? -1 : descriptor.indexOf(')');
+        return call.getClassName() + "." + call.getMethodName() + (close < 0 ? "" : descriptor.substring(0, close + 1));
+    }
+
+    /**
+     * 64-bit FNV-1a over the key and each argument, with a marker that tells a {@code null}
+     * argument from the string {@code "null"}, finished with the MurmurHash3 mixer so the
+     * low bits used for the slot depend on every input character.
+     */
+    static long hash(String exactKey, String[] args) {
+        long h = 0xcbf29ce484222325L;
+        h = fnv(h, exactKey);
+        for (String arg : args) {
+            h = (h ^ (arg == null ? 1 : 0)) * 0x100000001b3L;
+            if (arg != null) {
+                h = fnv(h, arg);
+            }
+            h = (h ^ 0xFFFF) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static long fnv(long h, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.ResponseSequence;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiled form of a {@link ResponseSequence}: picks the response for the next call of a
+ * rule from a lock-free call counter.
+ *
+ * Every call takes a unique ordinal with one {@code getAndIncrement}, which the CPU performs
+ * as a single atomic add, so concurrent callers never retry or block. A striped counter
+ * would spread the writes further but cannot hand out ordinals, and ordinals are what make
+ * call N get response N. Once a {@code stop} sequence has reached its last response the
+ * counter is only read, so a saturated sequence costs no shared writes at all.
+ *
+ * The counter belongs to the compiled rule, so a config reload starts the sequence over.
+ */
+final class ResponseSequencer {
+
+    enum Policy {
+        STOP, CYCLE, RANDOM
+    }
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final CompiledRule[] responses;
+    private final Policy policy;
+    private final long seed;
+    private final AtomicLong calls = new AtomicLong();
+
+    ResponseSequencer(CompiledRule[] responses, Policy policy, long seed) {
+        this.responses = responses;
+        this.policy = policy;
+        this.seed = seed;
+    }
+
+    /**
+     * Parses a policy name, falling back to {@code stop} with a warning if it is unknown.
+     */
+    static Policy policy(String name, String ruleKey) {
+        if (name == null || name.trim().isEmpty()) {
+            return Policy.STOP;
+        }
+        try {
+            return Policy.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            MockAgent.LOG.warning("[MockAgent] Unknown sequence policy '" + name + "' on " + ruleKey + ", using stop");
+            return Policy.STOP;
+        }
+    }
+
+    /** Whether any response's value echoes the call's arguments. */
+    boolean hasTemplate() {
+        for (CompiledRule response : responses) {
+            if (response.hasTemplate()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    CompiledRule next() {
+        CompiledRule[] r = responses;
+        switch (policy) {
+            case CYCLE:
+                return r[(int) Long.remainderUnsigned(calls.getAndIncrement(), r.length)];
+            case RANDOM:
+                return r[(int) Long.remainderUnsigned(mix(seed + calls.getAndIncrement() * GOLDEN_GAMMA), r.length)];
+            default:
+                int last = r.length - 1;
+                if (calls.get() >= last) {
+                    return r[last];
+                }
+                return r[(int) Math.min(calls.getAndIncrement(), last)];
+        }
+    }
+
+    /**
+     * The output mix of {@link java.util.SplittableRandom}: response N of a seeded random
+     * sequence depends only on the seed and N, not on which thread made call N.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
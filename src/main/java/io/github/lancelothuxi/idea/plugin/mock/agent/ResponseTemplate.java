@@ -0,0 +1,211 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled form of a return value that echoes the call's arguments, such as
+ * {@code {"id": ${args[0]}, "name": "${args[1].name}"}}.
+ *
+ * A placeholder is {@code ${args[N]}}, optionally followed by a property path as in
+ * argument conditions ({@code ${args[1].address.city}}, {@code ${args[0].items[2]}}).
+ * {@code $${} writes a literal {@code ${}. Any other {@code ${...}} text is kept as it is,
+ * and a value without placeholders is not a template at all.
+ *
+ * The value is split once, when the config version is compiled, into constant text and
+ * argument accessors; path getters are resolved per argument class through the same cache
+ * argument conditions use. Rendering appends the segments to one builder, so a call never
+ * scans the template or matches a regex.
+ *
+ * In a JSON template (one starting with {@code {} or {@code [}) strings are escaped for a
+ * JSON string literal, so {@code "${args[1]}"} stays valid whatever the argument holds, and
+ * other objects are written as JSON. Numbers, booleans and {@code null} are written as is.
+ */
+final class ResponseTemplate {
+
+    private static final String PLACEHOLDER = "${";
+    private static final String ARGS = "args[";
+    private static final Gson GSON = new Gson();
+
+    private final Segment[] segments;
+    private final boolean json;
+    /** Expected rendered length, so the builder rarely grows. */
+    private final int sizeHint;
+
+    private ResponseTemplate(Segment[] segments, boolean json, int sizeHint) {
+        this.segments = segments;
+        this.json = json;
+        this.sizeHint = sizeHint;
+    }
+
+    /**
+     * Compiles a return value, or returns {@code null} if it has no argument placeholders
+     * or, with a warning, if one of them is invalid; the value is then returned literally.
+     */
+    static ResponseTemplate compile(String value, String ruleKey) {
+        if (value == null || !value.contains(PLACEHOLDER + ARGS)) {
+            return null;
+        }
+        try {
+            return compileOrThrow(value);
+        } catch (RuntimeException e) {
+            MockAgent.LOG.warning("[MockAgent] Returning the value of " + ruleKey
+                + " literally, invalid template: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static ResponseTemplate compileOrThrow(String value) {
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        int constant = 0;
+        int i = 0;
+        while (i < value.length()) {
+            int start = value.indexOf(PLACEHOLDER, i);
+            if (start < 0) {
+                text.append(value, i, value.length());
+                break;
+            }
+            if (start > 0 && value.charAt(start - 1) == '$') {
+                // $${ is an escaped ${
+                text.append(value, i, start - 1).append(PLACEHOLDER);
+                i = start + PLACEHOLDER.length();
+                continue;
+            }
+            text.append(value, i, start);
+            int end = value.indexOf('}', start);
+            if (end < 0) {
+                throw new IllegalArgumentException("unclosed '${' at " + start);
+            }
+            String expression = value.substring(start + PLACEHOLDER.length(), end).trim();
+            if (!expression.startsWith(ARGS)) {
+                // Not ours, e.g. a ${property} the application resolves itself
+                text.append(value, start, end + 1);
+                i = end + 1;
+                continue;
+            }
+            if (text.length() > 0) {
+                segments.add(new Text(text.toString()));
+                constant += text.length();
+                text.setLength(0);
+            }
+            segments.add(Argument.parse(expression));
+            i = end + 1;
+        }
+        if (text.length() > 0) {
+            segments.add(new Text(text.toString()));
+            constant += text.length();
+        }
+        String trimmed = value.trim();
+        boolean json = trimmed.startsWith("{") || trimmed.startsWith("[");
+        return new ResponseTemplate(segments.toArray(new Segment[0]), json, constant + 16 * segments.size());
+    }
+
+    /** Renders the value for a call with these arguments; missing arguments render as {@code null}. */
+    String render(Object[] args) {
+        StringBuilder out = new StringBuilder(sizeHint);
+        for (Segment segment : segments) {
+            segment.append(out, args, json);
+        }
+        return out.toString();
+    }
+
+    private interface Segment {
+        void append(StringBuilder out, Object[] args, boolean json);
+    }
+
+    private static final class Text implements Segment {
+        private final String text;
+
+        Text(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void append(StringBuilder out, Object[] args, boolean json) {
+            out.append(text);
+        }
+    }
+
+    private static final class Argument implements Segment {
+        private final int index;
+        /** Property path into the argument, or {@code null} for the argument itself. */
+        private final ArgumentPredicate.Path path;
+
+        private Argument(int index, ArgumentPredicate.Path path) {
+            this.index = index;
+            this.path = path;
+        }
+
+        /** Parses {@code args[N]} with an optional path, e.g. {@code args[1].name}. */
+        static Argument parse(String expression) {
+            int close = expression.indexOf(']');
+            if (close < 0) {
+                throw new IllegalArgumentException("unclosed '[' in ${" + expression + "}");
+            }
+            int index;
+            try {
+                index = Integer.parseInt(expression.substring(ARGS.length(), close).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("bad argument index in ${" + expression + "}");
+            }
+            if (index < 0) {
+                throw new IllegalArgumentException("negative argument index in ${" + expression + "}");
+            }
+            String rest = expression.substring(close + 1).trim();
+            if (!rest.isEmpty() && !rest.startsWith(".") && !rest.startsWith("[")) {
+                throw new IllegalArgumentException("unexpected '" + rest + "' in ${" + expression + "}");
+            }
+            return new Argument(index, ArgumentPredicate.Path.parse(rest));
+        }
+
+        @Override
+        public void append(StringBuilder out, Object[] args, boolean json) {
+            Object value = args == null || index >= args.length ? null : args[index];
+            if (path != null && value != null) {
+                value = path.read(value);
+            }
+            if (value == null || value instanceof Number || value instanceof Boolean) {
+                out.append(value);
+            } else if (!json) {
+                out.append(value);
+            } else if (value instanceof CharSequence || value instanceof Character || value instanceof Enum) {
+                escape(out, value.toString());
+            } else {
+                out.append(GSON.toJson(value));
+            }
+        }
+
+        /** Appends {@code s} as the content of a JSON string literal. */
+        private static void escape(StringBuilder out, String s) {
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '"':
+                        out.append("\\\"");
+                        break;
+                    case '\\':
+                        out.append("\\\\");
+                        break;
+                    case '\n':
+                        out.append("\\n");
+                        break;
+                    case '\r':
+                        out.append("\\r");
+                        break;
+                    case '\t':
+                        out.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            out.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.append(c);
+                        }
+                }
+            }
+        }
+    }
+}
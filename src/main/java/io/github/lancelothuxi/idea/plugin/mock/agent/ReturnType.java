@@ -0,0 +1,83 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+
+/**
+ * The declared return type of an intercepted method, used to parse mock values.
+ *
+ * Taking the type from {@link Method#getGenericReturnType()} means classes come from the
+ * loader that loaded the intercepted class (a Spring Boot fat jar or per-module loader
+ * rather than the agent's), and generic element types such as {@code List<OrderDTO>} are
+ * known without parsing the rule's type string. It is resolved once per intercepted
+ * method and compared by identity afterwards.
+ */
+final class ReturnType {
+
+    private final Class<?> owner;
+    /** The intercepted method, or {@code null} if it could not be found. */
+    private final Method method;
+    private final Type genericType;
+    /** Set for methods returning a future or a Reactor publisher. */
+    private final AsyncReturnType async;
+
+    private ReturnType(Class<?> owner, Method method, Type genericType, AsyncReturnType async) {
+        this.owner = owner;
+        this.method = method;
+        this.genericType = genericType;
+        this.async = async;
+    }
+
+    static ReturnType of(Method method) {
+        return new ReturnType(method.getDeclaringClass(), method, method.getGenericReturnType(),
+            AsyncReturnType.of(method.getReturnType(), method.getGenericReturnType()));
+    }
+
+    /**
+     * Finds the method of {@code owner} with the given name and parameter descriptor, or
+     * returns a type without a generic return type if there is none.
+     */
+    static ReturnType find(Class<?> owner, String methodName, String parameterDescriptor) {
+        for (Method method : owner.getDeclaredMethods()) {
+            if (method.getName().equals(methodName) && !method.isBridge()
+                    && RuleTarget.parameterDescriptor(method.getParameterTypes()).equals(parameterDescriptor)) {
+                return of(method);
+            }
+        }
+        return new ReturnType(owner, null, null, null);
+    }
+
+    Class<?> getOwner() {
+        return owner;
+    }
+
+    /** The intercepted method, for recording its calls; {@code null} if unknown. */
+    Method getMethod() {
+        return method;
+    }
+
+    /** Generic return type, or {@code null} if unknown. */
+    Type getGenericType() {
+        return genericType;
+    }
+
+    /** Async wrapper to deliver the value through, or {@code null} for a plain return. */
+    AsyncReturnType getAsync() {
+        return async;
+    }
+
+    /** Type the mock value itself is parsed as: the element type for async methods. */
+    Type getValueType() {
+        return async == null ? genericType : async.getValueType();
+    }
+
+    /** The configured type name of the value, unwrapped from an async type name. */
+    String valueTypeName(String configured) {
+        return async == null ? configured : async.valueTypeName(configured);
+    }
+
+    /** Loader to resolve the rule's type names with when the method type is not specific enough. */
+    ClassLoader getClassLoader() {
+        return owner.getClassLoader();
+    }
+}
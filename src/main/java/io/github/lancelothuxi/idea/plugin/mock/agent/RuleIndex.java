@@ -0,0 +1,170 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Immutable snapshot of the agent's mock rules for one config version.
+ *
+ * A reload builds a new index off to the side from a freshly parsed {@link MockConfig}
+ * and publishes it with a single volatile write (see {@code MockAgent#ruleIndex}).
+ * Interceptors read that field once per call and only use the index they got, so they
+ * never lock and never observe a half-applied reload: every lookup in a call is answered
+ * by the same version.
+ */
+public final class RuleIndex {
+
+    public static final RuleIndex EMPTY = new RuleIndex(
+        0, new MockConfig(), Collections.emptyMap(), Collections.emptyMap());
+
+    private final long version;
+    private final MockConfig config;
+    private final Map<String, CompiledRule> rules;
+    private final Map<String, Set<String>> targets;
+    /** Per class, the keys among {@link #targets} whose rules need the call's arguments. */
+    private final Map<String, Set<String>> argumentTargets;
+    /** Per class, the keys among {@link #targets} whose rules are in record mode. */
+    private final Map<String, Set<String>> recordTargets;
+
+    private RuleIndex(long version, MockConfig config,
+                      Map<String, CompiledRule> rules, Map<String, Set<String>> targets) {
+        this.version = version;
+        this.config = config;
+        this.rules = rules;
+        this.targets = targets;
+        this.argumentTargets = filterTargets(rules, targets, CompiledRule::needsArguments);
+        this.recordTargets = filterTargets(rules, targets, CompiledRule::isRecord);
+    }
+
+    /**
+     * Builds the index for {@code config}. The config must not be modified afterwards; the
+     * agent only passes configs it has just parsed and never hands out for writing.
+     */
+    public static RuleIndex build(MockConfig config, long version) {
+        return build(config, version, EMPTY);
+    }
+
+    /**
+     * Builds the index for {@code config}, reusing the compiled rules of {@code previous}
+     * whose {@link MockConfig.MockRule} is the same instance in both configs. Rule changes
+     * from the control socket carry the untouched rules over, so those keep their sequence
+     * position, fault random state and parsed values; a reloaded file has only new rules.
+     */
+    public static RuleIndex build(MockConfig config, long version, RuleIndex previous) {
+        return new RuleIndex(version, config, CompiledRule.compileAll(config, false, previous), targetsByClass(config));
+    }
+
+    /**
+     * Builds the index of a {@link MockScope}. Its rules keep their metrics to themselves:
+     * they are not published over JMX or the live view.
+     */
+    static RuleIndex scoped(MockConfig config) {
+        return new RuleIndex(0, config, CompiledRule.compileAll(config, true, EMPTY), targetsByClass(config));
+    }
+
+    /**
+     * Groups the keys of all enabled rules by the class they target.
+     */
+    private static Map<String, Set<String>> targetsByClass(MockConfig config) {
+        Map<String, Set<String>> targets = new HashMap<>();
+        for (Map.Entry<String, MockConfig.MockRule> entry : config.getAllRules().entrySet()) {
+            RuleTarget target = RuleTarget.parse(entry.getKey());
+            if (target != null && entry.getValue().isEnabled()) {
+                targets.computeIfAbsent(target.getClassName(), k -> new HashSet<>()).add(entry.getKey());
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : targets.entrySet()) {
+            entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+        }
+        return Collections.unmodifiableMap(targets);
+    }
+
+    private static Map<String, Set<String>> filterTargets(Map<String, CompiledRule> rules,
+                                                         Map<String, Set<String>> targets,
+                                                         Predicate<CompiledRule> filter) {
+        Map<String, Set<String>> result = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : targets.entrySet()) {
+            for (String key : entry.getValue()) {
+                if (filter.test(rules.get(key))) {
+                    result.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).add(key);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Names of the classes that must be instrumented differently under this index than under
+     * {@code previous}: their set of mocked methods changed, or a rule started or stopped
+     * needing arguments or recording (which switches the method to a different advice).
+     */
+    Set<String> changedClasses(RuleIndex previous) {
+        Set<String> changed = new HashSet<>();
+        Set<String> classNames = new HashSet<>(targets.keySet());
+        classNames.addAll(previous.targets.keySet());
+        for (String className : classNames) {
+            if (!Objects.equals(targets.get(className), previous.targets.get(className))
+                    || !Objects.equals(argumentTargets.get(className), previous.argumentTargets.get(className))
+                    || !Objects.equals(recordTargets.get(className), previous.recordTargets.get(className))) {
+                changed.add(className);
+            }
+        }
+        return changed;
+    }
+
+    /** Increases by one with every published config. */
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    /**
+     * Returns the rule for a method: the one keyed on its exact overload if present,
+     * otherwise the one keyed on its name alone, or {@code null}.
+     */
+    public CompiledRule lookup(String exactKey, String nameKey) {
+        CompiledRule rule = rules.get(exactKey);
+        return rule != null ? rule : rules.get(nameKey);
+    }
+
+    /** Returns the rule configured under exactly this key, or {@code null}. */
+    CompiledRule get(String ruleKey) {
+        return rules.get(ruleKey);
+    }
+
+    /**
+     * Logs the configured against the applied latency of every rule that injected any and
+     * is not carried over to {@code next}. Called when this index is replaced by
+     * {@code next}, since the histograms of its replaced rules end with it.
+     */
+    void logLatency(RuleIndex next) {
+        for (Map.Entry<String, CompiledRule> entry : rules.entrySet()) {
+            if (next.get(entry.getKey()) == entry.getValue()) {
+                continue;
+            }
+            LatencyHistogram applied = entry.getValue().getAppliedLatency();
+            if (applied != null && applied.getCount() > 0) {
+                MockAgent.LOG.info("[MockAgent] Latency " + entry.getKey() + ": " + entry.getValue().latencySummary());
+            }
+        }
+    }
+
+    MockConfig getConfig() {
+        return config;
+    }
+
+    /** Enabled rule keys per class name; a class is instrumented iff it has an entry. */
+    Map<String, Set<String>> getTargets() {
+        return targets;
+    }
+}
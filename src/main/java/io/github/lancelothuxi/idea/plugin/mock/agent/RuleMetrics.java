@@ -0,0 +1,104 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invocation counters of one rule, read over JMX through {@link MockAgentMXBean}.
+ *
+ * Metrics are kept per rule key rather than per {@link CompiledRule}, so they survive
+ * config reloads; a rule's case, sequence, fault and replay responses share its metrics.
+ * Counters are {@link LongAdder}s, so threads calling the same mocked method increment
+ * separate cells instead of contending on one value.
+ *
+ * <ul>
+ *   <li>hits: calls answered with a mock value</li>
+ *   <li>exceptions: calls answered with a mock exception</li>
+ *   <li>pass-throughs: calls that ran the original method, because the rule is disabled,
+ *       records, or its fault table or replay miss policy said so</li>
+ *   <li>misses: calls the rule had no answer for, i.e. while it was disabled or when
+ *       replay found no recorded call; a miss is also a pass-through, hit or exception,
+ *       depending on what the call did instead</li>
+ * </ul>
+ */
+final class RuleMetrics {
+
+    private static final Map<String, RuleMetrics> BY_RULE = new ConcurrentHashMap<>();
+
+    private final String ruleKey;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder passThroughs = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+    /** Duration of the original method on pass-through calls. */
+    private final LatencyHistogram passThroughLatency = new LatencyHistogram();
+
+    RuleMetrics(String ruleKey) {
+        this.ruleKey = ruleKey;
+    }
+
+    /** The metrics of the rule with this key, created on first use and never removed. */
+    static RuleMetrics forRule(String ruleKey) {
+        return BY_RULE.computeIfAbsent(ruleKey, RuleMetrics::new);
+    }
+
+    /** Every rule compiled since the agent started, including rules no longer configured. */
+    static List<RuleMetrics> all() {
+        return new ArrayList<>(BY_RULE.values());
+    }
+
+    /** Counts a call answered by {@code response}, with its value or its exception. */
+    void answered(CompiledRule response) {
+        if (response.isThrowException()) {
+            exceptions.increment();
+        } else {
+            hits.increment();
+        }
+    }
+
+    void missed() {
+        misses.increment();
+    }
+
+    /** Counts a call that ran the original method for {@code nanos}. */
+    void passedThrough(long nanos) {
+        passThroughs.increment();
+        passThroughLatency.record(nanos);
+    }
+
+    String getRuleKey() {
+        return ruleKey;
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    long getPassThroughs() {
+        return passThroughs.sum();
+    }
+
+    long getExceptions() {
+        return exceptions.sum();
+    }
+
+    LatencyHistogram getPassThroughLatency() {
+        return passThroughLatency;
+    }
+
+    /** Zeroes every counter; calls in flight may or may not be counted. */
+    void reset() {
+        hits.reset();
+        misses.reset();
+        passThroughs.reset();
+        exceptions.reset();
+        passThroughLatency.reset();
+    }
+}
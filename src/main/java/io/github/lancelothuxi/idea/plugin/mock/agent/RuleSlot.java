@@ -0,0 +1,15 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds the {@link MockDispatch} slot index of the instrumented method into {@link MockAdvice}.
+ * The value is a constant baked into the transformed bytecode at instrumentation time.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface RuleSlot {
+}
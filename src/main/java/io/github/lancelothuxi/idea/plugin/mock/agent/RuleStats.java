@@ -0,0 +1,115 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Snapshot of one rule's {@link RuleMetrics}, as returned by {@link MockAgentMXBean}. JMX
+ * exposes it as {@link CompositeData}; {@link #from} lets MXBean proxies rebuild it.
+ * Pass-through latencies are in milliseconds and 0 until a call has passed through.
+ */
+public final class RuleStats {
+
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private final String ruleKey;
+    private final boolean active;
+    private final long hits;
+    private final long misses;
+    private final long passThroughs;
+    private final long exceptions;
+    private final double passThroughP50Millis;
+    private final double passThroughP90Millis;
+    private final double passThroughP99Millis;
+    private final double passThroughP999Millis;
+    private final double passThroughMaxMillis;
+
+    public RuleStats(String ruleKey, boolean active, long hits, long misses, long passThroughs, long exceptions,
+                     double passThroughP50Millis, double passThroughP90Millis, double passThroughP99Millis,
+                     double passThroughP999Millis, double passThroughMaxMillis) {
+        this.ruleKey = ruleKey;
+        this.active = active;
+        this.hits = hits;
+        this.misses = misses;
+        this.passThroughs = passThroughs;
+        this.exceptions = exceptions;
+        this.passThroughP50Millis = passThroughP50Millis;
+        this.passThroughP90Millis = passThroughP90Millis;
+        this.passThroughP99Millis = passThroughP99Millis;
+        this.passThroughP999Millis = passThroughP999Millis;
+        this.passThroughMaxMillis = passThroughMaxMillis;
+    }
+
+    static RuleStats of(RuleMetrics metrics, boolean active) {
+        LatencyHistogram latency = metrics.getPassThroughLatency();
+        return new RuleStats(metrics.getRuleKey(), active, metrics.getHits(), metrics.getMisses(),
+            metrics.getPassThroughs(), metrics.getExceptions(),
+            millis(latency.getPercentileNanos(0.5)), millis(latency.getPercentileNanos(0.9)),
+            millis(latency.getPercentileNanos(0.99)), millis(latency.getPercentileNanos(0.999)),
+            millis(latency.getMaxNanos()));
+    }
+
+    /** Rebuilds a snapshot from its JMX form; used by {@link javax.management.JMX#newMXBeanProxy}. */
+    public static RuleStats from(CompositeData data) {
+        return new RuleStats((String) data.get("ruleKey"), (Boolean) data.get("active"),
+            (Long) data.get("hits"), (Long) data.get("misses"),
+            (Long) data.get("passThroughs"), (Long) data.get("exceptions"),
+            (Double) data.get("passThroughP50Millis"), (Double) data.get("passThroughP90Millis"),
+            (Double) data.get("passThroughP99Millis"), (Double) data.get("passThroughP999Millis"),
+            (Double) data.get("passThroughMaxMillis"));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+
+    public String getRuleKey() {
+        return ruleKey;
+    }
+
+    /** Whether the rule is in the published config; removed rules keep their metrics. */
+    public boolean isActive() {
+        return active;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getPassThroughs() {
+        return passThroughs;
+    }
+
+    public long getExceptions() {
+        return exceptions;
+    }
+
+    public double getPassThroughP50Millis() {
+        return passThroughP50Millis;
+    }
+
+    public double getPassThroughP90Millis() {
+        return passThroughP90Millis;
+    }
+
+    public double getPassThroughP99Millis() {
+        return passThroughP99Millis;
+    }
+
+    public double getPassThroughP999Millis() {
+        return passThroughP999Millis;
+    }
+
+    public double getPassThroughMaxMillis() {
+        return passThroughMaxMillis;
+    }
+
+    @Override
+    public String toString() {
+        return ruleKey + " hits=" + hits + " misses=" + misses + " passThroughs=" + passThroughs
+            + " exceptions=" + exceptions + " passThroughP50=" + passThroughP50Millis + "ms";
+    }
+}
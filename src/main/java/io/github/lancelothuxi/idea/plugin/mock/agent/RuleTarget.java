@@ -0,0 +1,207 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+import net.bytebuddy.matcher.ElementMatchers;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The method a rule key points at. Keys come in two forms (see {@link MockConfig#ruleKey}):
+ * {@code com.example.Service.find}, which targets every overload, and
+ * {@code com.example.Service.find(Ljava/lang/String;I)}, which targets exactly one.
+ */
+final class RuleTarget {
+
+    private final String key;
+    private final String className;
+    private final String methodName;
+    /** Parameter part of the JVM descriptor, e.g. {@code (Ljava/lang/String;I)}; null for all overloads. */
+    private final String parameterDescriptor;
+
+    private RuleTarget(String key, String className, String methodName, String parameterDescriptor) {
+        this.key = key;
+        this.className = className;
+        this.methodName = methodName;
+        this.parameterDescriptor = parameterDescriptor;
+    }
+
+    /**
+     * Parses a rule key, or returns {@code null} if it does not name a method or its
+     * parameter descriptor is malformed, e.g. {@code a.B.m(Lfoo} or {@code a.B.m([)}.
+     */
+    static RuleTarget parse(String key) {
+        int paren = key.indexOf('(');
+        String head = paren < 0 ? key : key.substring(0, paren);
+        int lastDot = head.lastIndexOf('.');
+        if (lastDot <= 0 || lastDot == head.length() - 1) {
+            return null;
+        }
+        String descriptor = paren < 0 ? null : key.substring(paren);
+        if (descriptor != null) {
+            // Keys hold only the parameter part, so the descriptor must end at its ')'
+            if (descriptor.indexOf(')') != descriptor.length() - 1) {
+                return null;
+            }
+            try {
+                parameterTypeNames(descriptor);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return new RuleTarget(key, head.substring(0, lastDot), head.substring(lastDot + 1), descriptor);
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    String getMethodName() {
+        return methodName;
+    }
+
+    /** Parameter part of the descriptor, e.g. {@code (Ljava/lang/String;I)}, or null. */
+    String getParameterDescriptor() {
+        return parameterDescriptor;
+    }
+
+    boolean isOverloadSpecific() {
+        return parameterDescriptor != null;
+    }
+
+    /**
+     * Matches the targeted method: by name alone for overload-agnostic keys, otherwise by
+     * name, parameter count and the erasure of every parameter type.
+     */
+    ElementMatcher.Junction<MethodDescription> methodMatcher() {
+        ElementMatcher.Junction<MethodDescription> matcher = ElementMatchers.named(methodName);
+        if (parameterDescriptor == null) {
+            return matcher;
+        }
+        List<String> typeNames = parameterTypeNames(parameterDescriptor);
+        matcher = matcher.and(ElementMatchers.takesArguments(typeNames.size()));
+        for (int i = 0; i < typeNames.size(); i++) {
+            matcher = matcher.and(ElementMatchers.takesArgument(i, ElementMatchers.named(typeNames.get(i))));
+        }
+        return matcher;
+    }
+
+    /**
+     * Converts the parameter part of a JVM descriptor, e.g. {@code (Ljava/lang/String;I)},
+     * into {@link Class#getName()}-style names, which is also what ByteBuddy's
+     * {@code TypeDescription.getName()} returns. Anything after the closing {@code )} is
+     * ignored.
+     *
+     * @throws IllegalArgumentException if the descriptor is malformed
+     */
+    static List<String> parameterTypeNames(String descriptor) {
+        if (!descriptor.startsWith("(")) {
+            throw new IllegalArgumentException("Malformed descriptor: " + descriptor);
+        }
+        List<String> names = new ArrayList<>();
+        int i = 1;
+        while (true) {
+            if (i >= descriptor.length()) {
+                throw new IllegalArgumentException("Malformed descriptor: " + descriptor);
+            }
+            if (descriptor.charAt(i) == ')') {
+                return names;
+            }
+            int start = i;
+            while (i < descriptor.length() && descriptor.charAt(i) == '[') {
+                i++;
+            }
+            if (i >= descriptor.length()) {
+                throw new IllegalArgumentException("Malformed descriptor: " + descriptor);
+            }
+            if (descriptor.charAt(i) == 'L') {
+                int className = i + 1;
+                i = descriptor.indexOf(';', i);
+                if (i <= className) {
+                    throw new IllegalArgumentException("Malformed descriptor: " + descriptor);
+                }
+            } else {
+                // Also rejects ')' or 'V' as an array's element type
+                primitiveName(descriptor.charAt(i), descriptor);
+            }
+            i++;
+            String element = descriptor.substring(start, i);
+            if (element.charAt(0) == 'L') {
+                names.add(element.substring(1, element.length() - 1).replace('/', '.'));
+            } else if (element.charAt(0) == '[') {
+                // Arrays keep their descriptor form with dots, e.g. [Ljava.lang.String; or [I
+                names.add(element.replace('/', '.'));
+            } else {
+                names.add(primitiveName(element.charAt(0), descriptor));
+            }
+        }
+    }
+
+    /**
+     * Parameter part of the JVM descriptor for the given parameter types.
+     */
+    static String parameterDescriptor(Class<?>[] parameterTypes) {
+        StringBuilder sb = new StringBuilder("(");
+        for (Class<?> type : parameterTypes) {
+            appendDescriptor(sb, type);
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * Full JVM descriptor of a method, e.g. {@code (Ljava/lang/Long;)Ltest/dubbo/OrderDTO;}.
+     */
+    static String methodDescriptor(Method method) {
+        StringBuilder sb = new StringBuilder(parameterDescriptor(method.getParameterTypes()));
+        appendDescriptor(sb, method.getReturnType());
+        return sb.toString();
+    }
+
+    private static void appendDescriptor(StringBuilder sb, Class<?> type) {
+        if (type.isArray()) {
+            sb.append(type.getName().replace('.', '/'));
+        } else if (type.isPrimitive()) {
+            sb.append(primitiveDescriptor(type));
+        } else {
+            sb.append('L').append(type.getName().replace('.', '/')).append(';');
+        }
+    }
+
+    private static char primitiveDescriptor(Class<?> type) {
+        if (type == int.class) return 'I';
+        if (type == long.class) return 'J';
+        if (type == boolean.class) return 'Z';
+        if (type == byte.class) return 'B';
+        if (type == char.class) return 'C';
+        if (type == short.class) return 'S';
+        if (type == float.class) return 'F';
+        if (type == double.class) return 'D';
+        return 'V';
+    }
+
+    private static String primitiveName(char c, String descriptor) {
+        switch (c) {
+            case 'I': return "int";
+            case 'J': return "long";
+            case 'Z': return "boolean";
+            case 'B': return "byte";
+            case 'C': return "char";
+            case 'S': return "short";
+            case 'F': return "float";
+            case 'D': return "double";
+            default: throw new IllegalArgumentException("Malformed descriptor: " + descriptor);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
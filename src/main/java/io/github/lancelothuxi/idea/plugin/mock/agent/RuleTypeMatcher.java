@@ -0,0 +1,36 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+
+import java.util.function.Supplier;
+
+/**
+ * Matches types that have at least one enabled rule in the current {@link RuleIndex} or
+ * in a {@link MockScope} opened so far.
+ *
+ * The check is a hash lookup of the type name, so its cost does not grow with the number
+ * of rules, and it always reflects the latest published index.
+ */
+public final class RuleTypeMatcher extends ElementMatcher.Junction.AbstractBase<TypeDescription> {
+
+    private final Supplier<RuleIndex> index;
+
+    public RuleTypeMatcher(Supplier<RuleIndex> index) {
+        this.index = index;
+    }
+
+    @Override
+    public boolean matches(TypeDescription target) {
+        return matches(target.getName());
+    }
+
+    public boolean matches(String className) {
+        return index.get().getTargets().containsKey(className) || MockScope.targets(className) != null;
+    }
+
+    @Override
+    public String toString() {
+        return "hasMockRules()";
+    }
+}
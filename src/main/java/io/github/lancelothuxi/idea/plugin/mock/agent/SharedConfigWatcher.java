@@ -0,0 +1,92 @@
+package io.github.lancelothuxi.idea.plugin.mock.agent;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.SharedConfigFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+/**
+ * Follows the config published in a {@link SharedConfigFile} instead of watching the
+ * config file, for agents started with {@code shared=<file>}.
+ *
+ * Every JVM maps the same file, so a publish by the IDE reaches all of them at once,
+ * without file system events, debouncing or stat polling. The watcher thread only
+ * compares the mapped sequence number with the last one applied, one memory read every
+ * {@code sharedPoll} microseconds; the config is copied and parsed once per published
+ * version, and versions published in quick succession collapse into the latest.
+ *
+ * Options: {@code shared=<file>} and {@code sharedPoll=<microseconds>} (default 1000).
+ */
+final class SharedConfigWatcher {
+
+    private final Path file;
+    private final long pollNanos;
+    private final ConfigWatcher.Listener listener;
+    private SharedConfigFile.Reader reader;
+    private long applied;
+
+    SharedConfigWatcher(Path file, long pollMicros, ConfigWatcher.Listener listener) {
+        this.file = file;
+        this.pollNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(1, pollMicros));
+        this.listener = listener;
+    }
+
+    /**
+     * Maps the file and returns the config published in it, or {@code null} if the file
+     * does not exist or nothing was published yet; the agent then uses its config file.
+     */
+    byte[] open() {
+        try {
+            reader = SharedConfigFile.Reader.open(file);
+            SharedConfigFile.Snapshot snapshot = reader.read();
+            if (snapshot == null || snapshot.getVersion() == 0) {
+                return null;
+            }
+            applied = snapshot.getSequence();
+            MockAgent.LOG.info("[MockAgent] Loaded shared config version " + snapshot.getVersion() + " from " + file);
+            return snapshot.getContent();
+        } catch (IOException e) {
+            MockAgent.LOG.warning("[MockAgent] Cannot map shared config " + file + ", using the config file: "
+                + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Starts the daemon thread that applies every later version; {@link #open()} must have succeeded. */
+    void start() {
+        Thread watcher = new Thread(this::run, "mock-config-shared");
+        watcher.setDaemon(true);
+        watcher.start();
+        MockAgent.LOG.info("[MockAgent] Following shared config " + file + ", checked every "
+            + TimeUnit.NANOSECONDS.toMicros(pollNanos) + "us");
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(pollNanos);
+            if (reader.sequence() == applied) {
+                continue;
+            }
+            SharedConfigFile.Snapshot snapshot;
+            try {
+                snapshot = reader.read();
+            } catch (IOException e) {
+                MockAgent.LOG.warning("[MockAgent] Cannot read shared config " + file + ": " + e.getMessage());
+                continue;
+            }
+            if (snapshot == null) {
+                // Still being written; checked again on the next round
+                continue;
+            }
+            applied = snapshot.getSequence();
+            try {
+                listener.onChange(snapshot.getContent());
+            } catch (RuntimeException e) {
+                MockAgent.LOG.log(Level.WARNING, "[MockAgent] Error applying shared config", e);
+            }
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package io.github.lancelothuxi.idea.plugin.mock.extension;
 
 import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import io.github.lancelothuxi.idea.plugin.mock.service.InvocationEventServer;
 import io.github.lancelothuxi.idea.plugin.mock.service.MockConfigService;
+import io.github.lancelothuxi.idea.plugin.mock.service.SharedConfigService;
 import com.google.gson.Gson;
 import com.intellij.execution.ExecutionException;
 import com.intellij.execution.configurations.JavaParameters;
@@ -65,8 +67,16 @@ public class MockRunConfigurationExtension extends com.intellij.execution.RunCon
                 return;
             }
             
-            // 添加 javaagent 参数
+            // 添加 javaagent 参数；能发布共享配置时让 Agent 跟随共享文件，能监听时让 Agent 把调用统计推送到工具窗口
             String agentArg = "-javaagent:" + agentJarPath + "=" + configFile.getAbsolutePath();
+            String sharedConfig = SharedConfigService.getInstance(configuration.getProject()).publish(mockConfig);
+            if (sharedConfig != null) {
+                agentArg += ",shared=" + sharedConfig;
+            }
+            String eventSocket = InvocationEventServer.getInstance(configuration.getProject()).start();
+            if (eventSocket != null) {
+                agentArg += ",events=" + eventSocket;
+            }
             params.getVMParametersList().add(agentArg);
             
             LOG.info("========== Agent added successfully ==========");
@@ -2,6 +2,7 @@ package io.github.lancelothuxi.idea.plugin.mock.marker;
 
 import io.github.lancelothuxi.idea.plugin.mock.MockRunnerIcons;
 import io.github.lancelothuxi.idea.plugin.mock.service.MockConfigService;
+import io.github.lancelothuxi.idea.plugin.mock.util.MethodDescriptorUtil;
 import com.intellij.codeInsight.daemon.LineMarkerInfo;
 import com.intellij.codeInsight.daemon.LineMarkerProvider;
 import com.intellij.icons.AllIcons;
@@ -44,7 +45,7 @@ public class MockedMethodLineMarkerProvider implements LineMarkerProvider {
         String className = containingClass.getQualifiedName();
         String methodName = method.getName();
         
-        if (service != null && service.isMocked(className, methodName)) {
+        if (service != null && service.isMocked(className, methodName, MethodDescriptorUtil.getMethodDescriptor(method))) {
             // 创建图标标记
             return new LineMarkerInfo<>(
                 element,
@@ -0,0 +1,59 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按参数区分的响应：when 中的条件全部满足时，返回本分支的值或抛出本分支的异常
+ * 规则按顺序匹配各分支，都不满足时使用规则自身的返回值
+ */
+public class ArgumentCase implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<ArgumentCondition> when = new ArrayList<>();
+    private String returnValue;
+    private boolean throwException = false;
+    private String exceptionType = "java.lang.RuntimeException";
+    private String exceptionMessage = "Mocked exception";
+
+    public List<ArgumentCondition> getWhen() {
+        return when;
+    }
+
+    public void setWhen(List<ArgumentCondition> when) {
+        this.when = when;
+    }
+
+    public String getReturnValue() {
+        return returnValue;
+    }
+
+    public void setReturnValue(String returnValue) {
+        this.returnValue = returnValue;
+    }
+
+    public boolean isThrowException() {
+        return throwException;
+    }
+
+    public void setThrowException(boolean throwException) {
+        this.throwException = throwException;
+    }
+
+    public String getExceptionType() {
+        return exceptionType;
+    }
+
+    public void setExceptionType(String exceptionType) {
+        this.exceptionType = exceptionType;
+    }
+
+    public String getExceptionMessage() {
+        return exceptionMessage;
+    }
+
+    public void setExceptionMessage(String exceptionMessage) {
+        this.exceptionMessage = exceptionMessage;
+    }
+}
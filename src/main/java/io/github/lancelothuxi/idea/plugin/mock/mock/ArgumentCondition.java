@@ -0,0 +1,82 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+import java.io.Serializable;
+
+/**
+ * 参数条件：对某个参数（或参数中的某个属性）做一次判断
+ *
+ * 支持的 operator：
+ * eq / ne：等于、不等于（数字按数值比较，其它按字符串比较）
+ * gt / gte / lt / lte：大于、大于等于、小于、小于等于
+ * between：介于 min 和 max 之间（含边界）
+ * regex：字符串匹配正则 value
+ * isNull / notNull：为空、不为空
+ */
+public class ArgumentCondition implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // 参数下标，从 0 开始
+    private int index;
+    // 可选的属性路径，如 $.address.city 或 items[0].sku，为空时判断参数本身
+    private String path;
+    private String operator = "eq";
+    private String value;
+    private String min;
+    private String max;
+
+    public ArgumentCondition() {}
+
+    public ArgumentCondition(int index, String operator, String value) {
+        this.index = index;
+        this.operator = operator;
+        this.value = value;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public void setOperator(String operator) {
+        this.operator = operator;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public String getMin() {
+        return min;
+    }
+
+    public void setMin(String min) {
+        this.min = min;
+    }
+
+    public String getMax() {
+        return max;
+    }
+
+    public void setMax(String max) {
+        this.max = max;
+    }
+}
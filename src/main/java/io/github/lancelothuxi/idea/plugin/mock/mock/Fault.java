@@ -0,0 +1,47 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+import java.io.Serializable;
+
+/**
+ * 故障表中的一项：按 percent 的概率抛出指定异常
+ */
+public class Fault implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // 调用中抛出该异常的百分比，如 3 表示 3%
+    private double percent;
+    private String exceptionType = "java.lang.RuntimeException";
+    private String exceptionMessage = "Mocked exception";
+
+    public Fault() {}
+
+    public Fault(double percent, String exceptionType, String exceptionMessage) {
+        this.percent = percent;
+        this.exceptionType = exceptionType;
+        this.exceptionMessage = exceptionMessage;
+    }
+
+    public double getPercent() {
+        return percent;
+    }
+
+    public void setPercent(double percent) {
+        this.percent = percent;
+    }
+
+    public String getExceptionType() {
+        return exceptionType;
+    }
+
+    public void setExceptionType(String exceptionType) {
+        this.exceptionType = exceptionType;
+    }
+
+    public String getExceptionMessage() {
+        return exceptionMessage;
+    }
+
+    public void setExceptionMessage(String exceptionMessage) {
+        this.exceptionMessage = exceptionMessage;
+    }
+}
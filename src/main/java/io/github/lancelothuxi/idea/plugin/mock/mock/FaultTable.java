@@ -0,0 +1,45 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 概率故障表：每次调用按 faults 中的百分比随机抛出异常，
+ * 其余调用返回 Mock 值，passThrough 为 true 时改为执行原方法
+ *
+ * 例如 [3% TimeoutException, 1% IllegalStateException] 表示 3% 的调用超时、1% 的调用状态异常，
+ * 其余 96% 正常返回。百分比之和超过 100 时按比例缩小。
+ * 设置 seed 后每个线程的随机序列固定，便于复现
+ */
+public class FaultTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<Fault> faults = new ArrayList<>();
+    private boolean passThrough = false;
+    private Long seed;
+
+    public List<Fault> getFaults() {
+        return faults;
+    }
+
+    public void setFaults(List<Fault> faults) {
+        this.faults = faults;
+    }
+
+    public boolean isPassThrough() {
+        return passThrough;
+    }
+
+    public void setPassThrough(boolean passThrough) {
+        this.passThrough = passThrough;
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+}
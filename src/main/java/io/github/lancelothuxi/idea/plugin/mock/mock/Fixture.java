@@ -0,0 +1,70 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 外部返回值文件：规则的返回值从文件读取，而不是内联在配置中，适合几十 MB 的大型 JSON
+ *
+ * file 为文件路径，相对路径相对于 Agent 配置文件所在目录。
+ * sha256 为文件内容的哈希，由 IDE 保存配置时更新；文件内容变化时配置随之变化，运行中的 Agent 会重新加载。
+ * Agent 在第一次命中时才映射并解析文件
+ */
+public class Fixture implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String file;
+    private String sha256;
+
+    public Fixture() {}
+
+    public Fixture(String file, String sha256) {
+        this.file = file;
+        this.sha256 = sha256;
+    }
+
+    /**
+     * 计算文件内容的 SHA-256（十六进制），按块读取，不把整个文件读入内存
+     */
+    public static String hash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+}
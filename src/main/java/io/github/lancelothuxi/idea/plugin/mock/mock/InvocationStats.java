@@ -0,0 +1,110 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+/**
+ * 一条规则自 Agent 启动以来的调用统计，由 Agent 定期推送给 IDE（见 InvocationStatsCodec）
+ *
+ * 计数均为累计值，IDE 根据相邻两批的差值计算调用速率；
+ * 延迟单位为纳秒，没有样本时为 0：
+ * passThrough 为透传调用中原方法的耗时，injected 为命中 Mock 时实际注入的延迟
+ */
+public class InvocationStats {
+
+    private String ruleKey;
+    private long hits;
+    private long misses;
+    private long passThroughs;
+    private long exceptions;
+    private long passThroughP50Nanos;
+    private long passThroughP99Nanos;
+    private long injectedP50Nanos;
+    private long injectedP99Nanos;
+
+    public InvocationStats() {}
+
+    public InvocationStats(String ruleKey, long hits, long misses, long passThroughs, long exceptions) {
+        this.ruleKey = ruleKey;
+        this.hits = hits;
+        this.misses = misses;
+        this.passThroughs = passThroughs;
+        this.exceptions = exceptions;
+    }
+
+    /**
+     * 规则收到的调用总数（misses 与其他计数重叠，不计入）
+     */
+    public long getCalls() {
+        return hits + passThroughs + exceptions;
+    }
+
+    public String getRuleKey() {
+        return ruleKey;
+    }
+
+    public void setRuleKey(String ruleKey) {
+        this.ruleKey = ruleKey;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getPassThroughs() {
+        return passThroughs;
+    }
+
+    public void setPassThroughs(long passThroughs) {
+        this.passThroughs = passThroughs;
+    }
+
+    public long getExceptions() {
+        return exceptions;
+    }
+
+    public void setExceptions(long exceptions) {
+        this.exceptions = exceptions;
+    }
+
+    public long getPassThroughP50Nanos() {
+        return passThroughP50Nanos;
+    }
+
+    public void setPassThroughP50Nanos(long passThroughP50Nanos) {
+        this.passThroughP50Nanos = passThroughP50Nanos;
+    }
+
+    public long getPassThroughP99Nanos() {
+        return passThroughP99Nanos;
+    }
+
+    public void setPassThroughP99Nanos(long passThroughP99Nanos) {
+        this.passThroughP99Nanos = passThroughP99Nanos;
+    }
+
+    public long getInjectedP50Nanos() {
+        return injectedP50Nanos;
+    }
+
+    public void setInjectedP50Nanos(long injectedP50Nanos) {
+        this.injectedP50Nanos = injectedP50Nanos;
+    }
+
+    public long getInjectedP99Nanos() {
+        return injectedP99Nanos;
+    }
+
+    public void setInjectedP99Nanos(long injectedP99Nanos) {
+        this.injectedP99Nanos = injectedP99Nanos;
+    }
+}
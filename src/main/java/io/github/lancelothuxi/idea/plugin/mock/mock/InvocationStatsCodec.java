@@ -0,0 +1,177 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Agent 推送给 IDE 的调用统计批次的二进制格式，一条连接上依次写入多个帧：
+ *
+ * <pre>
+ * frame := int 长度, byte 版本, varlong pid, varlong 时间戳(毫秒), varint 条数, entry*
+ * entry := varint 规则编号, [UTF 规则 key，仅在该编号首次出现时], varlong × 8 个统计值
+ * </pre>
+ *
+ * 规则 key 只在每条连接上首次出现时发送一次，之后用编号引用；
+ * 数值使用无符号 LEB128 变长编码，未变化的小计数只占一个字节
+ */
+public final class InvocationStatsCodec {
+
+    private static final int VERSION = 1;
+    /** 单帧上限，防止读到损坏的长度时分配过大的数组 */
+    private static final int MAX_FRAME = 16 * 1024 * 1024;
+
+    private InvocationStatsCodec() {
+    }
+
+    /**
+     * 一批统计：发送方进程号、发送时间和本批包含的规则（只包含有变化的规则）
+     */
+    public static final class Batch {
+        private final long pid;
+        private final long timestamp;
+        private final List<InvocationStats> stats;
+
+        public Batch(long pid, long timestamp, List<InvocationStats> stats) {
+            this.pid = pid;
+            this.timestamp = timestamp;
+            this.stats = stats;
+        }
+
+        public long getPid() {
+            return pid;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public List<InvocationStats> getStats() {
+            return stats;
+        }
+    }
+
+    /**
+     * 编码端，每条连接一个实例，记录已发送过的规则 key
+     */
+    public static final class Writer {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+        private final DataOutputStream body = new DataOutputStream(buffer);
+
+        /**
+         * 把一批统计编码为一个完整的帧写入 out，调用方负责 flush
+         */
+        public void write(OutputStream out, Batch batch) throws IOException {
+            buffer.reset();
+            body.writeByte(VERSION);
+            writeVarLong(body, batch.getPid());
+            writeVarLong(body, batch.getTimestamp());
+            writeVarLong(body, batch.getStats().size());
+            for (InvocationStats stats : batch.getStats()) {
+                Integer id = ids.get(stats.getRuleKey());
+                if (id == null) {
+                    id = ids.size();
+                    ids.put(stats.getRuleKey(), id);
+                    writeVarLong(body, id);
+                    body.writeUTF(stats.getRuleKey());
+                } else {
+                    writeVarLong(body, id);
+                }
+                writeVarLong(body, stats.getHits());
+                writeVarLong(body, stats.getMisses());
+                writeVarLong(body, stats.getPassThroughs());
+                writeVarLong(body, stats.getExceptions());
+                writeVarLong(body, stats.getPassThroughP50Nanos());
+                writeVarLong(body, stats.getPassThroughP99Nanos());
+                writeVarLong(body, stats.getInjectedP50Nanos());
+                writeVarLong(body, stats.getInjectedP99Nanos());
+            }
+            body.flush();
+            DataOutputStream frame = new DataOutputStream(out);
+            frame.writeInt(buffer.size());
+            buffer.writeTo(frame);
+        }
+    }
+
+    /**
+     * 解码端，每条连接一个实例，与对端的 Writer 一一对应
+     */
+    public static final class Reader {
+        private final List<String> keys = new ArrayList<>();
+
+        /**
+         * 读取下一帧；连接在帧边界正常关闭时返回 null
+         */
+        public Batch read(InputStream in) throws IOException {
+            DataInputStream frame = new DataInputStream(in);
+            int length;
+            try {
+                length = frame.readInt();
+            } catch (EOFException e) {
+                return null;
+            }
+            if (length <= 0 || length > MAX_FRAME) {
+                throw new IOException("Invalid frame length: " + length);
+            }
+            byte[] bytes = new byte[length];
+            frame.readFully(bytes);
+            DataInputStream body = new DataInputStream(new ByteArrayInputStream(bytes));
+            int version = body.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported stats version: " + version);
+            }
+            long pid = readVarLong(body);
+            long timestamp = readVarLong(body);
+            int count = (int) readVarLong(body);
+            List<InvocationStats> stats = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                int id = (int) readVarLong(body);
+                if (id == keys.size()) {
+                    keys.add(body.readUTF());
+                } else if (id > keys.size()) {
+                    throw new IOException("Unknown rule id: " + id);
+                }
+                InvocationStats entry = new InvocationStats(keys.get(id),
+                    readVarLong(body), readVarLong(body), readVarLong(body), readVarLong(body));
+                entry.setPassThroughP50Nanos(readVarLong(body));
+                entry.setPassThroughP99Nanos(readVarLong(body));
+                entry.setInjectedP50Nanos(readVarLong(body));
+                entry.setInjectedP99Nanos(readVarLong(body));
+                stats.add(entry);
+            }
+            return new Batch(pid, timestamp, stats);
+        }
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        // 负数按 0 处理（如重置计数器时的竞争），保证编码长度有界
+        long v = Math.max(0, value);
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) (v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+import java.io.Serializable;
+
+/**
+ * 延迟注入配置：命中 Mock 后先等待一段时间再返回或抛出异常，用于模拟慢下游
+ *
+ * 支持的 type（时间单位均为毫秒）：
+ * fixed：固定等待 millis
+ * uniform：在 [min, max] 之间均匀分布
+ * normal：均值 mean、标准差 stddev 的正态分布，小于 0 时按 0 处理
+ * percentiles：按分位数表 p50 / p90 / p99 / p999 分布，分位数之间线性插值，
+ *              低于 p50 的部分从 min 插值到 p50，未填写的分位数忽略
+ */
+public class LatencyConfig implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String type = "fixed";
+    private double millis;
+    private double min;
+    private double max;
+    private double mean;
+    private double stddev;
+    private Double p50;
+    private Double p90;
+    private Double p99;
+    private Double p999;
+
+    public LatencyConfig() {}
+
+    public static LatencyConfig fixed(double millis) {
+        LatencyConfig config = new LatencyConfig();
+        config.setType("fixed");
+        config.setMillis(millis);
+        return config;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public double getMillis() {
+        return millis;
+    }
+
+    public void setMillis(double millis) {
+        this.millis = millis;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public void setMin(double min) {
+        this.min = min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public void setMax(double max) {
+        this.max = max;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public void setMean(double mean) {
+        this.mean = mean;
+    }
+
+    public double getStddev() {
+        return stddev;
+    }
+
+    public void setStddev(double stddev) {
+        this.stddev = stddev;
+    }
+
+    public Double getP50() {
+        return p50;
+    }
+
+    public void setP50(Double p50) {
+        this.p50 = p50;
+    }
+
+    public Double getP90() {
+        return p90;
+    }
+
+    public void setP90(Double p90) {
+        this.p90 = p90;
+    }
+
+    public Double getP99() {
+        return p99;
+    }
+
+    public void setP99(Double p99) {
+        this.p99 = p99;
+    }
+
+    public Double getP999() {
+        return p999;
+    }
+
+    public void setP999(Double p999) {
+        this.p999 = p999;
+    }
+}
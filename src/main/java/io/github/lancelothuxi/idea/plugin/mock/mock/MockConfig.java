@@ -12,18 +12,50 @@ import java.util.Map;
 public class MockConfig implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    // key: className.methodName, value: MockRule
-    private Map<String, MockRule> mockRules = new HashMap<>();
+    // key: className.methodName 或 className.methodName(参数描述符), value: MockRule
+    // 重建时整体替换为新 Map，读线程不会看到清空或填充到一半的规则
+    private volatile Map<String, MockRule> mockRules = new HashMap<>();
     private List<MockMethodConfig> mockMethods = new ArrayList<>();
 
-    public void addMockRule(String className, String methodName, MockRule rule) {
+    /**
+     * 生成规则 key。
+     * 没有描述符时为 className.methodName，匹配该方法的所有重载；
+     * 有 JVM 方法描述符（如 (Ljava/lang/String;I)Ljava/util/List;）时追加参数部分，
+     * 如 className.methodName(Ljava/lang/String;I)，只匹配该重载。
+     */
+    public static String ruleKey(String className, String methodName, String descriptor) {
         String key = className + "." + methodName;
-        mockRules.put(key, rule);
+        if (descriptor == null || descriptor.isEmpty()) {
+            return key;
+        }
+        int end = descriptor.indexOf(')');
+        if (!descriptor.startsWith("(") || end < 0) {
+            return key;
+        }
+        return key + descriptor.substring(0, end + 1);
+    }
+
+    public void addMockRule(String className, String methodName, MockRule rule) {
+        addMockRule(className, methodName, null, rule);
+    }
+
+    public void addMockRule(String className, String methodName, String descriptor, MockRule rule) {
+        mockRules.put(ruleKey(className, methodName, descriptor), rule);
     }
 
     public MockRule getMockRule(String className, String methodName) {
-        String key = className + "." + methodName;
-        return mockRules.get(key);
+        return mockRules.get(ruleKey(className, methodName, null));
+    }
+
+    /**
+     * 按描述符查找规则，找不到时回退到不区分重载的规则
+     */
+    public MockRule getMockRule(String className, String methodName, String descriptor) {
+        MockRule rule = mockRules.get(ruleKey(className, methodName, descriptor));
+        if (rule == null && descriptor != null && !descriptor.isEmpty()) {
+            rule = mockRules.get(ruleKey(className, methodName, null));
+        }
+        return rule;
     }
 
     public Map<String, MockRule> getAllRules() {
@@ -44,6 +76,22 @@ public class MockConfig implements Serializable {
         mockMethods.add(methodConfig);
 
         // 同时添加到 mockRules，供 Agent 使用
+        addMockRule(methodConfig.getClassName(), methodConfig.getMethodName(), methodConfig.getDescriptor(), toMockRule(methodConfig));
+    }
+    
+    /**
+     * 从 mockMethods 重建 mockRules
+     * 用于从持久化状态加载后同步数据
+     */
+    public void rebuildMockRules() {
+        Map<String, MockRule> rebuilt = new HashMap<>();
+        for (MockMethodConfig methodConfig : mockMethods) {
+            rebuilt.put(ruleKey(methodConfig.getClassName(), methodConfig.getMethodName(), methodConfig.getDescriptor()), toMockRule(methodConfig));
+        }
+        mockRules = rebuilt;
+    }
+    
+    private MockRule toMockRule(MockMethodConfig methodConfig) {
         // 使用配置中的 returnType，如果没有则推断
         String returnType = methodConfig.getReturnType();
         if (returnType == null || returnType.isEmpty()) {
@@ -57,32 +105,14 @@ public class MockConfig implements Serializable {
             methodConfig.getExceptionMessage()
         );
         rule.setEnabled(methodConfig.isEnabled());
-        addMockRule(methodConfig.getClassName(), methodConfig.getMethodName(), rule);
-    }
-    
-    /**
-     * 从 mockMethods 重建 mockRules
-     * 用于从持久化状态加载后同步数据
-     */
-    public void rebuildMockRules() {
-        mockRules.clear();
-        for (MockMethodConfig methodConfig : mockMethods) {
-            // 使用配置中的 returnType，如果没有则推断
-            String returnType = methodConfig.getReturnType();
-            if (returnType == null || returnType.isEmpty()) {
-                returnType = inferReturnType(methodConfig.getReturnValue());
-            }
-            System.out.println("[MockConfig] rebuildMockRules: " + methodConfig.getClassName() + "." + methodConfig.getMethodName() + " -> returnType: " + returnType);
-            MockRule rule = new MockRule(
-                methodConfig.getReturnValue(),
-                returnType,
-                methodConfig.isThrowException(),
-                methodConfig.getExceptionType(),
-                methodConfig.getExceptionMessage()
-            );
-            rule.setEnabled(methodConfig.isEnabled());
-            addMockRule(methodConfig.getClassName(), methodConfig.getMethodName(), rule);
-        }
+        rule.setCases(methodConfig.getCases());
+        rule.setSequence(methodConfig.getSequence());
+        rule.setLatency(methodConfig.getLatency());
+        rule.setFaults(methodConfig.getFaults());
+        rule.setRecord(methodConfig.isRecord());
+        rule.setReplay(methodConfig.getReplay());
+        rule.setFixture(methodConfig.getFixture());
+        return rule;
     }
     
     private String inferReturnType(String returnValue) {
@@ -105,20 +135,22 @@ public class MockConfig implements Serializable {
     }
 
     public void removeMockMethod(String className, String methodName, String signature) {
+        String targetKey = className + "." + methodName + signature;
         mockMethods.removeIf(m -> {
             String methodKey = m.getClassName() + "." + m.getMethodName() + m.getSignature();
-            String targetKey = className + "." + methodName + signature;
-            return methodKey.equals(targetKey);
+            if (methodKey.equals(targetKey)) {
+                // 同时从 mockRules 中删除该重载的规则
+                mockRules.remove(ruleKey(m.getClassName(), m.getMethodName(), m.getDescriptor()));
+                return true;
+            }
+            return false;
         });
-        
-        // 同时从 mockRules 中删除
-        String key = className + "." + methodName;
-        mockRules.remove(key);
     }
     
-    // 保留原有的方法以兼容现有代码
+    // 保留原有的方法以兼容现有代码：删除不区分重载的规则
     public void removeMockMethod(String className, String methodName) {
         removeMockMethod(className, methodName, "");
+        mockRules.remove(ruleKey(className, methodName, null));
     }
 
     public List<MockMethodConfig> getMockMethods() {
@@ -137,7 +169,7 @@ public class MockConfig implements Serializable {
     }
 
     public void clearAll() {
-        mockRules.clear();
+        mockRules = new HashMap<>();
         mockMethods.clear();
     }
 
@@ -150,6 +182,20 @@ public class MockConfig implements Serializable {
         private boolean throwException = false;
         private String exceptionType = "java.lang.RuntimeException";
         private String exceptionMessage = "Mocked exception";
+        // 按参数区分的响应，见 ArgumentCase
+        private List<ArgumentCase> cases = new ArrayList<>();
+        // 按调用次数变化的响应，见 ResponseSequence；为空时每次调用返回相同的值
+        private ResponseSequence sequence;
+        // 返回前注入的延迟，见 LatencyConfig；为空时立即返回
+        private LatencyConfig latency;
+        // 按概率抛出的异常，见 FaultTable；为空时不注入故障
+        private FaultTable faults;
+        // 录制模式：不 Mock，执行原方法并把真实返回值写入录制文件，见 Recording
+        private boolean record = false;
+        // 回放模式：按参数从录制文件中查找响应，见 ReplayConfig
+        private ReplayConfig replay;
+        // 外部返回值文件，见 Fixture；设置时代替 returnValue
+        private Fixture fixture;
 
         public MockRule() {}
 
@@ -166,6 +212,23 @@ public class MockConfig implements Serializable {
             this.exceptionMessage = exceptionMessage;
         }
 
+        /**
+         * 复制规则本身的字段，用于修改一条已发布的规则而不改动原对象。
+         * 参数用例列表会复制，其中的用例以及响应序列、延迟等嵌套配置与原规则共享，修改它们需要另外复制
+         */
+        public MockRule copy() {
+            MockRule copy = new MockRule(returnValue, returnType, throwException, exceptionType, exceptionMessage);
+            copy.enabled = enabled;
+            copy.cases = cases == null ? null : new ArrayList<>(cases);
+            copy.sequence = sequence;
+            copy.latency = latency;
+            copy.faults = faults;
+            copy.record = record;
+            copy.replay = replay;
+            copy.fixture = fixture;
+            return copy;
+        }
+
         public String getReturnValue() {
             return returnValue;
         }
@@ -213,5 +276,61 @@ public class MockConfig implements Serializable {
         public void setExceptionMessage(String exceptionMessage) {
             this.exceptionMessage = exceptionMessage;
         }
+        
+        public List<ArgumentCase> getCases() {
+            return cases;
+        }
+        
+        public void setCases(List<ArgumentCase> cases) {
+            this.cases = cases;
+        }
+        
+        public ResponseSequence getSequence() {
+            return sequence;
+        }
+        
+        public void setSequence(ResponseSequence sequence) {
+            this.sequence = sequence;
+        }
+        
+        public LatencyConfig getLatency() {
+            return latency;
+        }
+        
+        public void setLatency(LatencyConfig latency) {
+            this.latency = latency;
+        }
+        
+        public FaultTable getFaults() {
+            return faults;
+        }
+        
+        public void setFaults(FaultTable faults) {
+            this.faults = faults;
+        }
+        
+        public boolean isRecord() {
+            return record;
+        }
+        
+        public void setRecord(boolean record) {
+            this.record = record;
+        }
+        
+        public ReplayConfig getReplay() {
+            return replay;
+        }
+        
+        public void setReplay(ReplayConfig replay) {
+            this.replay = replay;
+        }
+        
+        public Fixture getFixture() {
+            return fixture;
+        }
+        
+        public void setFixture(Fixture fixture) {
+            this.fixture = fixture;
+        }
     }
 }
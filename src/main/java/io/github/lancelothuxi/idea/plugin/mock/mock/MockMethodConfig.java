@@ -1,6 +1,8 @@
 package io.github.lancelothuxi.idea.plugin.mock.mock;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 public class MockMethodConfig implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -8,12 +10,28 @@ public class MockMethodConfig implements Serializable {
     private String className;
     private String methodName;
     private String signature;
+    // JVM 方法描述符，如 (Ljava/lang/Long;)Ltest/dubbo/OrderDTO;，为空时匹配所有重载
+    private String descriptor;
     private String returnValue;
     private String returnType;
     private boolean enabled = true;
     private boolean throwException = false;
     private String exceptionType = "java.lang.RuntimeException";
     private String exceptionMessage = "Mocked exception";
+    // 按参数区分的响应，按顺序匹配，为空时总是使用上面的返回值
+    private List<ArgumentCase> cases = new ArrayList<>();
+    // 按调用次数变化的响应，为空时每次调用返回相同的值
+    private ResponseSequence sequence;
+    // 返回前注入的延迟，为空时立即返回
+    private LatencyConfig latency;
+    // 按概率抛出的异常，为空时不注入故障
+    private FaultTable faults;
+    // 录制模式：执行原方法并记录真实返回值，而不是返回 Mock 值
+    private boolean record = false;
+    // 回放模式：按参数从录制文件中查找真实返回值，为空时不回放
+    private ReplayConfig replay;
+    // 外部返回值文件，设置时代替 returnValue，配置中只保存路径和哈希
+    private Fixture fixture;
     
     public String getClassName() {
         return className;
@@ -39,6 +57,14 @@ public class MockMethodConfig implements Serializable {
         this.signature = signature;
     }
     
+    public String getDescriptor() {
+        return descriptor;
+    }
+    
+    public void setDescriptor(String descriptor) {
+        this.descriptor = descriptor;
+    }
+    
     public String getReturnValue() {
         return returnValue;
     }
@@ -87,6 +113,62 @@ public class MockMethodConfig implements Serializable {
         this.exceptionMessage = exceptionMessage;
     }
     
+    public List<ArgumentCase> getCases() {
+        return cases;
+    }
+    
+    public void setCases(List<ArgumentCase> cases) {
+        this.cases = cases;
+    }
+    
+    public ResponseSequence getSequence() {
+        return sequence;
+    }
+    
+    public void setSequence(ResponseSequence sequence) {
+        this.sequence = sequence;
+    }
+    
+    public LatencyConfig getLatency() {
+        return latency;
+    }
+    
+    public void setLatency(LatencyConfig latency) {
+        this.latency = latency;
+    }
+    
+    public FaultTable getFaults() {
+        return faults;
+    }
+    
+    public void setFaults(FaultTable faults) {
+        this.faults = faults;
+    }
+    
+    public boolean isRecord() {
+        return record;
+    }
+    
+    public void setRecord(boolean record) {
+        this.record = record;
+    }
+    
+    public ReplayConfig getReplay() {
+        return replay;
+    }
+    
+    public void setReplay(ReplayConfig replay) {
+        this.replay = replay;
+    }
+    
+    public Fixture getFixture() {
+        return fixture;
+    }
+    
+    public void setFixture(Fixture fixture) {
+        this.fixture = fixture;
+    }
+    
     public String getFullMethodName() {
         return className + "." + methodName + signature;
     }
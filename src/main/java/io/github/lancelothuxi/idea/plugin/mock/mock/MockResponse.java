@@ -0,0 +1,53 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+import java.io.Serializable;
+
+/**
+ * 单个响应：返回一个值或抛出一个异常，用于响应序列（见 ResponseSequence）
+ */
+public class MockResponse implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String returnValue;
+    private boolean throwException = false;
+    private String exceptionType = "java.lang.RuntimeException";
+    private String exceptionMessage = "Mocked exception";
+
+    public MockResponse() {}
+
+    public MockResponse(String returnValue) {
+        this.returnValue = returnValue;
+    }
+
+    public String getReturnValue() {
+        return returnValue;
+    }
+
+    public void setReturnValue(String returnValue) {
+        this.returnValue = returnValue;
+    }
+
+    public boolean isThrowException() {
+        return throwException;
+    }
+
+    public void setThrowException(boolean throwException) {
+        this.throwException = throwException;
+    }
+
+    public String getExceptionType() {
+        return exceptionType;
+    }
+
+    public void setExceptionType(String exceptionType) {
+        this.exceptionType = exceptionType;
+    }
+
+    public String getExceptionMessage() {
+        return exceptionMessage;
+    }
+
+    public void setExceptionMessage(String exceptionMessage) {
+        this.exceptionMessage = exceptionMessage;
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 录制模式下的一次真实调用，Agent 每次调用写一行 JSON 到录制文件（JSONL）
+ * 参数和返回值均为 JSON 字符串，格式与 MockMethodConfig.returnValue 相同
+ */
+public class Recording implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String className;
+    private String methodName;
+    // 参数列表的展示形式，如 (Long, int)
+    private String signature;
+    // JVM 方法描述符，如 (Ljava/lang/Long;I)Ltest/dubbo/OrderDTO;
+    private String descriptor;
+    // 声明的返回类型（含泛型），如 java.util.List<test.dubbo.OrderDTO>
+    private String returnType;
+    private List<String> args = new ArrayList<>();
+    private String returnValue;
+    private boolean throwException = false;
+    private String exceptionType;
+    private String exceptionMessage;
+    // 真实调用耗时（纳秒）
+    private long latencyNanos;
+    // 调用结束时间（毫秒时间戳）
+    private long timestamp;
+
+    public String getClassName() {
+        return className;
+    }
+
+    public void setClassName(String className) {
+        this.className = className;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public void setMethodName(String methodName) {
+        this.methodName = methodName;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public void setSignature(String signature) {
+        this.signature = signature;
+    }
+
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    public void setDescriptor(String descriptor) {
+        this.descriptor = descriptor;
+    }
+
+    public String getReturnType() {
+        return returnType;
+    }
+
+    public void setReturnType(String returnType) {
+        this.returnType = returnType;
+    }
+
+    public List<String> getArgs() {
+        return args;
+    }
+
+    public void setArgs(List<String> args) {
+        this.args = args;
+    }
+
+    public String getReturnValue() {
+        return returnValue;
+    }
+
+    public void setReturnValue(String returnValue) {
+        this.returnValue = returnValue;
+    }
+
+    public boolean isThrowException() {
+        return throwException;
+    }
+
+    public void setThrowException(boolean throwException) {
+        this.throwException = throwException;
+    }
+
+    public String getExceptionType() {
+        return exceptionType;
+    }
+
+    public void setExceptionType(String exceptionType) {
+        this.exceptionType = exceptionType;
+    }
+
+    public String getExceptionMessage() {
+        return exceptionMessage;
+    }
+
+    public void setExceptionMessage(String exceptionMessage) {
+        this.exceptionMessage = exceptionMessage;
+    }
+
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    public void setLatencyNanos(long latencyNanos) {
+        this.latencyNanos = latencyNanos;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把 Agent 录制的调用（JSONL，每行一个 Recording）转换为 MockMethodConfig
+ * 同一重载的多次调用合并为一条配置：返回值取最后一次调用，延迟取所有调用耗时的分位数
+ */
+public final class RecordingImporter {
+
+    private static final Gson GSON = new Gson();
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private RecordingImporter() {
+    }
+
+    /**
+     * 读取录制文件，跳过空行和无法解析的行（如进程退出时写了一半的最后一行）
+     */
+    public static List<Recording> read(Reader reader) throws IOException {
+        List<Recording> recordings = new ArrayList<>();
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                Recording recording = GSON.fromJson(line, Recording.class);
+                if (recording != null && recording.getClassName() != null && recording.getMethodName() != null) {
+                    recordings.add(recording);
+                }
+            } catch (JsonParseException e) {
+                // 忽略损坏的行
+            }
+        }
+        return recordings;
+    }
+
+    /**
+     * 按 类名 + 方法名 + 描述符 分组，每组生成一条 MockMethodConfig，顺序与首次调用顺序一致
+     */
+    public static List<MockMethodConfig> toMockMethods(List<Recording> recordings) {
+        Map<String, List<Recording>> groups = new LinkedHashMap<>();
+        for (Recording recording : recordings) {
+            String key = MockConfig.ruleKey(recording.getClassName(), recording.getMethodName(), recording.getDescriptor());
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(recording);
+        }
+        List<MockMethodConfig> methods = new ArrayList<>(groups.size());
+        for (List<Recording> group : groups.values()) {
+            methods.add(toMockMethod(group));
+        }
+        return methods;
+    }
+
+    private static MockMethodConfig toMockMethod(List<Recording> group) {
+        Recording latest = group.get(0);
+        for (Recording recording : group) {
+            if (recording.getTimestamp() >= latest.getTimestamp()) {
+                latest = recording;
+            }
+        }
+        MockMethodConfig config = new MockMethodConfig();
+        config.setClassName(latest.getClassName());
+        config.setMethodName(latest.getMethodName());
+        config.setSignature(latest.getSignature() == null ? "" : latest.getSignature());
+        config.setDescriptor(latest.getDescriptor());
+        config.setReturnType(latest.getReturnType());
+        if (latest.isThrowException()) {
+            config.setThrowException(true);
+            config.setExceptionType(latest.getExceptionType());
+            config.setExceptionMessage(latest.getExceptionMessage());
+        } else {
+            config.setReturnValue(latest.getReturnValue());
+        }
+        config.setLatency(latency(group));
+        return config;
+    }
+
+    /**
+     * 单次调用使用固定延迟，多次调用按录制耗时生成分位数表（最近秩法）
+     */
+    static LatencyConfig latency(List<Recording> group) {
+        long[] nanos = new long[group.size()];
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = Math.max(0, group.get(i).getLatencyNanos());
+        }
+        if (nanos.length == 1) {
+            return LatencyConfig.fixed(millis(nanos[0]));
+        }
+        Arrays.sort(nanos);
+        LatencyConfig latency = new LatencyConfig();
+        latency.setType("percentiles");
+        latency.setMin(millis(nanos[0]));
+        latency.setP50(millis(percentile(nanos, 0.5)));
+        latency.setP90(millis(percentile(nanos, 0.9)));
+        latency.setP99(millis(percentile(nanos, 0.99)));
+        latency.setP999(millis(percentile(nanos, 0.999)));
+        return latency;
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        // 保留微秒精度，避免配置中出现过长的小数
+        return Math.round(nanos / 1_000d) / 1_000d;
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+import java.io.Serializable;
+
+/**
+ * 回放配置：按参数序列化后的哈希在录制文件（见 Recording）中查找响应
+ *
+ * file 为录制文件路径，为空时使用 Agent 的录制文件，相对路径相对于录制文件所在目录（默认即配置文件所在目录）
+ * miss 为未命中时的策略：
+ * passthrough：执行原方法（接口方法没有原方法，按 default 处理）
+ * default：使用本规则自己的返回值、参数条件和调用序列
+ * fail：抛出 IllegalStateException
+ */
+public class ReplayConfig implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String file;
+    private String miss = "default";
+
+    public ReplayConfig() {}
+
+    public ReplayConfig(String file, String miss) {
+        this.file = file;
+        this.miss = miss;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public String getMiss() {
+        return miss;
+    }
+
+    public void setMiss(String miss) {
+        this.miss = miss;
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 响应序列：第 1 次调用返回 responses[0]，第 2 次返回 responses[1]，依此类推
+ *
+ * 支持的 policy：
+ * stop：到达最后一个响应后一直返回最后一个
+ * cycle：到达末尾后从头循环
+ * random：按 seed 伪随机选择，相同 seed 下第 N 次调用总是得到同一个响应
+ *
+ * 调用次数从配置加载（或重新加载）时开始计数
+ */
+public class ResponseSequence implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String policy = "stop";
+    private long seed;
+    private List<MockResponse> responses = new ArrayList<>();
+
+    public ResponseSequence() {}
+
+    public ResponseSequence(String policy, List<MockResponse> responses) {
+        this.policy = policy;
+        this.responses = responses;
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(String policy) {
+        this.policy = policy;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public List<MockResponse> getResponses() {
+        return responses;
+    }
+
+    public void setResponses(List<MockResponse> responses) {
+        this.responses = responses;
+    }
+}
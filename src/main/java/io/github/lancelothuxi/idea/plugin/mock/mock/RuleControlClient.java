@@ -0,0 +1,96 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+import com.google.gson.Gson;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Agent 控制端点（control 参数指定的 Unix domain socket）的客户端，不经过配置文件直接修改运行中进程的规则
+ *
+ * 协议按行传输 JSON，一行请求对应一行响应：
+ *
+ * <pre>
+ * 请求 {"deltas":[{"op":"put","key":"...","rule":{...}}, {"op":"disable","key":"..."}]}
+ * 响应 {"version":42} 或 {"error":"..."}
+ * </pre>
+ *
+ * 一个请求中的所有修改作为一个新版本整体生效，任何一条无效时都不生效。
+ * 连接可以复用，一个实例同一时间只发送一个请求
+ */
+public class RuleControlClient implements Closeable {
+    private static final Gson GSON = new Gson();
+
+    private final SocketChannel channel;
+    private final BufferedReader in;
+    private final BufferedWriter out;
+
+    private RuleControlClient(SocketChannel channel) {
+        this.channel = channel;
+        this.in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+        this.out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+    }
+
+    public static RuleControlClient connect(Path socket) throws IOException {
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new RuleControlClient(channel);
+    }
+
+    /**
+     * 应用一组修改，返回生效后的配置版本；Agent 拒绝时抛出 IOException
+     */
+    public synchronized long apply(RuleDelta... deltas) throws IOException {
+        return apply(Arrays.asList(deltas));
+    }
+
+    public synchronized long apply(List<RuleDelta> deltas) throws IOException {
+        Request request = new Request();
+        request.deltas = deltas;
+        out.write(GSON.toJson(request));
+        out.write('\n');
+        out.flush();
+        String line = in.readLine();
+        if (line == null) {
+            throw new IOException("Agent closed the control connection");
+        }
+        Response response = GSON.fromJson(line, Response.class);
+        if (response == null || response.error != null) {
+            throw new IOException("Agent rejected the change: " + (response == null ? line : response.error));
+        }
+        return response.version;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** 一行请求 */
+    public static class Request {
+        public List<RuleDelta> deltas;
+    }
+
+    /** 一行响应，成功时 error 为 null */
+    public static class Response {
+        public long version;
+        public String error;
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+/**
+ * 对运行中 Agent 规则的一次修改，通过 Agent 的控制端点发送（见 RuleControlClient）
+ *
+ * key 与 MockConfig 中的规则 key 相同，如 com.example.UserService.getUser 或带参数描述符的重载 key。
+ * put 新增或替换整条规则；enable、disable 只切换已有规则的开关；remove 删除规则
+ */
+public class RuleDelta {
+
+    public static final String PUT = "put";
+    public static final String ENABLE = "enable";
+    public static final String DISABLE = "disable";
+    public static final String REMOVE = "remove";
+
+    private String op;
+    private String key;
+    /** 仅 put 使用 */
+    private MockConfig.MockRule rule;
+
+    public RuleDelta() {
+    }
+
+    public RuleDelta(String op, String key, MockConfig.MockRule rule) {
+        this.op = op;
+        this.key = key;
+        this.rule = rule;
+    }
+
+    public static RuleDelta put(String key, MockConfig.MockRule rule) {
+        return new RuleDelta(PUT, key, rule);
+    }
+
+    public static RuleDelta enable(String key) {
+        return new RuleDelta(ENABLE, key, null);
+    }
+
+    public static RuleDelta disable(String key) {
+        return new RuleDelta(DISABLE, key, null);
+    }
+
+    public static RuleDelta remove(String key) {
+        return new RuleDelta(REMOVE, key, null);
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public void setOp(String op) {
+        this.op = op;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public MockConfig.MockRule getRule() {
+        return rule;
+    }
+
+    public void setRule(MockConfig.MockRule rule) {
+        this.rule = rule;
+    }
+
+    @Override
+    public String toString() {
+        return op + " " + key;
+    }
+}
@@ -0,0 +1,244 @@
+package io.github.lancelothuxi.idea.plugin.mock.mock;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 多个 JVM 共享的内存映射配置文件：IDE（或任意驱动进程）写入一次，所有挂载了 Agent 的进程直接从映射内存读取，
+ * 不需要各自监听、轮询和重新读取配置文件
+ *
+ * <pre>
+ * 0   long 魔数
+ * 8   long 序号，写入期间为奇数，写完为偶数，每次发布加 2
+ * 16  long 容量，头部之后可用的字节数，只增不减
+ * 24  long 长度，当前配置 JSON 的字节数
+ * 64  配置 JSON（UTF-8）
+ * </pre>
+ *
+ * 读写按顺序锁（seqlock）协议进行：读方在序号为偶数且读前读后序号相同时，读到的才是一次完整的发布，
+ * 否则重试；写方从不等待读方。文件只会原地扩容、不会被替换，所以读方的映射始终指向同一个文件
+ */
+public final class SharedConfigFile {
+
+    private static final int HEADER = 64;
+    private static final long MAGIC = 0x4d52_5348_4346_0001L;
+    private static final int MAGIC_AT = 0;
+    private static final int SEQUENCE_AT = 8;
+    private static final int CAPACITY_AT = 16;
+    private static final int LENGTH_AT = 24;
+    private static final long MIN_CAPACITY = 64 * 1024;
+    /** 读方放弃本次读取前的重试次数，写方正在写或写到一半崩溃时，下次检查再读 */
+    private static final int READ_ATTEMPTS = 1000;
+    /** 按 long 原子读写映射内存，并提供 acquire/release 语义 */
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private SharedConfigFile() {
+    }
+
+    /**
+     * 写方，同一文件同一时间只应有一个
+     */
+    public static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+        private long capacity;
+        private byte[] published;
+
+        /**
+         * 打开或创建文件。已有的有效文件原地复用并保留序号，已挂载的 Agent 会继续收到之后的发布
+         */
+        public Writer(Path path) throws IOException {
+            if (path.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(path.toAbsolutePath().getParent());
+            }
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+            try {
+                long size = channel.size();
+                if (size < HEADER + MIN_CAPACITY) {
+                    extend(HEADER + MIN_CAPACITY);
+                    size = HEADER + MIN_CAPACITY;
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                capacity = size - HEADER;
+                long sequence = (long) LONGS.getVolatile(buffer, SEQUENCE_AT);
+                if ((long) LONGS.getVolatile(buffer, MAGIC_AT) != MAGIC || sequence < 0) {
+                    sequence = 0;
+                    LONGS.setVolatile(buffer, LENGTH_AT, 0L);
+                }
+                // 上一个写方写到一半退出时序号停在奇数，补成偶数，之后的发布照常进行
+                LONGS.setVolatile(buffer, SEQUENCE_AT, (sequence + 1) & ~1L);
+                LONGS.setVolatile(buffer, CAPACITY_AT, capacity);
+                LONGS.setVolatile(buffer, MAGIC_AT, MAGIC);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * 发布一份配置，与上次发布的内容相同时不做任何事，返回是否发布了新版本
+         */
+        public synchronized boolean publish(byte[] content) throws IOException {
+            if (published != null && Arrays.equals(published, content)) {
+                return false;
+            }
+            long sequence = (long) LONGS.getVolatile(buffer, SEQUENCE_AT);
+            LONGS.setOpaque(buffer, SEQUENCE_AT, sequence + 1);
+            // 奇数序号必须先于内容对读方可见
+            VarHandle.storeStoreFence();
+            try {
+                if (content.length > capacity) {
+                    grow(content.length);
+                }
+                ByteBuffer payload = buffer.duplicate();
+                payload.position(HEADER);
+                payload.put(content);
+                LONGS.setOpaque(buffer, LENGTH_AT, (long) content.length);
+            } finally {
+                // 内容必须先于偶数序号对读方可见；扩容失败时旧内容未被改动，仍然发布为完整版本
+                LONGS.setRelease(buffer, SEQUENCE_AT, sequence + 2);
+            }
+            published = content.clone();
+            return true;
+        }
+
+        /**
+         * 已发布的版本数，与读方看到的 {@link Snapshot#getVersion()} 一致
+         */
+        public long getVersion() {
+            return (long) LONGS.getAcquire(buffer, SEQUENCE_AT) / 2;
+        }
+
+        private void grow(long needed) throws IOException {
+            long grown = Math.max(capacity * 2, Long.highestOneBit(needed) << 1);
+            extend(HEADER + grown);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + grown);
+            capacity = grown;
+            LONGS.setOpaque(buffer, CAPACITY_AT, capacity);
+        }
+
+        private void extend(long size) throws IOException {
+            channel.write(ByteBuffer.allocate(1), size - 1);
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            buffer.force();
+            channel.close();
+        }
+    }
+
+    /**
+     * 读方，只读映射文件，不持有文件句柄。不是线程安全的，每个使用者一个实例
+     */
+    public static final class Reader {
+        private final Path path;
+        private MappedByteBuffer buffer;
+        private long mapped;
+
+        private Reader(Path path, MappedByteBuffer buffer, long mapped) {
+            this.path = path;
+            this.buffer = buffer;
+            this.mapped = mapped;
+        }
+
+        /**
+         * 映射一个已由写方创建的文件；文件不存在或不是共享配置文件时抛出 IOException
+         */
+        public static Reader open(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < HEADER) {
+                    throw new IOException("Not a shared config file: " + path);
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if ((long) LONGS.getVolatile(buffer, MAGIC_AT) != MAGIC) {
+                    throw new IOException("Not a shared config file: " + path);
+                }
+                return new Reader(path, buffer, size - HEADER);
+            }
+        }
+
+        /**
+         * 当前序号，只是一次内存读取，可以高频调用；与上次读到的快照序号不同说明有新的发布
+         */
+        public long sequence() {
+            return (long) LONGS.getAcquire(buffer, SEQUENCE_AT);
+        }
+
+        /**
+         * 读取一次完整的发布；还没有发布过时返回内容为空的快照，写方一直在写时返回 null
+         */
+        public Snapshot read() throws IOException {
+            for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+                long before = (long) LONGS.getAcquire(buffer, SEQUENCE_AT);
+                if ((before & 1) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                long capacity = (long) LONGS.getOpaque(buffer, CAPACITY_AT);
+                if (capacity > mapped) {
+                    remap(capacity);
+                    continue;
+                }
+                long length = (long) LONGS.getOpaque(buffer, LENGTH_AT);
+                byte[] content = null;
+                if (length >= 0 && length <= capacity) {
+                    content = new byte[(int) length];
+                    ByteBuffer payload = buffer.duplicate();
+                    payload.position(HEADER);
+                    payload.get(content);
+                }
+                // 内容必须在再次读取序号之前读完
+                VarHandle.loadLoadFence();
+                if (content != null && (long) LONGS.getVolatile(buffer, SEQUENCE_AT) == before) {
+                    return new Snapshot(before, content);
+                }
+            }
+            return null;
+        }
+
+        private void remap(long capacity) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER + capacity);
+                mapped = capacity;
+            }
+        }
+    }
+
+    /**
+     * 一次完整发布的内容及其序号
+     */
+    public static final class Snapshot {
+        private final long sequence;
+        private final byte[] content;
+
+        Snapshot(long sequence, byte[] content) {
+            this.sequence = sequence;
+            this.content = content;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        /** 第几次发布，从未发布过时为 0 */
+        public long getVersion() {
+            return sequence / 2;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package io.github.lancelothuxi.idea.plugin.mock.service;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.InvocationStats;
+import io.github.lancelothuxi.idea.plugin.mock.mock.InvocationStatsCodec;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 接收 Agent 推送的调用统计（见 InvocationStatsCodec），供工具窗口的 Live 页展示
+ *
+ * 在 Unix domain socket 上监听，路径通过 events 参数传给 Agent；
+ * 每个被运行的进程一条连接，每条连接一个读线程。
+ * 每个进程的每条规则只保留最新的一行统计，总行数有上限，所以内存与调用量无关；
+ * 新的运行连上来时，已结束进程的数据被清除
+ */
+public class InvocationEventServer implements Disposable {
+    private static final Logger LOG = Logger.getInstance(InvocationEventServer.class);
+    /** 最多保留的行数，超出后新出现的规则不再显示 */
+    private static final int MAX_ROWS = 2000;
+
+    private final Project project;
+    private final Map<String, Row> rows = new ConcurrentHashMap<>();
+    private final Set<Long> connected = ConcurrentHashMap.newKeySet();
+    /** 每次数据变化加一，界面据此判断是否需要刷新 */
+    private final AtomicLong version = new AtomicLong();
+    private ServerSocketChannel server;
+    private Path socketPath;
+
+    public InvocationEventServer(Project project) {
+        this.project = project;
+    }
+
+    public static InvocationEventServer getInstance(Project project) {
+        return project.getService(InvocationEventServer.class);
+    }
+
+    /**
+     * 开始监听（已在监听时直接返回），返回 socket 路径；无法监听时返回 null，此时运行不带实时统计
+     */
+    public synchronized String start() {
+        if (server != null && server.isOpen()) {
+            return socketPath.toString();
+        }
+        Path path = Paths.get(System.getProperty("java.io.tmpdir"), "mock-runner",
+            "events-" + Integer.toHexString(project.getLocationHash().hashCode()) + ".sock");
+        try {
+            Files.createDirectories(path.getParent());
+            // 上次 IDE 异常退出时留下的 socket 文件
+            Files.deleteIfExists(path);
+            ServerSocketChannel opened = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            opened.bind(UnixDomainSocketAddress.of(path));
+            server = opened;
+            socketPath = path;
+            ApplicationManager.getApplication().executeOnPooledThread(() -> accept(opened));
+            LOG.info("Listening for invocation stats on " + path);
+            return path.toString();
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Cannot listen for invocation stats on " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void accept(ServerSocketChannel opened) {
+        while (opened.isOpen()) {
+            try {
+                SocketChannel channel = opened.accept();
+                ApplicationManager.getApplication().executeOnPooledThread(() -> read(channel));
+            } catch (IOException e) {
+                if (opened.isOpen()) {
+                    LOG.warn("Stopped accepting invocation stats: " + e.getMessage());
+                }
+                return;
+            }
+        }
+    }
+
+    private void read(SocketChannel channel) {
+        InvocationStatsCodec.Reader reader = new InvocationStatsCodec.Reader();
+        long pid = -1;
+        try (InputStream in = new BufferedInputStream(Channels.newInputStream(channel), 8192)) {
+            InvocationStatsCodec.Batch batch;
+            while ((batch = reader.read(in)) != null) {
+                if (batch.getPid() != pid) {
+                    pid = batch.getPid();
+                    connected(pid);
+                }
+                update(batch);
+            }
+        } catch (IOException e) {
+            LOG.debug("Invocation stats connection closed: " + e.getMessage());
+        } finally {
+            if (pid >= 0) {
+                connected.remove(pid);
+            }
+            version.incrementAndGet();
+        }
+    }
+
+    private void connected(long pid) {
+        connected.add(pid);
+        rows.values().removeIf(row -> row.pid != pid && !connected.contains(row.pid));
+    }
+
+    private void update(InvocationStatsCodec.Batch batch) {
+        for (InvocationStats stats : batch.getStats()) {
+            String id = batch.getPid() + ":" + stats.getRuleKey();
+            Row row = rows.get(id);
+            if (row == null && rows.size() >= MAX_ROWS) {
+                continue;
+            }
+            rows.put(id, row == null
+                ? new Row(batch.getPid(), stats, batch.getTimestamp())
+                : row.next(stats, batch.getTimestamp()));
+        }
+        version.incrementAndGet();
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 当前所有行，按进程和规则 key 排序
+     */
+    public List<Row> snapshot() {
+        List<Row> snapshot = new ArrayList<>(rows.values());
+        snapshot.sort(Comparator.comparingLong((Row row) -> row.pid).thenComparing(row -> row.stats.getRuleKey()));
+        return snapshot;
+    }
+
+    public void clear() {
+        rows.clear();
+        version.incrementAndGet();
+    }
+
+    @Override
+    public synchronized void dispose() {
+        if (server != null) {
+            try {
+                server.close();
+                Files.deleteIfExists(socketPath);
+            } catch (IOException e) {
+                LOG.debug("Failed to close invocation stats socket: " + e.getMessage());
+            }
+            server = null;
+        }
+    }
+
+    /**
+     * 一个进程中一条规则的最新统计；不可变，每批数据替换整行。
+     * 调用速率按至少 1 秒的窗口计算，避免 100ms 一批带来的抖动
+     */
+    public static final class Row {
+        private static final long RATE_WINDOW_MILLIS = 1000;
+
+        private final long pid;
+        private final InvocationStats stats;
+        private final long updatedAt;
+        private final long windowStart;
+        private final long windowCalls;
+        private final double callsPerSecond;
+
+        Row(long pid, InvocationStats stats, long timestamp) {
+            this(pid, stats, timestamp, timestamp, stats.getCalls(), 0);
+        }
+
+        private Row(long pid, InvocationStats stats, long updatedAt,
+                    long windowStart, long windowCalls, double callsPerSecond) {
+            this.pid = pid;
+            this.stats = stats;
+            this.updatedAt = updatedAt;
+            this.windowStart = windowStart;
+            this.windowCalls = windowCalls;
+            this.callsPerSecond = callsPerSecond;
+        }
+
+        Row next(InvocationStats next, long timestamp) {
+            long elapsed = timestamp - windowStart;
+            if (elapsed < RATE_WINDOW_MILLIS) {
+                return new Row(pid, next, timestamp, windowStart, windowCalls, callsPerSecond);
+            }
+            // 计数器被重置时差值为负，按 0 处理
+            double rate = Math.max(0, next.getCalls() - windowCalls) * 1000d / elapsed;
+            return new Row(pid, next, timestamp, timestamp, next.getCalls(), rate);
+        }
+
+        public long getPid() {
+            return pid;
+        }
+
+        public InvocationStats getStats() {
+            return stats;
+        }
+
+        /**
+         * 最近的调用速率；Agent 只推送有变化的规则，一段时间没有新数据说明已经没有调用
+         */
+        public double getCallsPerSecond(long now) {
+            return now - updatedAt > 2 * RATE_WINDOW_MILLIS ? 0 : callsPerSecond;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package io.github.lancelothuxi.idea.plugin.mock.service;
 
+import io.github.lancelothuxi.idea.plugin.mock.mock.Fixture;
 import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
 import io.github.lancelothuxi.idea.plugin.mock.mock.MockMethodConfig;
 import io.github.lancelothuxi.idea.plugin.mock.ui.MockRunnerToolWindowContent;
@@ -24,6 +25,8 @@ public class MockConfigService implements PersistentStateComponent<MockConfigSer
     private static final Logger LOG = Logger.getInstance(MockConfigService.class);
     private final Project project;
     private MockConfig mockConfig;
+    // 外部返回值文件的哈希缓存：路径 -> "大小@修改时间:哈希"，文件未变化时不重新读取大文件
+    private final java.util.Map<String, String> fixtureHashes = new java.util.HashMap<>();
     
     public MockConfigService(Project project) {
         this.project = project;
@@ -46,17 +49,58 @@ public class MockConfigService implements PersistentStateComponent<MockConfigSer
             if (configFile.getParentFile() != null) {
                 configFile.getParentFile().mkdirs();
             }
+            refreshFixtures();
             mockConfig.rebuildMockRules();
             Gson gson = new GsonBuilder().setPrettyPrinting().create();
             try (java.io.FileWriter writer = new java.io.FileWriter(configFile)) {
                 gson.toJson(mockConfig, writer);
             }
             LOG.info("Config saved to: " + configFile.getAbsolutePath());
+            // 以共享配置启动的进程从共享文件获取修改
+            SharedConfigService.getInstance(project).publish(mockConfig);
         } catch (Exception e) {
             LOG.error("Failed to save config to temp file: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * 更新外部返回值文件的哈希：文件内容变化后配置随之变化，运行中的 Agent 会重新加载该规则
+     */
+    private void refreshFixtures() {
+        for (MockMethodConfig method : mockConfig.getMockMethods()) {
+            Fixture fixture = method.getFixture();
+            if (fixture == null || fixture.getFile() == null || fixture.getFile().isEmpty()) {
+                continue;
+            }
+            java.nio.file.Path path = java.nio.file.Paths.get(fixture.getFile());
+            try {
+                String cacheKey = path.toAbsolutePath().toString();
+                String stamp = java.nio.file.Files.size(path) + "@" + java.nio.file.Files.getLastModifiedTime(path).toMillis() + ":";
+                String cached = fixtureHashes.get(cacheKey);
+                if (cached == null || !cached.startsWith(stamp)) {
+                    cached = stamp + Fixture.hash(path);
+                    fixtureHashes.put(cacheKey, cached);
+                }
+                fixture.setSha256(cached.substring(stamp.length()));
+            } catch (java.io.IOException e) {
+                LOG.warn("Cannot read fixture " + fixture.getFile() + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 让规则从外部文件返回值，配置中只保存路径和哈希；file 为 null 时改回内联返回值
+     */
+    public void setFixture(MockMethodConfig method, String file) {
+        if (file == null) {
+            method.setFixture(null);
+            return;
+        }
+        method.setFixture(new Fixture(file, null));
+        method.setReturnValue(null);
+        refreshFixtures();
+    }
+    
     // 持久化状态类
     public static class State {
         public String mockConfigJson;
@@ -66,9 +110,9 @@ public class MockConfigService implements PersistentStateComponent<MockConfigSer
     @Override
     public State getState() {
         State state = new State();
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
-        state.mockConfigJson = gson.toJson(mockConfig);
-        LOG.info("Saving state: " + state.mockConfigJson);
+        // 每次保存都会序列化，不格式化输出；大型返回值应放在外部文件中（见 Fixture）
+        state.mockConfigJson = new Gson().toJson(mockConfig);
+        LOG.debug("Saving state: " + state.mockConfigJson.length() + " chars");
         return state;
     }
     
@@ -81,7 +125,7 @@ public class MockConfigService implements PersistentStateComponent<MockConfigSer
                 if (mockConfig == null) {
                     mockConfig = new MockConfig();
                 }
-                LOG.info("Loaded state: " + state.mockConfigJson);
+                LOG.info("Loaded state: " + mockConfig.getMockMethods().size() + " mock methods");
                 
                 // 重建 mockRules（从 mockMethods 同步）
                 mockConfig.rebuildMockRules();
@@ -108,6 +152,16 @@ public class MockConfigService implements PersistentStateComponent<MockConfigSer
     
     public void addMockMethod(String className, String methodName, String signature, String returnValue, String returnType,
                               boolean throwException, String exceptionType, String exceptionMessage) {
+        addMockMethod(className, methodName, signature, null, returnValue, returnType,
+                      throwException, exceptionType, exceptionMessage);
+    }
+    
+    /**
+     * @param descriptor JVM 方法描述符，Agent 据此只拦截该重载；为 null 时拦截同名的所有重载
+     */
+    public void addMockMethod(String className, String methodName, String signature, String descriptor,
+                              String returnValue, String returnType,
+                              boolean throwException, String exceptionType, String exceptionMessage) {
         // 检查是否已存在相同的mock配置
         if (mockConfig.hasMockMethod(className, methodName, signature)) {
             LOG.info("Mock method already exists, updating: " + className + "." + methodName + signature);
@@ -117,6 +171,7 @@ public class MockConfigService implements PersistentStateComponent<MockConfigSer
         methodConfig.setClassName(className);
         methodConfig.setMethodName(methodName);
         methodConfig.setSignature(signature);
+        methodConfig.setDescriptor(descriptor);
         methodConfig.setReturnValue(returnValue);
         methodConfig.setReturnType(returnType);
         methodConfig.setThrowException(throwException);
@@ -188,6 +243,15 @@ public class MockConfigService implements PersistentStateComponent<MockConfigSer
         return mockConfig.getMockMethods().stream()
             .anyMatch(m -> m.getClassName().equals(className) && m.getMethodName().equals(methodName));
     }
+    
+    /**
+     * 判断某个重载是否被 Mock；没有描述符的旧配置对所有同名重载生效
+     */
+    public boolean isMocked(String className, String methodName, String descriptor) {
+        return mockConfig.getMockMethods().stream()
+            .anyMatch(m -> m.getClassName().equals(className) && m.getMethodName().equals(methodName)
+                && (m.getDescriptor() == null || m.getDescriptor().isEmpty() || m.getDescriptor().equals(descriptor)));
+    }
 
     private void refreshEditors() {
         // 刷新所有打开的编辑器，让 LineMarker 更新
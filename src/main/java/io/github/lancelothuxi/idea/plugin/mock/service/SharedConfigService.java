@@ -0,0 +1,70 @@
+package io.github.lancelothuxi.idea.plugin.mock.service;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import io.github.lancelothuxi.idea.plugin.mock.mock.SharedConfigFile;
+import com.google.gson.Gson;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 把 Mock 配置发布到内存映射的共享配置文件（见 SharedConfigFile），路径通过 shared 参数传给 Agent
+ *
+ * 同一个项目启动的所有进程（例如 Gradle fork 出的多个测试 JVM）映射同一个文件，
+ * 配置修改后只写一次，各进程不再各自监听和重新读取配置文件；内容未变化时不发布新版本
+ */
+public class SharedConfigService implements Disposable {
+    private static final Logger LOG = Logger.getInstance(SharedConfigService.class);
+
+    private final Project project;
+    private SharedConfigFile.Writer writer;
+    private Path path;
+
+    public SharedConfigService(Project project) {
+        this.project = project;
+    }
+
+    public static SharedConfigService getInstance(Project project) {
+        return project.getService(SharedConfigService.class);
+    }
+
+    /**
+     * 发布当前配置，返回共享文件路径；无法创建共享文件时返回 null，此时 Agent 只使用配置文件
+     */
+    public synchronized String publish(MockConfig mockConfig) {
+        try {
+            if (writer == null) {
+                Path file = Paths.get(System.getProperty("java.io.tmpdir"), "mock-runner",
+                    "config-" + Integer.toHexString(project.getLocationHash().hashCode()) + ".shm");
+                writer = new SharedConfigFile.Writer(file);
+                path = file;
+            }
+            byte[] content = new Gson().toJson(mockConfig).getBytes(StandardCharsets.UTF_8);
+            if (writer.publish(content)) {
+                LOG.info("Published shared config version " + writer.getVersion() + " to " + path);
+            }
+            return path.toString();
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Cannot publish shared config: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void dispose() {
+        if (writer != null) {
+            try {
+                // 文件保留，仍在运行的进程继续使用最后发布的配置
+                writer.close();
+            } catch (IOException e) {
+                LOG.debug("Failed to close shared config: " + e.getMessage());
+            }
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package io.github.lancelothuxi.idea.plugin.mock.ui;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.InvocationStats;
+import io.github.lancelothuxi.idea.plugin.mock.service.InvocationEventServer;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 工具窗口的 Live 页：运行中进程每条规则的调用计数、速率和延迟
+ *
+ * 数据由 InvocationEventServer 在后台线程接收，界面只由一个 100ms 的 Swing Timer 刷新，
+ * 且只在数据有变化时刷新，所以无论调用量多大，EDT 每秒最多更新 10 次
+ */
+public class LiveStatsPanel implements Disposable {
+    private static final int REFRESH_MILLIS = 100;
+    /** 没有新数据时也定期刷新，让停止调用的规则速率归零 */
+    private static final long IDLE_REFRESH_MILLIS = 1000;
+
+    private final InvocationEventServer server;
+    private final JPanel contentPanel;
+    private final LiveTableModel tableModel = new LiveTableModel();
+    private final JLabel statusLabel = new JLabel("Waiting for a run with mocks...");
+    private final Timer timer;
+    private long shownVersion = -1;
+    private long shownAt;
+
+    public LiveStatsPanel(Project project) {
+        this.server = InvocationEventServer.getInstance(project);
+        contentPanel = new JPanel(new BorderLayout());
+
+        JBTable table = new JBTable(tableModel);
+        table.setAutoCreateRowSorter(true);
+        contentPanel.add(new JBScrollPane(table), BorderLayout.CENTER);
+
+        JPanel toolbarPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JButton clearButton = new JButton("Clear");
+        clearButton.addActionListener(e -> server.clear());
+        toolbarPanel.add(clearButton);
+        toolbarPanel.add(Box.createHorizontalStrut(20));
+        toolbarPanel.add(statusLabel);
+        contentPanel.add(toolbarPanel, BorderLayout.NORTH);
+
+        timer = new Timer(REFRESH_MILLIS, e -> refreshIfChanged());
+        timer.start();
+    }
+
+    public JPanel getContentPanel() {
+        return contentPanel;
+    }
+
+    private void refreshIfChanged() {
+        long version = server.getVersion();
+        long now = System.currentTimeMillis();
+        if (version == shownVersion && (tableModel.getRowCount() == 0 || now - shownAt < IDLE_REFRESH_MILLIS)) {
+            return;
+        }
+        shownVersion = version;
+        shownAt = now;
+        List<InvocationEventServer.Row> rows = server.snapshot();
+        tableModel.setRows(rows, now);
+        long calls = 0;
+        for (InvocationEventServer.Row row : rows) {
+            calls += row.getStats().getCalls();
+        }
+        statusLabel.setText(rows.isEmpty() ? "Waiting for a run with mocks..." : "Rules: " + rows.size() + ", calls: " + calls);
+    }
+
+    @Override
+    public void dispose() {
+        timer.stop();
+    }
+
+    private static String millis(long p50Nanos, long p99Nanos) {
+        if (p50Nanos == 0 && p99Nanos == 0) {
+            return "";
+        }
+        return String.format(Locale.ROOT, "%.2f / %.2f", p50Nanos / 1_000_000d, p99Nanos / 1_000_000d);
+    }
+
+    private static class LiveTableModel extends AbstractTableModel {
+        private final String[] columnNames = {"PID", "Rule", "Hits", "Exceptions", "Pass-through", "Misses",
+            "Calls/s", "Real p50 / p99 (ms)", "Injected p50 / p99 (ms)"};
+        private List<InvocationEventServer.Row> rows = new ArrayList<>();
+        private long now;
+
+        void setRows(List<InvocationEventServer.Row> rows, long now) {
+            this.rows = rows;
+            this.now = now;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columnNames.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columnNames[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            switch (columnIndex) {
+                case 1:
+                case 7:
+                case 8:
+                    return String.class;
+                case 6:
+                    return Double.class;
+                default:
+                    return Long.class;
+            }
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            InvocationEventServer.Row row = rows.get(rowIndex);
+            InvocationStats stats = row.getStats();
+            switch (columnIndex) {
+                case 0: return row.getPid();
+                case 1: return stats.getRuleKey();
+                case 2: return stats.getHits();
+                case 3: return stats.getExceptions();
+                case 4: return stats.getPassThroughs();
+                case 5: return stats.getMisses();
+                case 6: return Math.round(row.getCallsPerSecond(now) * 10) / 10d;
+                case 7: return millis(stats.getPassThroughP50Nanos(), stats.getPassThroughP99Nanos());
+                case 8: return millis(stats.getInjectedP50Nanos(), stats.getInjectedP99Nanos());
+                default: return null;
+            }
+        }
+    }
+}
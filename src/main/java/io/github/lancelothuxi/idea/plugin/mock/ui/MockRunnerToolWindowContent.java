@@ -2,9 +2,15 @@ package io.github.lancelothuxi.idea.plugin.mock.ui;
 
 import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
 import io.github.lancelothuxi.idea.plugin.mock.mock.MockMethodConfig;
+import io.github.lancelothuxi.idea.plugin.mock.mock.RecordingImporter;
+import io.github.lancelothuxi.idea.plugin.mock.mock.ReplayConfig;
 import io.github.lancelothuxi.idea.plugin.mock.service.MockConfigService;
+import com.intellij.openapi.fileChooser.FileChooser;
+import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.ui.components.JBScrollPane;
 import com.intellij.ui.components.JBTextField;
 import com.intellij.ui.table.JBTable;
@@ -16,6 +22,11 @@ import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -67,7 +78,7 @@ public class MockRunnerToolWindowContent {
                 mockTable.getColumnModel().getColumn(5).setPreferredWidth(300); // Value
                 
                 // 设置Mode列的下拉编辑器
-                JComboBox<String> modeCombo = new JComboBox<>(new String[]{"Return Value", "Exception"});
+                JComboBox<String> modeCombo = new JComboBox<>(new String[]{"Return Value", "Exception", "Record", "Replay"});
                 mockTable.getColumnModel().getColumn(4).setCellEditor(new DefaultCellEditor(modeCombo));
                 
                 // 设置Value列的渲染器和编辑器
@@ -121,11 +132,20 @@ public class MockRunnerToolWindowContent {
         JButton refreshButton = new JButton("Refresh");
         refreshButton.addActionListener(e -> refresh());
 
+        JButton importButton = new JButton("Import Recording");
+        importButton.addActionListener(e -> importRecording());
+
+        JButton fixtureButton = new JButton("Fixture File");
+        fixtureButton.setToolTipText("Return the selected mock's value from a file instead of storing it in the config");
+        fixtureButton.addActionListener(e -> chooseFixture());
+
         statsLabel = new JLabel("Mock Methods: 0");
 
         toolbarPanel.add(saveButton);
         toolbarPanel.add(clearButton);
         toolbarPanel.add(refreshButton);
+        toolbarPanel.add(importButton);
+        toolbarPanel.add(fixtureButton);
         toolbarPanel.add(Box.createHorizontalStrut(20));
         toolbarPanel.add(statsLabel);
         
@@ -225,6 +245,80 @@ public class MockRunnerToolWindowContent {
         }
     }
     
+    /**
+     * 把 Agent 录制的调用导入为 Mock 配置，默认打开配置文件旁的 recording.jsonl
+     */
+    private void importRecording() {
+        File defaultFile = new File(System.getProperty("java.io.tmpdir") + "/mock-runner/recording.jsonl");
+        VirtualFile toSelect = LocalFileSystem.getInstance().refreshAndFindFileByIoFile(defaultFile);
+        VirtualFile chosen = FileChooser.chooseFile(
+            FileChooserDescriptorFactory.createSingleFileDescriptor("jsonl"), project, toSelect);
+        if (chosen == null) {
+            return;
+        }
+        List<MockMethodConfig> imported;
+        try (Reader reader = Files.newBufferedReader(Paths.get(chosen.getPath()), StandardCharsets.UTF_8)) {
+            imported = RecordingImporter.toMockMethods(RecordingImporter.read(reader));
+        } catch (Exception e) {
+            Messages.showErrorDialog(project, "Failed to read recording: " + e.getMessage(), "Import Recording");
+            return;
+        }
+        if (imported.isEmpty()) {
+            Messages.showInfoMessage(project, "No recorded calls found in " + chosen.getPath(), "Import Recording");
+            return;
+        }
+
+        // 同一方法已有的配置（包括录制中的配置）会被替换
+        MockConfig config = MockConfigService.getInstance(project).getConfig();
+        for (MockMethodConfig method : imported) {
+            config.addMockMethod(method);
+        }
+        markDirty();
+        loadMockConfigs();
+        updatePaginationControls();
+        Messages.showInfoMessage(project, "Imported " + imported.size() + " mock method(s) from " + chosen.getPath()
+            + ". Save to apply them.", "Import Recording");
+    }
+
+    /**
+     * 为选中的 Mock 选择外部返回值文件；已使用文件时可改回内联返回值
+     */
+    private void chooseFixture() {
+        int row = mockTable.getSelectedRow();
+        MockMethodConfig method = row < 0 ? null : tableModel.getMethodAt(mockTable.convertRowIndexToModel(row));
+        if (method == null) {
+            Messages.showInfoMessage(project, "Select a mock first.", "Fixture File");
+            return;
+        }
+        MockConfigService service = MockConfigService.getInstance(project);
+        if (method.getFixture() != null) {
+            int answer = Messages.showYesNoCancelDialog(
+                project,
+                "The value of " + method.getMethodName() + " is read from " + method.getFixture().getFile() + ".",
+                "Fixture File",
+                "Choose Another File", "Use Inline Value", "Cancel",
+                Messages.getQuestionIcon()
+            );
+            if (answer == Messages.NO) {
+                service.setFixture(method, null);
+                tableModel.fireTableDataChanged();
+                markDirty();
+                return;
+            }
+            if (answer != Messages.YES) {
+                return;
+            }
+        }
+        VirtualFile chosen = FileChooser.chooseFile(
+            FileChooserDescriptorFactory.createSingleFileDescriptor(), project, null);
+        if (chosen == null) {
+            return;
+        }
+        service.setFixture(method, chosen.getPath());
+        tableModel.fireTableDataChanged();
+        markDirty();
+    }
+
     private void previousPage() {
         if (currentPage > 0) {
             currentPage--;
@@ -372,6 +466,11 @@ private class MockTableModel extends AbstractTableModel {
 
             @Override
             public boolean isCellEditable(int rowIndex, int columnIndex) {
+                if (columnIndex == 5 && rowIndex < mockMethods.size() && mockMethods.get(rowIndex).getFixture() != null
+                        && !mockMethods.get(rowIndex).isThrowException()) {
+                    // 返回值在外部文件中，通过 Fixture File 按钮修改
+                    return false;
+                }
                 return columnIndex == 0 || columnIndex == 4 || columnIndex == 5; // Enabled, Mode, Value可编辑
             }
 
@@ -387,10 +486,21 @@ private class MockTableModel extends AbstractTableModel {
                     case 1: return method.getClassName().substring(method.getClassName().lastIndexOf('.') + 1);
                     case 2: return method.getMethodName();
                     case 3: return method.getSignature();
-                    case 4: return method.isThrowException() ? "Exception" : "Return Value";
+                    case 4:
+                        if (method.isRecord()) {
+                            return "Record";
+                        }
+                        if (method.getReplay() != null) {
+                            return "Replay";
+                        }
+                        return method.isThrowException() ? "Exception" : "Return Value";
                     case 5: 
-                        if (method.isThrowException()) {
+                        if (method.isRecord()) {
+                            return "(recording real calls)";
+                        } else if (method.isThrowException()) {
                             return method.getExceptionType() + ": " + method.getExceptionMessage();
+                        } else if (method.getFixture() != null) {
+                            return "(fixture: " + method.getFixture().getFile() + ")";
                         } else {
                             return method.getReturnValue();
                         }
@@ -411,12 +521,22 @@ private class MockTableModel extends AbstractTableModel {
                     fireTableCellUpdated(rowIndex, columnIndex);
                     updateStats();
                 } else if (columnIndex == 4) {
-                    // Toggle mode between Return Value and Exception
+                    // Switch mode between Return Value, Exception, Record and Replay
                     String mode = value.toString();
-                    boolean isException = mode.equals("Exception");
-                    method.setThrowException(isException);
+                    method.setRecord(mode.equals("Record"));
+                    method.setThrowException(mode.equals("Exception"));
+                    if (!mode.equals("Replay")) {
+                        method.setReplay(null);
+                    } else if (method.getReplay() == null) {
+                        // 回放默认录制文件，未录制的调用返回本行的 Mock 值
+                        method.setReplay(new ReplayConfig());
+                    }
                     fireTableDataChanged(); // Refresh entire row to update Value column display
                 } else if (columnIndex == 5) {
+                    if (method.isRecord()) {
+                        // 录制模式下没有 Mock 值可编辑
+                        return;
+                    }
                     // Update value based on current mode
                     if (method.isThrowException()) {
                         // Parse exception info: "ExceptionType: message"
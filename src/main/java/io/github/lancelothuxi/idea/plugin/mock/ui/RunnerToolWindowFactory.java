@@ -14,7 +14,13 @@ public class RunnerToolWindowFactory implements ToolWindowFactory {
         // 使用 Service 的单例实例，而不是创建新实例
         MockRunnerToolWindowContent toolWindowContent = project.getService(MockRunnerToolWindowContent.class);
         ContentFactory contentFactory = ContentFactory.getInstance();
-        Content content = contentFactory.createContent(toolWindowContent.getContentPanel(), "", false);
+        Content content = contentFactory.createContent(toolWindowContent.getContentPanel(), "Mocks", false);
         toolWindow.getContentManager().addContent(content);
+
+        // 运行中的实时调用统计，随页签关闭停止刷新
+        LiveStatsPanel liveStats = new LiveStatsPanel(project);
+        Content liveContent = contentFactory.createContent(liveStats.getContentPanel(), "Live", false);
+        liveContent.setDisposer(liveStats);
+        toolWindow.getContentManager().addContent(liveContent);
     }
 }
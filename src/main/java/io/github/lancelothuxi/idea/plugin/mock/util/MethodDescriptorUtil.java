@@ -0,0 +1,59 @@
+package io.github.lancelothuxi.idea.plugin.mock.util;
+
+import com.intellij.psi.*;
+import com.intellij.psi.util.ClassUtil;
+import com.intellij.psi.util.TypeConversionUtil;
+
+/**
+ * 根据 PSI 方法生成 JVM 方法描述符，如 (Ljava/lang/Long;I)Ltest/dubbo/OrderDTO;
+ * Agent 用它精确匹配重载方法，无需再猜测参数类型
+ */
+public class MethodDescriptorUtil {
+
+    public static String getMethodDescriptor(PsiMethod method) {
+        StringBuilder sb = new StringBuilder("(");
+        for (PsiParameter parameter : method.getParameterList().getParameters()) {
+            appendDescriptor(sb, parameter.getType());
+        }
+        sb.append(')');
+        PsiType returnType = method.getReturnType();
+        appendDescriptor(sb, returnType != null ? returnType : PsiType.VOID);
+        return sb.toString();
+    }
+
+    private static void appendDescriptor(StringBuilder sb, PsiType type) {
+        // 泛型擦除：List<String> -> List，T -> 其上界
+        PsiType erased = TypeConversionUtil.erasure(type);
+
+        if (erased instanceof PsiPrimitiveType) {
+            sb.append(primitiveDescriptor(erased.getCanonicalText()));
+        } else if (erased instanceof PsiArrayType) {
+            sb.append('[');
+            appendDescriptor(sb, ((PsiArrayType) erased).getComponentType());
+        } else if (erased instanceof PsiClassType) {
+            PsiClass psiClass = ((PsiClassType) erased).resolve();
+            // 嵌套类使用 JVM 名称 Outer$Inner
+            String jvmName = psiClass != null ? ClassUtil.getJVMClassName(psiClass) : null;
+            if (jvmName == null) {
+                jvmName = erased.getCanonicalText();
+            }
+            sb.append('L').append(jvmName.replace('.', '/')).append(';');
+        } else {
+            sb.append("Ljava/lang/Object;");
+        }
+    }
+
+    private static char primitiveDescriptor(String name) {
+        switch (name) {
+            case "int": return 'I';
+            case "long": return 'J';
+            case "boolean": return 'Z';
+            case "byte": return 'B';
+            case "char": return 'C';
+            case "short": return 'S';
+            case "float": return 'F';
+            case "double": return 'D';
+            default: return 'V';
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.agent.CompiledRule;
+import io.github.lancelothuxi.idea.plugin.mock.mock.ArgumentCase;
+import io.github.lancelothuxi.idea.plugin.mock.mock.ArgumentCondition;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test that argument cases pick the response for the call's arguments
+ */
+public class ArgumentCaseTest {
+
+    public static class Address {
+        public String city;
+    }
+
+    public static class Order {
+        public Address address = new Address();
+        public List<String> skus;
+        public long amount;
+    }
+
+    @Test
+    public void testEqualityComparesNumbersByValue() {
+        CompiledRule rule = rule(caseOf("hit", condition(0, "eq", "42")));
+        assertEquals(answer(rule, 42), "hit");
+        assertEquals(answer(rule, 42L), "hit");
+        assertEquals(answer(rule, 42.0d), "hit");
+        assertEquals(answer(rule, 43), "default");
+        assertEquals(answer(rule, "42"), "hit");
+    }
+
+    @Test
+    public void testRangesAndNegation() {
+        ArgumentCondition between = condition(0, "between", null);
+        between.setMin("10");
+        between.setMax("20");
+        CompiledRule rule = rule(
+            caseOf("in", between),
+            caseOf("not-zero", condition(0, "ne", "0")));
+        assertEquals(answer(rule, 10), "in");
+        assertEquals(answer(rule, 20.0f), "in");
+        assertEquals(answer(rule, 21), "not-zero");
+        assertEquals(answer(rule, 0), "default");
+    }
+
+    @Test
+    public void testRegexAndNullChecks() {
+        CompiledRule rule = rule(
+            caseOf("null", condition(0, "isNull", null)),
+            caseOf("order", condition(0, "regex", "ORD-\\d+")));
+        assertEquals(answer(rule, (Object) null), "null");
+        assertEquals(answer(rule, "ORD-123"), "order");
+        assertEquals(answer(rule, "ORD-12a"), "default");
+    }
+
+    @Test
+    public void testPathIntoPojoArgument() {
+        Order order = new Order();
+        order.address.city = "Paris";
+        order.skus = Arrays.asList("A-1", "B-2");
+        order.amount = 500;
+
+        ArgumentCondition city = condition(1, "eq", "Paris");
+        city.setPath("$.address.city");
+        ArgumentCondition sku = condition(1, "eq", "B-2");
+        sku.setPath("skus[1]");
+        ArgumentCondition amount = condition(1, "gte", "100");
+        amount.setPath("amount");
+        CompiledRule rule = rule(caseOf("big-paris", city, sku, amount));
+
+        assertEquals(answer(rule, "ignored", order), "big-paris");
+        order.amount = 99;
+        assertEquals(answer(rule, "ignored", order), "default");
+        assertEquals(answer(rule, "ignored", null), "default", "A null argument never matches a path");
+    }
+
+    @Test
+    public void testFirstMatchingCaseWinsAndCasesCanThrow() {
+        ArgumentCase failing = caseOf(null, condition(0, "eq", "boom"));
+        failing.setThrowException(true);
+        failing.setExceptionType("java.lang.IllegalStateException");
+        failing.setExceptionMessage("boom");
+        CompiledRule rule = rule(failing, caseOf("second", condition(0, "notNull", null)));
+
+        CompiledRule selected = rule.select(new Object[]{"boom"});
+        assertTrue(selected.isThrowException());
+        assertEquals(selected.newException().getClass(), IllegalStateException.class);
+        assertEquals(answer(rule, "other"), "second");
+    }
+
+    @Test
+    public void testInvalidConditionNeverMatches() {
+        CompiledRule rule = rule(
+            caseOf("bad-regex", condition(0, "regex", "(")),
+            caseOf("bad-operator", condition(0, "almost", "x")));
+        assertTrue(rule.hasArgumentCases());
+        assertEquals(answer(rule, "("), "default");
+        assertEquals(answer(rule, "x"), "default");
+    }
+
+    @Test
+    public void testRuleWithoutCases() {
+        CompiledRule rule = rule();
+        assertFalse(rule.hasArgumentCases());
+        assertSame(rule.select(new Object[]{1}), rule);
+    }
+
+    private static Object answer(CompiledRule rule, Object... args) {
+        return rule.select(args).getValue();
+    }
+
+    private static CompiledRule rule(ArgumentCase... cases) {
+        MockConfig.MockRule rule = new MockConfig.MockRule("default", "java.lang.String");
+        rule.setCases(Arrays.asList(cases));
+        return TestRules.compile("test.Service", "find", rule);
+    }
+
+    private static ArgumentCase caseOf(String returnValue, ArgumentCondition... when) {
+        ArgumentCase argumentCase = new ArgumentCase();
+        argumentCase.setReturnValue(returnValue);
+        argumentCase.setWhen(when.length == 0 ? Collections.emptyList() : Arrays.asList(when));
+        return argumentCase;
+    }
+
+    private static ArgumentCondition condition(int index, String operator, String value) {
+        return new ArgumentCondition(index, operator, value);
+    }
+}
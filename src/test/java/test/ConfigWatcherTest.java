@@ -0,0 +1,63 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.agent.ConfigWatcher;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test that config file edits are reloaded while other files in its directory keep changing
+ */
+public class ConfigWatcherTest {
+
+    @Test(timeOut = 30_000)
+    public void testEditIsPickedUpWhileOtherFilesAreWritten() throws Exception {
+        Path dir = Files.createTempDirectory("mock-runner");
+        Path config = dir.resolve("mock-config.json");
+        Files.write(config, bytes("{\"version\": 1}"));
+        BlockingQueue<String> reloads = new LinkedBlockingQueue<>();
+        // Long poll interval, so only file events can report the edit in time
+        ConfigWatcher watcher = new ConfigWatcher(config, 200, 60_000,
+            content -> reloads.add(new String(content, StandardCharsets.UTF_8)));
+        watcher.start(Files.readAllBytes(config));
+
+        AtomicBoolean done = new AtomicBoolean();
+        Thread recorder = new Thread(() -> {
+            // Like the recorder appending a batch more often than the debounce interval
+            while (!done.get()) {
+                try {
+                    Files.write(dir.resolve("recording.jsonl"), bytes("{}\n"),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                    Thread.sleep(20);
+                } catch (IOException | InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        recorder.start();
+        try {
+            Thread.sleep(300);
+            Files.write(config, bytes("{\"version\": 2}"));
+            assertEquals(reloads.poll(10, TimeUnit.SECONDS), "{\"version\": 2}");
+            assertNull(reloads.poll(500, TimeUnit.MILLISECONDS), "Writes to other files do not reload the config");
+        } finally {
+            done.set(true);
+            recorder.join();
+            watcher.stop();
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
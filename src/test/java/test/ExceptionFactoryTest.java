@@ -0,0 +1,78 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.agent.CompiledRule;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test that exception-mode rules resolve their exception constructor with fallbacks
+ */
+public class ExceptionFactoryTest {
+
+    public static class CauseOnlyException extends Exception {
+        public CauseOnlyException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    public static class NoArgException extends RuntimeException {
+        public NoArgException() {
+            super("default message");
+        }
+    }
+
+    @Test
+    public void testMessageConstructor() {
+        Exception e = newException("java.lang.IllegalStateException", "boom");
+        assertEquals(e.getClass(), IllegalStateException.class);
+        assertEquals(e.getMessage(), "boom");
+    }
+
+    @Test
+    public void testMessageAndCauseConstructor() {
+        Exception e = newException(CauseOnlyException.class.getName(), "boom");
+        assertEquals(e.getClass(), CauseOnlyException.class);
+        assertEquals(e.getMessage(), "boom");
+        assertNull(e.getCause());
+    }
+
+    @Test
+    public void testNoArgConstructor() {
+        Exception e = newException(NoArgException.class.getName(), "ignored");
+        assertEquals(e.getClass(), NoArgException.class);
+        assertEquals(e.getMessage(), "default message");
+    }
+
+    @Test
+    public void testUnknownOrNonExceptionTypeFallsBackToRuntimeException() {
+        Exception unknown = newException("com.example.DoesNotExist", "boom");
+        assertEquals(unknown.getClass(), RuntimeException.class);
+        assertEquals(unknown.getMessage(), "boom");
+
+        Exception notAnException = newException("java.lang.String", "boom");
+        assertEquals(notAnException.getClass(), RuntimeException.class);
+    }
+
+    @Test
+    public void testEachThrowCreatesANewInstance() {
+        CompiledRule rule = compile("java.lang.IllegalStateException", "boom");
+        Exception first = rule.newException();
+        Exception second = rule.newException();
+        assertNotSame(first, second);
+
+        // Also with stackless=true: state set on one caught exception is not seen by the next
+        first.addSuppressed(new IllegalArgumentException());
+        assertEquals(second.getSuppressed().length, 0);
+        assertEquals(rule.newException().getSuppressed().length, 0);
+    }
+
+    private static Exception newException(String type, String message) {
+        return compile(type, message).newException();
+    }
+
+    private static CompiledRule compile(String type, String message) {
+        return TestRules.compile("test.Service", "fail", new MockConfig.MockRule("", "void", true, type, message));
+    }
+}
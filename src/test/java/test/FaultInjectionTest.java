@@ -0,0 +1,134 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.agent.CompiledRule;
+import io.github.lancelothuxi.idea.plugin.mock.mock.Fault;
+import io.github.lancelothuxi.idea.plugin.mock.mock.FaultTable;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockResponse;
+import io.github.lancelothuxi.idea.plugin.mock.mock.ResponseSequence;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test that fault tables fail the configured share of calls
+ */
+public class FaultInjectionTest {
+
+    private static final int CALLS = 200_000;
+
+    @Test
+    public void testFaultRatesFollowTheTable() {
+        CompiledRule rule = rule(table(false, null,
+            new Fault(3, TimeoutException.class.getName(), "timeout"),
+            new Fault(1, IllegalStateException.class.getName(), "state")));
+
+        Map<String, Integer> outcomes = outcomes(rule);
+        assertWithin(outcomes.get(TimeoutException.class.getName()), 0.03);
+        assertWithin(outcomes.get(IllegalStateException.class.getName()), 0.01);
+        assertWithin(outcomes.get("ok"), 0.96);
+        assertNull(outcomes.get("pass"));
+    }
+
+    @Test
+    public void testRemainingCallsPassThrough() {
+        CompiledRule rule = rule(table(true, null, new Fault(10, TimeoutException.class.getName(), "timeout")));
+        Map<String, Integer> outcomes = outcomes(rule);
+        assertWithin(outcomes.get("pass"), 0.9);
+        assertNull(outcomes.get("ok"));
+    }
+
+    @Test
+    public void testPercentagesAboveHundredAreScaled() {
+        CompiledRule rule = rule(table(false, null,
+            new Fault(150, TimeoutException.class.getName(), "timeout"),
+            new Fault(50, IllegalStateException.class.getName(), "state")));
+        Map<String, Integer> outcomes = outcomes(rule);
+        assertWithin(outcomes.get(TimeoutException.class.getName()), 0.75);
+        assertWithin(outcomes.get(IllegalStateException.class.getName()), 0.25);
+        assertNull(outcomes.get("ok"));
+    }
+
+    @Test
+    public void testSeededTableIsReproducible() {
+        List<String> first = draws(rule(table(false, 42L, new Fault(50, TimeoutException.class.getName(), "t"))));
+        assertEquals(draws(rule(table(false, 42L, new Fault(50, TimeoutException.class.getName(), "t")))), first);
+        assertNotEquals(draws(rule(table(false, 43L, new Fault(50, TimeoutException.class.getName(), "t")))), first);
+    }
+
+    @Test
+    public void testFaultsDoNotAdvanceTheSequence() {
+        MockConfig.MockRule rule = new MockConfig.MockRule("default", "java.lang.String");
+        rule.setSequence(new ResponseSequence("stop", List.of(new MockResponse("first"), new MockResponse("second"))));
+        rule.setFaults(table(false, null, new Fault(50, TimeoutException.class.getName(), "t")));
+        CompiledRule compiled = TestRules.compile("test.Downstream", "call", rule);
+
+        List<Object> answered = new ArrayList<>();
+        while (answered.size() < 2) {
+            CompiledRule response = compiled.next();
+            if (!response.isThrowException()) {
+                answered.add(response.getValue());
+            }
+        }
+        assertEquals(answered, List.of("first", "second"));
+    }
+
+    @Test
+    public void testFaultThrowsConfiguredException() {
+        CompiledRule rule = rule(table(false, null, new Fault(100, TimeoutException.class.getName(), "slow downstream")));
+        CompiledRule response = rule.next();
+        assertTrue(response.isThrowException());
+        Exception exception = response.newException();
+        assertEquals(exception.getClass(), TimeoutException.class);
+        assertEquals(exception.getMessage(), "slow downstream");
+    }
+
+    private static Map<String, Integer> outcomes(CompiledRule rule) {
+        Map<String, Integer> outcomes = new HashMap<>();
+        for (int i = 0; i < CALLS; i++) {
+            outcomes.merge(outcome(rule.next()), 1, Integer::sum);
+        }
+        return outcomes;
+    }
+
+    private static List<String> draws(CompiledRule rule) {
+        List<String> draws = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            draws.add(outcome(rule.next()));
+        }
+        return draws;
+    }
+
+    private static String outcome(CompiledRule response) {
+        if (response == null) {
+            return "pass";
+        }
+        return response.isThrowException() ? response.getRule().getExceptionType() : "ok";
+    }
+
+    private static void assertWithin(Integer count, double expectedShare) {
+        assertNotNull(count);
+        double share = count / (double) CALLS;
+        assertTrue(Math.abs(share - expectedShare) < 0.005, "Share " + share + " expected " + expectedShare);
+    }
+
+    private static FaultTable table(boolean passThrough, Long seed, Fault... faults) {
+        FaultTable table = new FaultTable();
+        table.setFaults(List.of(faults));
+        table.setPassThrough(passThrough);
+        table.setSeed(seed);
+        return table;
+    }
+
+    private static CompiledRule rule(FaultTable faults) {
+        MockConfig.MockRule rule = new MockConfig.MockRule("ok", "java.lang.String");
+        rule.setFaults(faults);
+        return TestRules.compile("test.Downstream", "call", rule);
+    }
+}
@@ -0,0 +1,111 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.agent.CompiledRule;
+import io.github.lancelothuxi.idea.plugin.mock.agent.MockScope;
+import io.github.lancelothuxi.idea.plugin.mock.mock.Fixture;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import test.scope.GreetingService;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test that rule values kept in fixture files are loaded on first use
+ */
+public class FixtureTest {
+
+    private Path dir;
+
+    @BeforeClass
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("mock-fixtures");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void deleteDir() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testFixtureIsReadOnFirstHitOnly() throws IOException {
+        Path file = dir.resolve("user.json");
+        CompiledRule rule = rule(file, "test.User");
+
+        // The config loads before the file exists: nothing is read until the rule is hit
+        Files.write(file, "\uFEFF  {\"userId\": \"u-1\", \"username\": \"Ann\", \"age\": 30}\n".getBytes(StandardCharsets.UTF_8));
+        User user = (User) rule.getValue();
+        assertEquals(user.getUserId(), "u-1");
+        assertEquals(user.getAge(), 30);
+
+        Files.write(file, "{\"userId\": \"u-2\"}".getBytes(StandardCharsets.UTF_8));
+        User again = (User) rule.getValue();
+        assertSame(again, user, "Large fixture objects are shared rather than rebuilt per call");
+        assertEquals(again.getUserId(), "u-1", "The parsed file is kept until the config is reloaded");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLargeJsonArrayIsStreamed() throws IOException {
+        Path file = dir.resolve("users.json");
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write('[');
+            for (int i = 0; i < 50_000; i++) {
+                writer.write((i == 0 ? "" : ",") + "{\"userId\": \"u-" + i + "\", \"username\": \"user " + i + "\", \"age\": " + i % 90 + "}");
+            }
+            writer.write(']');
+        }
+        List<User> users = (List<User>) rule(file, "java.util.List<test.User>").getValue();
+        assertEquals(users.size(), 50_000);
+        assertEquals(users.get(49_999).getUserId(), "u-49999");
+    }
+
+    @Test
+    public void testScalarFixturesAndMissingFile() throws IOException {
+        Path count = dir.resolve("count.txt");
+        Files.write(count, "42\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals(rule(count, "java.lang.Integer").getValue(), 42);
+
+        assertNull(rule(dir.resolve("missing.json"), "test.User").getValue());
+    }
+
+    @Test
+    public void testInstrumentedMethodReturnsFixture() throws IOException {
+        Path file = dir.resolve("greeting.txt");
+        Files.write(file, "Hello from a fixture\n".getBytes(StandardCharsets.UTF_8));
+        MockConfig overrides = new MockConfig();
+        overrides.addMockRule("test.scope.GreetingService", "greet", fixtureRule(file, "java.lang.String"));
+        try (MockScope ignored = MockScope.open(overrides)) {
+            assertEquals(new GreetingService().greet("Ann"), "Hello from a fixture\n");
+        }
+    }
+
+    @Test
+    public void testHash() throws IOException {
+        Path file = dir.resolve("abc.txt");
+        Files.write(file, "abc".getBytes(StandardCharsets.UTF_8));
+        assertEquals(Fixture.hash(file), "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+    }
+
+    private static CompiledRule rule(Path file, String returnType) {
+        return TestRules.compile("test.Service", "find", fixtureRule(file, returnType));
+    }
+
+    private static MockConfig.MockRule fixtureRule(Path file, String returnType) {
+        MockConfig.MockRule rule = new MockConfig.MockRule(null, returnType);
+        rule.setFixture(new Fixture(file.toString(), null));
+        return rule;
+    }
+}
@@ -0,0 +1,73 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.InvocationStats;
+import io.github.lancelothuxi.idea.plugin.mock.mock.InvocationStatsCodec;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test the binary batches the agent streams to the tool window
+ */
+public class InvocationStatsCodecTest {
+
+    @Test
+    public void testBatchesRoundTrip() throws IOException {
+        InvocationStats quote = stats("test.QuoteService.quote", 3, 0, 0, 1);
+        quote.setInjectedP50Nanos(5_000_000L);
+        quote.setInjectedP99Nanos(Long.MAX_VALUE);
+        InvocationStats refresh = stats("test.QuoteService.refresh(Ljava/lang/String;)", 0, 2, 7, 0);
+        refresh.setPassThroughP50Nanos(1_234_567L);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InvocationStatsCodec.Writer writer = new InvocationStatsCodec.Writer();
+        writer.write(out, new InvocationStatsCodec.Batch(4242, 1_700_000_000_000L, List.of(quote, refresh)));
+        writer.write(out, new InvocationStatsCodec.Batch(4242, 1_700_000_000_100L,
+            List.of(stats("test.QuoteService.quote", 300_000, 0, 0, 1))));
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        InvocationStatsCodec.Reader reader = new InvocationStatsCodec.Reader();
+        InvocationStatsCodec.Batch first = reader.read(in);
+        assertEquals(first.getPid(), 4242);
+        assertEquals(first.getTimestamp(), 1_700_000_000_000L);
+        assertEquals(first.getStats().size(), 2);
+        InvocationStats readQuote = first.getStats().get(0);
+        assertEquals(readQuote.getRuleKey(), "test.QuoteService.quote");
+        assertEquals(readQuote.getHits(), 3);
+        assertEquals(readQuote.getExceptions(), 1);
+        assertEquals(readQuote.getInjectedP50Nanos(), 5_000_000L);
+        assertEquals(readQuote.getInjectedP99Nanos(), Long.MAX_VALUE);
+        InvocationStats readRefresh = first.getStats().get(1);
+        assertEquals(readRefresh.getRuleKey(), "test.QuoteService.refresh(Ljava/lang/String;)");
+        assertEquals(readRefresh.getMisses(), 2);
+        assertEquals(readRefresh.getPassThroughs(), 7);
+        assertEquals(readRefresh.getPassThroughP50Nanos(), 1_234_567L);
+
+        // Later batches refer to known rules by id only
+        InvocationStatsCodec.Batch second = reader.read(in);
+        assertEquals(second.getStats().get(0).getRuleKey(), "test.QuoteService.quote");
+        assertEquals(second.getStats().get(0).getHits(), 300_000);
+        assertNull(reader.read(in), "End of stream at a frame boundary");
+    }
+
+    @Test
+    public void testKnownRulesAreNotRepeated() throws IOException {
+        InvocationStatsCodec.Writer writer = new InvocationStatsCodec.Writer();
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        writer.write(first, new InvocationStatsCodec.Batch(1, 0, List.of(stats("test.Some.rather.long.rule.key", 1, 0, 0, 0))));
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        writer.write(second, new InvocationStatsCodec.Batch(1, 0, List.of(stats("test.Some.rather.long.rule.key", 2, 0, 0, 0))));
+        assertTrue(second.size() < first.size() - 20, second.size() + " vs " + first.size());
+        // Frame header, version, pid, time, count, then id and eight single-byte values
+        assertEquals(second.size(), 4 + 1 + 1 + 1 + 1 + 1 + 8);
+    }
+
+    private static InvocationStats stats(String key, long hits, long misses, long passThroughs, long exceptions) {
+        return new InvocationStats(key, hits, misses, passThroughs, exceptions);
+    }
+}
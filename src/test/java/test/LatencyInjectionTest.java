@@ -0,0 +1,94 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.agent.CompiledRule;
+import io.github.lancelothuxi.idea.plugin.mock.agent.LatencyHistogram;
+import io.github.lancelothuxi.idea.plugin.mock.mock.LatencyConfig;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test that injected latency follows the configured distribution and is recorded
+ */
+public class LatencyInjectionTest {
+
+    @Test
+    public void testFixedLatencyIsAppliedAndRecorded() {
+        CompiledRule rule = rule(LatencyConfig.fixed(5));
+        long start = System.nanoTime();
+        rule.injectLatency();
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(5), "Waited " + elapsed + "ns");
+        LatencyHistogram applied = rule.getAppliedLatency();
+        assertEquals(applied.getCount(), 1);
+        assertTrue(applied.getMaxNanos() >= TimeUnit.MILLISECONDS.toNanos(5));
+    }
+
+    @Test
+    public void testUniformLatencyStaysWithinBounds() {
+        LatencyConfig config = new LatencyConfig();
+        config.setType("uniform");
+        config.setMin(1);
+        config.setMax(2);
+        CompiledRule rule = rule(config);
+        for (int i = 0; i < 5; i++) {
+            rule.injectLatency();
+        }
+        LatencyHistogram applied = rule.getAppliedLatency();
+        assertEquals(applied.getCount(), 5);
+        assertTrue(applied.getPercentileNanos(0) >= TimeUnit.MILLISECONDS.toNanos(1) * 94 / 100);
+    }
+
+    @Test
+    public void testInterruptEndsTheWaitAndStaysSet() {
+        CompiledRule rule = rule(LatencyConfig.fixed(10_000));
+        Thread.currentThread().interrupt();
+        try {
+            long start = System.nanoTime();
+            rule.injectLatency();
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void testInvalidLatencyIsIgnored() {
+        LatencyConfig decreasing = new LatencyConfig();
+        decreasing.setType("percentiles");
+        decreasing.setP50(10.0);
+        decreasing.setP90(5.0);
+        assertNull(rule(decreasing).getAppliedLatency());
+        assertNull(rule(LatencyConfig.fixed(-1)).getAppliedLatency());
+        assertNull(rule(null).getAppliedLatency());
+    }
+
+    @Test
+    public void testHistogramPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000);
+        }
+        assertEquals(histogram.getCount(), 10_000);
+        assertEquals(histogram.getMaxNanos(), 10_000_000);
+        assertWithin(histogram.getPercentileNanos(0.5), 5_000_000);
+        assertWithin(histogram.getPercentileNanos(0.9), 9_000_000);
+        assertWithin(histogram.getPercentileNanos(0.999), 9_990_000);
+        assertEquals(new LatencyHistogram().getPercentileNanos(0.5), 0);
+    }
+
+    private static void assertWithin(long actual, long expected) {
+        assertTrue(Math.abs(actual - expected) <= expected * 7 / 100, actual + " is not within 7% of " + expected);
+    }
+
+    private static CompiledRule rule(LatencyConfig latency) {
+        MockConfig.MockRule rule = new MockConfig.MockRule("ok", "java.lang.String");
+        rule.setLatency(latency);
+        return TestRules.compile("test.Downstream", "call", rule);
+    }
+}
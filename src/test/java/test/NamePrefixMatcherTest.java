@@ -0,0 +1,37 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.agent.NamePrefixMatcher;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test the prefix trie used to skip framework classes
+ */
+public class NamePrefixMatcherTest {
+
+    private final NamePrefixMatcher matcher = new NamePrefixMatcher("java.", "javax.", "kotlin.", "kotlinx.", "sun.");
+
+    @Test
+    public void testMatchesEveryPrefix() {
+        assertTrue(matcher.matches("java.lang.String"));
+        assertTrue(matcher.matches("javax.inject.Inject"));
+        assertTrue(matcher.matches("kotlin.Unit"));
+        assertTrue(matcher.matches("kotlinx.coroutines.Job"));
+        assertTrue(matcher.matches("sun.misc.Unsafe"));
+    }
+
+    @Test
+    public void testDoesNotMatchSharedStemsOrShorterNames() {
+        assertFalse(matcher.matches("javafx.scene.Node"), "javafx shares only 'java' with 'java.'");
+        assertFalse(matcher.matches("kotlinc.Main"));
+        assertFalse(matcher.matches("java"));
+        assertFalse(matcher.matches("com.example.java.Service"));
+        assertFalse(matcher.matches(""));
+    }
+
+    @Test
+    public void testPrefixEqualToNameMatches() {
+        assertTrue(matcher.matches("java."));
+    }
+}
@@ -0,0 +1,88 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.agent.RuleIndex;
+import io.github.lancelothuxi.idea.plugin.mock.agent.RuleTypeMatcher;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockMethodConfig;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test that rules carrying a JVM method descriptor only target their own overload
+ */
+public class OverloadRuleKeyTest {
+
+    @Test
+    public void testRuleKeyUsesParameterDescriptor() {
+        assertEquals(MockConfig.ruleKey("test.Service", "find", null), "test.Service.find");
+        assertEquals(MockConfig.ruleKey("test.Service", "find", ""), "test.Service.find");
+        assertEquals(MockConfig.ruleKey("test.Service", "find", "(Ljava/lang/String;I)Ljava/util/List;"),
+            "test.Service.find(Ljava/lang/String;I)");
+    }
+
+    @Test
+    public void testOverloadsGetSeparateRules() {
+        MockConfig config = new MockConfig();
+        config.addMockMethod(method("(Ljava/lang/String;)Ljava/lang/String;", "(String)", "one"));
+        config.addMockMethod(method("(Ljava/lang/String;I)Ljava/lang/String;", "(String, int)", "two"));
+
+        assertEquals(config.getAllRules().size(), 2, "Each overload should have its own rule");
+        assertEquals(config.getMockRule("test.Service", "find", "(Ljava/lang/String;)Ljava/lang/String;").getReturnValue(), "one");
+        assertEquals(config.getMockRule("test.Service", "find", "(Ljava/lang/String;I)Ljava/lang/String;").getReturnValue(), "two");
+        assertNull(config.getMockRule("test.Service", "find", "(J)Ljava/lang/String;"),
+            "An overload without a rule should not be mocked");
+        assertNull(config.getMockRule("test.Service", "find"), "No overload-agnostic rule was added");
+    }
+
+    @Test
+    public void testLegacyRuleStillMatchesEveryOverload() {
+        MockConfig config = new MockConfig();
+        config.addMockMethod(method(null, "(String)", "legacy"));
+
+        assertEquals(config.getMockRule("test.Service", "find", "(J)Ljava/lang/String;").getReturnValue(), "legacy");
+        assertEquals(config.getMockRule("test.Service", "find").getReturnValue(), "legacy");
+    }
+
+    @Test
+    public void testRemoveOnlyDropsThatOverload() {
+        MockConfig config = new MockConfig();
+        config.addMockMethod(method("(Ljava/lang/String;)Ljava/lang/String;", "(String)", "one"));
+        config.addMockMethod(method("(Ljava/lang/String;I)Ljava/lang/String;", "(String, int)", "two"));
+        config.addMockRule("test.Service", "find", new MockConfig.MockRule("legacy", "java.lang.String"));
+
+        config.removeMockMethod("test.Service", "find", "(String)");
+
+        assertEquals(config.getMockMethods().size(), 1);
+        assertEquals(config.getMockRule("test.Service", "find").getReturnValue(), "legacy",
+            "Removing an overload keeps the rule for all overloads");
+        assertEquals(config.getMockRule("test.Service", "find", "(Ljava/lang/String;)Ljava/lang/String;").getReturnValue(), "legacy");
+        assertEquals(config.getMockRule("test.Service", "find", "(Ljava/lang/String;I)Ljava/lang/String;").getReturnValue(), "two");
+    }
+
+    @Test
+    public void testMalformedDescriptorsAreNotInstrumented() {
+        String[] malformed = {"find(Lfoo", "find([)", "find(", "find(L;)", "find(V)", "find(I)junk", "find([[I"};
+        for (String methodName : malformed) {
+            MockConfig config = new MockConfig();
+            config.addMockRule("test.Broken", methodName, new MockConfig.MockRule("1", "int"));
+            config.addMockRule("test.Service", "find", "([Ljava/lang/String;J)I", new MockConfig.MockRule("2", "int"));
+            RuleIndex index = RuleIndex.build(config, 1);
+
+            RuleTypeMatcher matcher = new RuleTypeMatcher(() -> index);
+            assertFalse(matcher.matches("test.Broken"), "test.Broken." + methodName + " should be ignored");
+            assertTrue(matcher.matches("test.Service"));
+        }
+    }
+
+    private static MockMethodConfig method(String descriptor, String signature, String value) {
+        MockMethodConfig methodConfig = new MockMethodConfig();
+        methodConfig.setClassName("test.Service");
+        methodConfig.setMethodName("find");
+        methodConfig.setSignature(signature);
+        methodConfig.setDescriptor(descriptor);
+        methodConfig.setReturnValue(value);
+        methodConfig.setReturnType("java.lang.String");
+        return methodConfig;
+    }
+}
@@ -0,0 +1,114 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.LatencyConfig;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockMethodConfig;
+import io.github.lancelothuxi.idea.plugin.mock.mock.Recording;
+import io.github.lancelothuxi.idea.plugin.mock.mock.RecordingImporter;
+import com.google.gson.Gson;
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test that recorded calls are imported as mock method configs
+ */
+public class RecordingImporterTest {
+
+    private static final Gson GSON = new Gson();
+    private static final String ORDER_SERVICE = "test.dubbo.OrderService";
+    private static final String GET_ORDER = "(Ljava/lang/Long;)Ltest/dubbo/OrderDTO;";
+
+    @Test
+    public void testLatestCallOfEachOverloadBecomesTheMock() throws Exception {
+        String jsonl = line(recording("getOrder", GET_ORDER, "{\"id\":1}", 2_000_000, 100))
+            + line(recording("getOrder", "(Ljava/lang/String;)Ltest/dubbo/OrderDTO;", "{\"id\":2}", 1_000_000, 150))
+            + line(recording("getOrder", GET_ORDER, "{\"id\":3}", 4_000_000, 200));
+
+        List<MockMethodConfig> methods = RecordingImporter.toMockMethods(RecordingImporter.read(new StringReader(jsonl)));
+
+        assertEquals(methods.size(), 2);
+        MockMethodConfig byId = methods.get(0);
+        assertEquals(byId.getClassName(), ORDER_SERVICE);
+        assertEquals(byId.getMethodName(), "getOrder");
+        assertEquals(byId.getDescriptor(), GET_ORDER);
+        assertEquals(byId.getSignature(), "(Long)");
+        assertEquals(byId.getReturnType(), "test.dubbo.OrderDTO");
+        assertEquals(byId.getReturnValue(), "{\"id\":3}");
+        assertFalse(byId.isThrowException());
+        assertFalse(byId.isRecord());
+        assertTrue(byId.isEnabled());
+        assertEquals(methods.get(1).getReturnValue(), "{\"id\":2}");
+    }
+
+    @Test
+    public void testRecordedExceptionIsImported() throws Exception {
+        Recording failed = recording("getOrder", GET_ORDER, null, 1_000_000, 100);
+        failed.setThrowException(true);
+        failed.setExceptionType("java.util.concurrent.TimeoutException");
+        failed.setExceptionMessage("upstream timed out");
+
+        MockMethodConfig method = RecordingImporter.toMockMethods(
+            RecordingImporter.read(new StringReader(line(failed)))).get(0);
+
+        assertTrue(method.isThrowException());
+        assertEquals(method.getExceptionType(), "java.util.concurrent.TimeoutException");
+        assertEquals(method.getExceptionMessage(), "upstream timed out");
+    }
+
+    @Test
+    public void testSingleCallLatencyIsFixed() throws Exception {
+        MockMethodConfig method = RecordingImporter.toMockMethods(RecordingImporter.read(
+            new StringReader(line(recording("getOrder", GET_ORDER, "{}", 12_345_678, 100))))).get(0);
+
+        LatencyConfig latency = method.getLatency();
+        assertEquals(latency.getType(), "fixed");
+        assertEquals(latency.getMillis(), 12.346, 1e-9);
+    }
+
+    @Test
+    public void testRecordedLatenciesBecomePercentiles() throws Exception {
+        StringBuilder jsonl = new StringBuilder();
+        for (int i = 1; i <= 1000; i++) {
+            jsonl.append(line(recording("getOrder", GET_ORDER, "{}", i * 1_000_000L, i)));
+        }
+
+        LatencyConfig latency = RecordingImporter.toMockMethods(
+            RecordingImporter.read(new StringReader(jsonl.toString()))).get(0).getLatency();
+
+        assertEquals(latency.getType(), "percentiles");
+        assertEquals(latency.getMin(), 1.0, 1e-9);
+        assertEquals(latency.getP50(), 500.0, 1e-9);
+        assertEquals(latency.getP90(), 900.0, 1e-9);
+        assertEquals(latency.getP99(), 990.0, 1e-9);
+        assertEquals(latency.getP999(), 999.0, 1e-9);
+    }
+
+    @Test
+    public void testBlankAndTruncatedLinesAreSkipped() throws Exception {
+        String complete = line(recording("getOrder", GET_ORDER, "{}", 1_000_000, 100));
+        String jsonl = "\n" + complete + "  \n" + complete.substring(0, complete.length() / 2);
+
+        assertEquals(RecordingImporter.read(new StringReader(jsonl)).size(), 1);
+    }
+
+    private static Recording recording(String methodName, String descriptor, String returnValue,
+                                       long latencyNanos, long timestamp) {
+        Recording recording = new Recording();
+        recording.setClassName(ORDER_SERVICE);
+        recording.setMethodName(methodName);
+        recording.setDescriptor(descriptor);
+        recording.setSignature(descriptor.startsWith("(Ljava/lang/Long;") ? "(Long)" : "(String)");
+        recording.setReturnType("test.dubbo.OrderDTO");
+        recording.setReturnValue(returnValue);
+        recording.setLatencyNanos(latencyNanos);
+        recording.setTimestamp(timestamp);
+        return recording;
+    }
+
+    private static String line(Recording recording) {
+        return GSON.toJson(recording) + "\n";
+    }
+}
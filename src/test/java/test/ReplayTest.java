@@ -0,0 +1,157 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.agent.CompiledRule;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import io.github.lancelothuxi.idea.plugin.mock.mock.Recording;
+import io.github.lancelothuxi.idea.plugin.mock.mock.ReplayConfig;
+import com.google.gson.Gson;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test that replay rules answer with recorded calls, looked up by their arguments
+ */
+public class ReplayTest {
+
+    private static final Gson GSON = new Gson();
+    private static final String KEY = "test.Downstream.price(Ljava/lang/String;I)";
+    private static final String DESCRIPTOR = "(Ljava/lang/String;I)Ljava/lang/Integer;";
+
+    private Path dir;
+
+    @BeforeClass
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("mock-replay");
+    }
+
+    @Test
+    public void testRecordedCallIsReplayedByArguments() throws IOException {
+        Path recording = write("hit.jsonl",
+            call("price", DESCRIPTOR, "10", "apple", "1"),
+            call("price", DESCRIPTOR, "20", "apple", "2"),
+            call("price", DESCRIPTOR, "11", "apple", "1"),
+            call("other", DESCRIPTOR, "99", "apple", "1"));
+
+        CompiledRule rule = rule(recording, "default");
+
+        // Values are parsed as the recorded return type
+        assertEquals(rule.select(KEY, new Object[]{"apple", 2}, true).getValue(), 20);
+        // The latest of several calls with the same arguments wins
+        assertEquals(rule.select(KEY, new Object[]{"apple", 1}, true).getValue(), 11);
+        assertTrue(rule.needsArguments());
+        assertSame(rule.select(KEY, new Object[]{"apple", 2}, true), rule.select(KEY, new Object[]{"apple", 2}, true),
+            "A recorded call is parsed and compiled once");
+    }
+
+    @Test
+    public void testMissPolicies() throws IOException {
+        Path recording = write("miss.jsonl", call("price", DESCRIPTOR, "10", "apple", "1"));
+        Object[] unrecorded = {"pear", 1};
+
+        assertNull(rule(recording, "passthrough").select(KEY, unrecorded, true));
+        CompiledRule withoutOriginal = rule(recording, "passthrough").select(KEY, unrecorded, false);
+        assertEquals(withoutOriginal.getValue(), "default");
+
+        CompiledRule fallback = rule(recording, "default");
+        assertSame(fallback.select(KEY, unrecorded, true), fallback);
+
+        CompiledRule failed = rule(recording, "fail").select(KEY, unrecorded, true);
+        assertTrue(failed.isThrowException());
+        Exception e = failed.newException();
+        assertTrue(e instanceof IllegalStateException);
+        assertTrue(e.getMessage().contains("[pear, 1]"), e.getMessage());
+    }
+
+    @Test
+    public void testRecordedExceptionIsReplayed() throws IOException {
+        Recording failure = recording("price", DESCRIPTOR, null, "apple", "3");
+        failure.setThrowException(true);
+        failure.setExceptionType(UnsupportedOperationException.class.getName());
+        failure.setExceptionMessage("sold out");
+        Path recording = write("failure.jsonl", GSON.toJson(failure));
+
+        CompiledRule replayed = rule(recording, "fail").select(KEY, new Object[]{"apple", 3}, true);
+
+        assertTrue(replayed.isThrowException());
+        Exception e = replayed.newException();
+        assertTrue(e instanceof UnsupportedOperationException);
+        assertEquals(e.getMessage(), "sold out");
+    }
+
+    @Test
+    public void testNullArgumentDiffersFromTheStringNull() throws IOException {
+        Path recording = write("nulls.jsonl",
+            call("price", DESCRIPTOR, "1", null, "1"),
+            call("price", DESCRIPTOR, "2", "null", "1"));
+
+        CompiledRule rule = rule(recording, "fail");
+
+        assertEquals(rule.select(KEY, new Object[]{null, 1}, true).getValue(), 1);
+        assertEquals(rule.select(KEY, new Object[]{"null", 1}, true).getValue(), 2);
+    }
+
+    @Test
+    public void testIndexIsRebuiltWhenTheRecordingChanges() throws IOException {
+        Path recording = write("grow.jsonl", call("price", DESCRIPTOR, "10", "apple", "1"));
+        assertTrue(rule(recording, "fail").select(KEY, new Object[]{"kiwi", 1}, true).isThrowException());
+        assertTrue(Files.exists(dir.resolve("grow.jsonl.idx")));
+
+        Files.write(recording, (call("price", DESCRIPTOR, "30", "kiwi", "1") + "\n").getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND);
+        // Size and modification time are both checked, so an append is enough to trigger a rebuild
+        Files.setLastModifiedTime(recording, java.nio.file.attribute.FileTime.fromMillis(
+            Files.getLastModifiedTime(recording).toMillis() + 1000));
+
+        assertEquals(rule(recording, "fail").select(KEY, new Object[]{"kiwi", 1}, true).getValue(), 30);
+    }
+
+    @Test
+    public void testManyRecordedCalls() throws IOException {
+        String[] lines = new String[20_000];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = call("price", DESCRIPTOR, String.valueOf(i * 3), "item-" + i, String.valueOf(i % 7));
+        }
+        CompiledRule rule = rule(write("many.jsonl", lines), "fail");
+
+        for (int i = 0; i < lines.length; i += 97) {
+            assertEquals(rule.select(KEY, new Object[]{"item-" + i, i % 7}, true).getValue(), i * 3);
+        }
+        assertTrue(rule.select(KEY, new Object[]{"item-1", 0}, true).isThrowException());
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        Path path = dir.resolve(name);
+        Files.write(path, (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    private static String call(String methodName, String descriptor, String returnValue, String... args) {
+        return GSON.toJson(recording(methodName, descriptor, returnValue, args));
+    }
+
+    private static Recording recording(String methodName, String descriptor, String returnValue, String... args) {
+        Recording recording = new Recording();
+        recording.setClassName("test.Downstream");
+        recording.setMethodName(methodName);
+        recording.setDescriptor(descriptor);
+        recording.setReturnType("java.lang.Integer");
+        recording.setArgs(Arrays.asList(args));
+        recording.setReturnValue(returnValue);
+        return recording;
+    }
+
+    private static CompiledRule rule(Path recording, String miss) {
+        MockConfig.MockRule rule = new MockConfig.MockRule("default", "java.lang.String");
+        rule.setReplay(new ReplayConfig(recording.toString(), miss));
+        return TestRules.compile("test.Downstream", "price", rule);
+    }
+}
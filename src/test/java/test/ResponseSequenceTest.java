@@ -0,0 +1,126 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.agent.CompiledRule;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockResponse;
+import io.github.lancelothuxi.idea.plugin.mock.mock.ResponseSequence;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test that response sequences answer call N with response N under each policy
+ */
+public class ResponseSequenceTest {
+
+    @Test
+    public void testStopRepeatsLastResponse() {
+        CompiledRule rule = rule("stop", 0, "a", "b", "c");
+        assertEquals(answers(rule, 5), List.of("a", "b", "c", "c", "c"));
+    }
+
+    @Test
+    public void testCycleStartsOver() {
+        CompiledRule rule = rule("cycle", 0, "a", "b", "c");
+        assertEquals(answers(rule, 7), List.of("a", "b", "c", "a", "b", "c", "a"));
+    }
+
+    @Test
+    public void testRandomIsReproducibleForSameSeed() {
+        List<Object> first = answers(rule("random", 7, "a", "b", "c"), 50);
+        assertEquals(answers(rule("random", 7, "a", "b", "c"), 50), first);
+        assertNotEquals(answers(rule("random", 8, "a", "b", "c"), 50), first);
+        assertTrue(first.containsAll(List.of("a", "b", "c")));
+    }
+
+    @Test
+    public void testSequenceCanThrow() {
+        MockResponse failure = new MockResponse();
+        failure.setThrowException(true);
+        failure.setExceptionType("java.lang.IllegalStateException");
+        CompiledRule rule = rule("stop", 0, new MockResponse("ok"), failure);
+
+        assertFalse(rule.next().isThrowException());
+        CompiledRule second = rule.next();
+        assertTrue(second.isThrowException());
+        assertEquals(second.newException().getClass(), IllegalStateException.class);
+    }
+
+    @Test
+    public void testUnknownPolicyAndNoSequence() {
+        assertEquals(answers(rule("sometimes", 0, "a", "b"), 3), List.of("a", "b", "b"));
+        CompiledRule plain = rule(null, 0, new MockResponse[0]);
+        assertSame(plain.next(), plain);
+    }
+
+    @Test
+    public void testConcurrentCallersEachGetOneResponse() throws Exception {
+        int threads = 16;
+        int callsPerThread = 1000;
+        String[] values = new String[threads * callsPerThread];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = String.valueOf(i);
+        }
+        CompiledRule rule = rule("stop", 0, values);
+
+        Map<Object, Boolean> seen = new ConcurrentHashMap<>();
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < callsPerThread; i++) {
+                    if (seen.put(rule.next().getValue(), Boolean.TRUE) != null) {
+                        duplicates.incrementAndGet();
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(duplicates.get(), 0, "Every response is handed out exactly once");
+        assertEquals(seen.size(), values.length);
+    }
+
+    private static List<Object> answers(CompiledRule rule, int calls) {
+        List<Object> answers = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            answers.add(rule.next().getValue());
+        }
+        return answers;
+    }
+
+    private static CompiledRule rule(String policy, long seed, String... values) {
+        MockResponse[] responses = new MockResponse[values.length];
+        for (int i = 0; i < values.length; i++) {
+            responses[i] = new MockResponse(values[i]);
+        }
+        return rule(policy, seed, responses);
+    }
+
+    private static CompiledRule rule(String policy, long seed, MockResponse... responses) {
+        MockConfig.MockRule rule = new MockConfig.MockRule("default", "java.lang.String");
+        if (responses.length > 0) {
+            ResponseSequence sequence = new ResponseSequence(policy, List.of(responses));
+            sequence.setSeed(seed);
+            rule.setSequence(sequence);
+        }
+        return TestRules.compile("test.OrderService", "createOrder", rule);
+    }
+}
@@ -0,0 +1,84 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.agent.CompiledRule;
+import io.github.lancelothuxi.idea.plugin.mock.agent.MockScope;
+import io.github.lancelothuxi.idea.plugin.mock.mock.ArgumentCase;
+import io.github.lancelothuxi.idea.plugin.mock.mock.ArgumentCondition;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import org.testng.annotations.Test;
+import test.scope.GreetingService;
+
+import java.util.Collections;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test that templated return values echo the call's arguments
+ */
+public class ResponseTemplateTest {
+
+    @Test
+    public void testJsonTemplateReadsArgumentsAndPaths() {
+        CompiledRule rule = rule("{\"userId\": \"${args[0]}\", \"username\": \"${args[1].username}\", \"age\": ${args[2]}}",
+            "test.User");
+        assertTrue(rule.needsArguments());
+
+        User user = (User) answer(rule, "u-7", new User("x", "Ann \"The\" Smith", null, 0), 41);
+        assertEquals(user.getUserId(), "u-7");
+        assertEquals(user.getUsername(), "Ann \"The\" Smith", "Strings are escaped for JSON");
+        assertEquals(user.getAge(), 41);
+
+        User other = (User) answer(rule, "u-8", null, 1);
+        assertEquals(other.getUserId(), "u-8");
+        assertEquals(other.getUsername(), "null", "A missing path renders as null");
+    }
+
+    @Test
+    public void testPlainTemplateAndLiterals() {
+        CompiledRule rule = rule("Hi ${args[0]}, $${args[0]} costs ${price}", "java.lang.String");
+        assertEquals(answer(rule, "Bob \"B\""), "Hi Bob \"B\", ${args[0]} costs ${price}");
+
+        CompiledRule literal = rule("${user.home}", "java.lang.String");
+        assertFalse(literal.needsArguments(), "Values without argument placeholders are not templates");
+        assertSame(literal.render(new Object[]{"x"}), literal);
+
+        CompiledRule invalid = rule("Hi ${args[x]}", "java.lang.String");
+        assertFalse(invalid.needsArguments(), "Invalid templates are returned literally");
+        assertEquals(answer(invalid, "Bob"), "Hi ${args[x]}");
+    }
+
+    @Test
+    public void testCaseResponsesCanBeTemplates() {
+        MockConfig.MockRule source = new MockConfig.MockRule("default", "java.lang.String");
+        ArgumentCase vip = new ArgumentCase();
+        vip.setReturnValue("VIP ${args[0]}");
+        vip.setWhen(Collections.singletonList(new ArgumentCondition(0, "regex", "V-.*")));
+        source.setCases(Collections.singletonList(vip));
+        CompiledRule rule = TestRules.compile("test.Service", "find", source);
+
+        assertTrue(rule.needsArguments(), "A templated case needs the arguments");
+        assertEquals(answer(rule, "V-1"), "VIP V-1");
+        assertEquals(answer(rule, "A-1"), "default");
+    }
+
+    @Test
+    public void testInstrumentedMethodRendersTemplate() {
+        MockConfig overrides = new MockConfig();
+        overrides.addMockRule("test.scope.GreetingService", "greet",
+            new MockConfig.MockRule("Hello ${args[0]}", "java.lang.String"));
+        GreetingService service = new GreetingService();
+        try (MockScope ignored = MockScope.open(overrides)) {
+            assertEquals(service.greet("Ann"), "Hello Ann");
+            assertEquals(service.greet("Bob"), "Hello Bob");
+        }
+        assertEquals(service.greet("Ann"), "Hello from config");
+    }
+
+    private static Object answer(CompiledRule rule, Object... args) {
+        return rule.select(args).next().render(args).getValue();
+    }
+
+    private static CompiledRule rule(String returnValue, String returnType) {
+        return TestRules.compile("test.Service", "find", new MockConfig.MockRule(returnValue, returnType));
+    }
+}
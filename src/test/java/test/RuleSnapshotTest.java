@@ -0,0 +1,146 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.agent.CompiledRule;
+import io.github.lancelothuxi.idea.plugin.mock.agent.RuleIndex;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockMethodConfig;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test that reloads publish complete rule snapshots to concurrent readers
+ */
+public class RuleSnapshotTest {
+
+    private static final int READERS = 64;
+    private static final int RULES = 50;
+    private static final int RELOADS = 500;
+
+    private volatile RuleIndex published = RuleIndex.EMPTY;
+
+    @Test
+    public void testIndexIsNotAffectedByLaterConfigChanges() {
+        MockConfig config = configWithValue("1");
+        RuleIndex index = RuleIndex.build(config, 1);
+
+        config.getAllRules().get("test.Service.method0").setEnabled(false);
+        config.rebuildMockRules();
+        config.clearAll();
+
+        CompiledRule rule = index.lookup("test.Service.method0(I)", "test.Service.method0");
+        assertNotNull(rule);
+        assertTrue(rule.isEnabled());
+        assertEquals(rule.getRule().getReturnValue(), "1");
+        assertEquals(index.size(), RULES);
+    }
+
+    @Test
+    public void testMutableValuesAreNotSharedBetweenCalls() {
+        CompiledRule find = TestRules.compile("test.Service", "find",
+            new MockConfig.MockRule("{\"userId\": \"u-1\", \"age\": 30}", "test.User"));
+        User user = (User) find.getValue();
+        user.setUserId("changed by the caller");
+        User again = (User) find.getValue();
+        assertNotSame(again, user);
+        assertEquals(again.getUserId(), "u-1", "A caller's changes do not leak into later calls");
+
+        CompiledRule name = TestRules.compile("test.Service", "name", new MockConfig.MockRule("Ann", "java.lang.String"));
+        assertSame(name.getValue(), name.getValue(), "Immutable values are shared");
+    }
+
+    @Test(timeOut = 60_000)
+    public void testReadersSeeOneCompleteVersionDuringReloads() throws Exception {
+        published = RuleIndex.build(configWithValue("1"), 1);
+        runReaders(() -> {
+            RuleIndex index = published;
+            String expected = String.valueOf(index.getVersion());
+            for (int i = 0; i < RULES; i++) {
+                CompiledRule rule = index.lookup("test.Service.method" + i + "(I)", "test.Service.method" + i);
+                assertNotNull(rule, "Rule " + i + " missing in version " + expected);
+                assertEquals(rule.getRule().getReturnValue(), expected, "Rules from different versions mixed");
+            }
+        }, () -> {
+            for (int version = 2; version <= RELOADS; version++) {
+                // Parse-and-build happens off to the side, then one volatile write publishes it
+                published = RuleIndex.build(configWithValue(String.valueOf(version)), version);
+            }
+        });
+        assertEquals(published.getVersion(), RELOADS);
+    }
+
+    @Test(timeOut = 60_000)
+    public void testRebuildNeverExposesPartialRules() throws Exception {
+        MockConfig config = configWithValue("1");
+        runReaders(() -> {
+            for (int i = 0; i < RULES; i++) {
+                assertNotNull(config.getMockRule("test.Service", "method" + i, "(I)Ljava/lang/String;"),
+                    "Rule " + i + " missing during rebuild");
+            }
+        }, () -> {
+            for (int version = 2; version <= RELOADS; version++) {
+                for (MockMethodConfig methodConfig : config.getMockMethods()) {
+                    methodConfig.setReturnValue(String.valueOf(version));
+                }
+                config.rebuildMockRules();
+            }
+        });
+    }
+
+    /**
+     * Runs {@code read} in a loop on {@link #READERS} threads while {@code write} runs once,
+     * and rethrows the first assertion failure of any reader.
+     */
+    private static void runReaders(Runnable read, Runnable write) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(READERS);
+        AtomicBoolean done = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(READERS);
+        List<Future<?>> readers = new ArrayList<>();
+        try {
+            for (int i = 0; i < READERS; i++) {
+                readers.add(pool.submit(() -> {
+                    started.countDown();
+                    while (!done.get()) {
+                        read.run();
+                    }
+                    return null;
+                }));
+            }
+            started.await();
+            write.run();
+            done.set(true);
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            done.set(true);
+            pool.shutdownNow();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static MockConfig configWithValue(String value) {
+        MockConfig config = new MockConfig();
+        for (int i = 0; i < RULES; i++) {
+            MockMethodConfig methodConfig = new MockMethodConfig();
+            methodConfig.setClassName("test.Service");
+            methodConfig.setMethodName("method" + i);
+            methodConfig.setSignature("(int)");
+            // Half the rules are keyed on the exact overload, half on the method name
+            methodConfig.setDescriptor(i % 2 == 0 ? null : "(I)Ljava/lang/String;");
+            methodConfig.setReturnValue(value);
+            methodConfig.setReturnType("java.lang.String");
+            config.addMockMethod(methodConfig);
+        }
+        return config;
+    }
+}
@@ -0,0 +1,96 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.SharedConfigFile;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test the memory-mapped config file that the IDE publishes to every agent
+ */
+public class SharedConfigFileTest {
+
+    @Test
+    public void testPublishesVersionsAndGrows() throws Exception {
+        Path file = Files.createTempDirectory("shared-config").resolve("config.shm");
+        try (SharedConfigFile.Writer writer = new SharedConfigFile.Writer(file)) {
+            SharedConfigFile.Reader reader = SharedConfigFile.Reader.open(file);
+            assertEquals(reader.read().getVersion(), 0);
+
+            assertTrue(writer.publish(bytes("{\"mockRules\":{}}")));
+            assertFalse(writer.publish(bytes("{\"mockRules\":{}}")), "Same content is not a new version");
+            SharedConfigFile.Snapshot first = reader.read();
+            assertEquals(first.getVersion(), 1);
+            assertEquals(new String(first.getContent(), StandardCharsets.UTF_8), "{\"mockRules\":{}}");
+
+            // Larger than the initial capacity, so the file grows under the mapped reader
+            byte[] large = new byte[300 * 1024];
+            Arrays.fill(large, (byte) 'x');
+            long before = reader.sequence();
+            assertTrue(writer.publish(large));
+            assertNotEquals(reader.sequence(), before);
+            assertEquals(reader.read().getContent(), large);
+        }
+
+        // A new writer keeps the version count, so running agents see its first publish
+        try (SharedConfigFile.Writer writer = new SharedConfigFile.Writer(file)) {
+            assertTrue(writer.publish(bytes("{}")));
+            SharedConfigFile.Snapshot snapshot = SharedConfigFile.Reader.open(file).read();
+            assertEquals(snapshot.getVersion(), 3);
+            assertEquals(new String(snapshot.getContent(), StandardCharsets.UTF_8), "{}");
+        }
+    }
+
+    @Test
+    public void testReaderNeverSeesHalfAPublish() throws Exception {
+        Path file = Files.createTempDirectory("shared-config").resolve("config.shm");
+        try (SharedConfigFile.Writer writer = new SharedConfigFile.Writer(file)) {
+            SharedConfigFile.Reader reader = SharedConfigFile.Reader.open(file);
+            writer.publish(filled(1, 4096));
+            AtomicBoolean done = new AtomicBoolean();
+            Thread publisher = new Thread(() -> {
+                try {
+                    // Every publish is one repeated byte, of a different length each time
+                    for (int i = 2; i < 20_000; i++) {
+                        writer.publish(filled(i, 1024 + i % 7000));
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    done.set(true);
+                }
+            });
+            publisher.start();
+            int reads = 0;
+            while (!done.get() || reads == 0) {
+                SharedConfigFile.Snapshot snapshot = reader.read();
+                if (snapshot == null) {
+                    continue;
+                }
+                byte[] content = snapshot.getContent();
+                for (byte b : content) {
+                    assertEquals(b, content[0], "Torn read at version " + snapshot.getVersion());
+                }
+                reads++;
+            }
+            publisher.join();
+            assertEquals(reader.read().getVersion(), writer.getVersion());
+        }
+    }
+
+    private static byte[] filled(int value, int length) {
+        byte[] content = new byte[length];
+        Arrays.fill(content, (byte) value);
+        return content;
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,25 @@
+package test;
+
+import io.github.lancelothuxi.idea.plugin.mock.agent.CompiledRule;
+import io.github.lancelothuxi.idea.plugin.mock.agent.RuleIndex;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+
+/**
+ * Compiles mock rules the way the agent does, for tests that call {@link CompiledRule} directly
+ */
+public final class TestRules {
+
+    private TestRules() {
+    }
+
+    /**
+     * Compiles {@code rule} as the only rule of a config, keyed on the method name so it
+     * applies to every overload
+     */
+    public static CompiledRule compile(String className, String methodName, MockConfig.MockRule rule) {
+        MockConfig config = new MockConfig();
+        config.addMockRule(className, methodName, rule);
+        String key = MockConfig.ruleKey(className, methodName, null);
+        return RuleIndex.build(config, 1).lookup(key, key);
+    }
+}
@@ -0,0 +1,25 @@
+package test.async;
+
+import test.dubbo.OrderDTO;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Async order client - simulates an asynchronous Dubbo client implementation
+ */
+public class AsyncOrderClient {
+
+    public CompletableFuture<OrderDTO> getOrderAsync(Long orderId) {
+        throw new UnsupportedOperationException("Remote call - should be mocked");
+    }
+
+    public CompletionStage<List<OrderDTO>> listOrdersAsync(Long userId) {
+        throw new UnsupportedOperationException("Remote call - should be mocked");
+    }
+
+    public CompletableFuture<Boolean> cancelOrderAsync(Long orderId) {
+        throw new UnsupportedOperationException("Remote call - should be mocked");
+    }
+}
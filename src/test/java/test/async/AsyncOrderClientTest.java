@@ -0,0 +1,54 @@
+package test.async;
+
+import org.testng.annotations.Test;
+import test.dubbo.OrderDTO;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test async client mocking - mock values are delivered through futures
+ */
+public class AsyncOrderClientTest {
+
+    private final AsyncOrderClient client = new AsyncOrderClient();
+
+    @Test
+    public void testCompletableFutureIsCompletedLater() throws Exception {
+        long start = System.nanoTime();
+        CompletableFuture<OrderDTO> future = client.getOrderAsync(12345L);
+        assertNotNull(future, "Mocked future should not be null");
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(40),
+            "Latency must not block the caller");
+
+        OrderDTO order = future.get(5, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(order.getOrderId(), Long.valueOf(12345L));
+        assertEquals(order.getStatus(), "COMPLETED");
+        assertNotSame(client.getOrderAsync(1L), future, "Each call gets its own future");
+    }
+
+    @Test
+    public void testCompletionStageOfGenericList() throws Exception {
+        List<OrderDTO> orders = client.listOrdersAsync(100L).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(orders.size(), 2);
+        assertEquals(orders.get(0).getClass(), OrderDTO.class, "Elements should be parsed as OrderDTO");
+        assertEquals(orders.get(1).getOrderNo(), "ORD-2026-002");
+    }
+
+    @Test
+    public void testExceptionFailsTheFuture() throws Exception {
+        CompletableFuture<Boolean> future = client.cancelOrderAsync(1L);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Future should have failed");
+        } catch (ExecutionException e) {
+            assertEquals(e.getCause().getClass(), IllegalStateException.class);
+            assertEquals(e.getCause().getMessage(), "Order already shipped");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package test.control;
+
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockResponse;
+import io.github.lancelothuxi.idea.plugin.mock.mock.ResponseSequence;
+import io.github.lancelothuxi.idea.plugin.mock.mock.RuleControlClient;
+import io.github.lancelothuxi.idea.plugin.mock.mock.RuleDelta;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test that rule changes sent to the agent's control socket apply to the next call
+ */
+public class ControlEndpointTest {
+
+    private static final String KEY = "test.control.PriceService.price";
+    private static final String TIER_KEY = "test.control.PriceService.tier";
+
+    private final PriceService service = new PriceService();
+    private RuleControlClient client;
+
+    @BeforeClass
+    public void connect() throws IOException {
+        String socket = System.getProperty("mock.control");
+        if (socket == null) {
+            throw new SkipException("Agent not started with a control socket");
+        }
+        client = RuleControlClient.connect(Paths.get(socket));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void disconnect() throws IOException {
+        if (client != null) {
+            client.apply(RuleDelta.remove(KEY));
+            client.close();
+        }
+    }
+
+    @Test
+    public void testDeltasApplyToTheNextCall() throws IOException {
+        assertEquals(service.price("A1"), "real price of A1");
+
+        long version = client.apply(RuleDelta.put(KEY, rule("9.99")));
+        assertEquals(service.price("A1"), "9.99");
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 200; i++) {
+            client.apply(RuleDelta.put(KEY, rule(String.valueOf(i))));
+            assertEquals(service.price("A1"), String.valueOf(i));
+        }
+        System.out.printf("Average rule change round trip: %.1f us%n", (System.nanoTime() - start) / 200 / 1000.0);
+
+        client.apply(RuleDelta.disable(KEY));
+        assertEquals(service.price("A1"), "real price of A1");
+        assertEquals(client.apply(RuleDelta.enable(KEY)), version + 202);
+        assertEquals(service.price("A1"), "199");
+
+        client.apply(RuleDelta.remove(KEY));
+        assertEquals(service.price("A1"), "real price of A1");
+    }
+
+    @Test
+    public void testInvalidRequestChangesNothing() throws IOException {
+        long version = client.apply(RuleDelta.put(KEY, rule("1.00")));
+        IOException rejected = expectThrows(IOException.class,
+            () -> client.apply(RuleDelta.put(KEY, rule("2.00")), RuleDelta.enable("test.control.PriceService.missing")));
+        assertTrue(rejected.getMessage().contains("missing"), rejected.getMessage());
+        assertEquals(service.price("A1"), "1.00");
+        assertEquals(client.apply(RuleDelta.remove(KEY)), version + 1);
+    }
+
+    @Test
+    public void testUnchangedRulesKeepTheirState() throws IOException {
+        MockConfig.MockRule tiers = rule("none");
+        tiers.setSequence(new ResponseSequence("stop",
+            List.of(new MockResponse("gold"), new MockResponse("silver"), new MockResponse("bronze"))));
+        client.apply(RuleDelta.put(TIER_KEY, tiers));
+        try {
+            assertEquals(service.tier("A1"), "gold");
+            client.apply(RuleDelta.put(KEY, rule("5.00")));
+            assertEquals(service.tier("A1"), "silver", "Changing another rule does not restart the sequence");
+            client.apply(RuleDelta.disable(KEY));
+            assertEquals(service.tier("A1"), "bronze");
+        } finally {
+            client.apply(RuleDelta.remove(TIER_KEY), RuleDelta.remove(KEY));
+        }
+    }
+
+    private static MockConfig.MockRule rule(String value) {
+        return new MockConfig.MockRule(value, "java.lang.String");
+    }
+}
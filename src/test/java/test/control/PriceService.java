@@ -0,0 +1,15 @@
+package test.control;
+
+/**
+ * Service whose rules are changed at runtime through the agent's control endpoint
+ */
+public class PriceService {
+
+    public String price(String sku) {
+        return "real price of " + sku;
+    }
+
+    public String tier(String sku) {
+        return "real tier of " + sku;
+    }
+}
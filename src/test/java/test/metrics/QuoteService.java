@@ -0,0 +1,21 @@
+package test.metrics;
+
+/**
+ * Quote service whose rules are counted by the agent's invocation metrics
+ */
+public class QuoteService {
+
+    public String quote(String symbol) {
+        throw new UnsupportedOperationException("Remote call - should be mocked");
+    }
+
+    public String reject(String symbol) {
+        throw new UnsupportedOperationException("Remote call - should be mocked");
+    }
+
+    /** Passed through by its rule, so the original runs and is timed */
+    public String refresh(String symbol) throws InterruptedException {
+        Thread.sleep(5);
+        return "refreshed " + symbol;
+    }
+}
@@ -0,0 +1,98 @@
+package test.metrics;
+
+import io.github.lancelothuxi.idea.plugin.mock.agent.MockAgentMXBean;
+import io.github.lancelothuxi.idea.plugin.mock.agent.MockScope;
+import io.github.lancelothuxi.idea.plugin.mock.agent.RuleStats;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test that mocked calls are counted per rule and readable over JMX
+ */
+public class RuleMetricsTest {
+
+    private static final String PREFIX = "test.metrics.QuoteService.";
+
+    private final QuoteService service = new QuoteService();
+    private MockAgentMXBean agent;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("io.github.lancelothuxi.mock:type=MockAgent");
+        // The agent registers its bean on a background thread
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!server.isRegistered(name) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        agent = JMX.newMXBeanProxy(server, name, MockAgentMXBean.class);
+    }
+
+    @Test
+    public void testCallsAreCountedPerRule() throws Exception {
+        agent.resetMetrics();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(service.quote("ACME"), "42.5");
+        }
+        expectThrows(IllegalStateException.class, () -> service.reject("ACME"));
+        assertEquals(service.refresh("ACME"), "refreshed ACME");
+        assertEquals(service.refresh("ACME"), "refreshed ACME");
+
+        RuleStats quote = stats("quote");
+        assertEquals(quote.getHits(), 3);
+        assertEquals(quote.getExceptions(), 0);
+        assertEquals(quote.getPassThroughs(), 0);
+        assertTrue(quote.isActive());
+
+        RuleStats reject = stats("reject");
+        assertEquals(reject.getExceptions(), 1);
+        assertEquals(reject.getHits(), 0);
+
+        RuleStats refresh = stats("refresh");
+        assertEquals(refresh.getPassThroughs(), 2);
+        assertEquals(refresh.getHits(), 0);
+        assertEquals(refresh.getMisses(), 0);
+        // The original sleeps 5 ms; buckets are accurate to about 6%
+        assertTrue(refresh.getPassThroughP50Millis() >= 4.5, refresh.toString());
+        assertTrue(refresh.getPassThroughMaxMillis() >= refresh.getPassThroughP50Millis(), refresh.toString());
+    }
+
+    @Test
+    public void testResetZeroesCounters() {
+        service.quote("ACME");
+        agent.resetMetrics();
+        RuleStats quote = stats("quote");
+        assertEquals(quote.getHits(), 0);
+        assertEquals(quote.getPassThroughP99Millis(), 0d);
+        assertTrue(agent.getRuleCount() > 0);
+        assertTrue(agent.getConfigVersion() > 0);
+    }
+
+    @Test
+    public void testScopedCallsAreNotCounted() {
+        MockConfig overrides = new MockConfig();
+        overrides.addMockRule("test.metrics.QuoteService", "quote", new MockConfig.MockRule("1.0", "java.lang.String"));
+        long hits = stats("quote").getHits();
+        try (MockScope ignored = MockScope.open(overrides)) {
+            assertEquals(service.quote("ACME"), "1.0");
+        }
+        assertEquals(stats("quote").getHits(), hits, "Scope hits are not the config file rule's hits");
+    }
+
+    private RuleStats stats(String method) {
+        for (RuleStats stats : agent.getRuleStats()) {
+            if (stats.getRuleKey().equals(PREFIX + method)) {
+                return stats;
+            }
+        }
+        throw new AssertionError("No metrics for " + PREFIX + method);
+    }
+}
@@ -0,0 +1,16 @@
+package test.scope;
+
+/**
+ * Service mocked by the config file and overridden per thread by mock scopes
+ */
+public class GreetingService {
+
+    public String greet(String name) {
+        throw new UnsupportedOperationException("Remote call - should be mocked");
+    }
+
+    /** Has no rule in the config file, only in scopes */
+    public String farewell(String name) {
+        return "Goodbye " + name;
+    }
+}
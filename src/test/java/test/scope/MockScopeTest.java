@@ -0,0 +1,84 @@
+package test.scope;
+
+import io.github.lancelothuxi.idea.plugin.mock.agent.MockScope;
+import io.github.lancelothuxi.idea.plugin.mock.mock.MockConfig;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.testng.Assert.*;
+
+/**
+ * Test that mock scopes override the config file's rules for one thread only
+ */
+public class MockScopeTest {
+
+    private final GreetingService service = new GreetingService();
+
+    @DataProvider(name = "greetings", parallel = true)
+    public Object[][] greetings() {
+        Object[][] greetings = new Object[8][];
+        for (int i = 0; i < greetings.length; i++) {
+            greetings[i] = new Object[]{"Hello from test " + i};
+        }
+        return greetings;
+    }
+
+    @Test(dataProvider = "greetings")
+    public void testParallelScopesSeeOnlyTheirOwnRules(String greeting) {
+        try (MockScope ignored = MockScope.open(config("greet", greeting, true))) {
+            for (int i = 0; i < 10_000; i++) {
+                assertEquals(service.greet("Ann"), greeting);
+            }
+        }
+        assertEquals(service.greet("Ann"), "Hello from config");
+    }
+
+    @Test
+    public void testNestedScopesAndMethodsOnlyMockedInScope() {
+        assertEquals(service.farewell("Ann"), "Goodbye Ann");
+        try (MockScope outer = MockScope.open(config("farewell", "Bye", true))) {
+            assertEquals(service.farewell("Ann"), "Bye");
+            assertEquals(service.greet("Ann"), "Hello from config");
+            try (MockScope inner = MockScope.open(config("greet", "ignored", false))) {
+                // A disabled rule in a scope runs the original method
+                expectThrows(UnsupportedOperationException.class, () -> service.greet("Ann"));
+                assertEquals(service.farewell("Ann"), "Bye");
+            }
+            assertEquals(service.greet("Ann"), "Hello from config");
+        }
+        assertEquals(service.farewell("Ann"), "Goodbye Ann");
+    }
+
+    @Test
+    public void testScopeReachesOtherThreads() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            // Start the pool thread before the scope, so it cannot inherit it
+            assertEquals(pool.submit(() -> service.greet("Ann")).get(), "Hello from config");
+            try (MockScope ignored = MockScope.open(config("greet", "Hello from scope", true))) {
+                assertEquals(pool.submit(() -> service.greet("Ann")).get(), "Hello from config");
+                assertEquals(pool.submit(MockScope.wrap(() -> service.greet("Ann"))).get(), "Hello from scope");
+
+                CompletableFuture<String> started = new CompletableFuture<>();
+                Thread child = new Thread(() -> started.complete(service.greet("Ann")));
+                child.start();
+                assertEquals(started.get(), "Hello from scope");
+            }
+            assertEquals(pool.submit(() -> service.greet("Ann")).get(), "Hello from config");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static MockConfig config(String method, String value, boolean enabled) {
+        MockConfig.MockRule rule = new MockConfig.MockRule(value, "java.lang.String");
+        rule.setEnabled(enabled);
+        MockConfig config = new MockConfig();
+        config.addMockRule(GreetingService.class.getName(), method, rule);
+        return config;
+    }
+}